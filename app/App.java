@@ -1,15 +1,22 @@
 package app;
 
 import javafx.application.Application;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCombination;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,14 +25,21 @@ import view.AutomataSimulatorView;
 import view.SubsetConstructionView;
 
 import components.MainCanvas;
+import components.RenderScheduler;
+import components.serialization.AutomataFormat;
 import components.serialization.AutomataIO;
+import components.serialization.EditJournal;
 import components.serialization.SerializablePoint2D;
+import controller.AutomataController;
 import model.*;
 
 /**
  * Main class for the application.
  */
 public class App extends Application {
+    // Where edits are journalled so they survive a crash
+    private static final Path WORKSPACE = Path.of(System.getProperty("user.home"), ".aavt", "workspace");
+
     private static Scene scene;
     private static TabPane tabPane;
     private static Map<State, SerializablePoint2D> states = new HashMap<>();
@@ -38,15 +52,24 @@ public class App extends Application {
     private MenuItem openItem;
     private MenuItem saveItem;
     private MenuItem exitItem;
+    private MenuItem undoItem;
+    private MenuItem redoItem;
 
     private BorderPane root;
     private MenuBar menuBar;
     private Menu fileMenu;
+    private Menu editMenu;
     private Menu overviewMenu;
 
     private Tab automataTab;
     private Tab simulationTab;
     private Tab subsetTab;
+
+    private HBox statusBar;
+    private ProgressBar progressBar;
+    private Label statusLabel;
+    private Button cancelButton;
+    private Task<?> runningTask;
     
     public static void main(String[] args) {
         launch(args);
@@ -62,6 +85,8 @@ public class App extends Application {
         primaryStage.setMaximized(true);
         primaryStage.setTitle("Automata Animated Visual Toolkit");
         primaryStage.show();
+        
+        openWorkspace();
     }
     
     private void initialiseComponents(Stage primaryStage) {
@@ -71,24 +96,35 @@ public class App extends Application {
         
         menuBar = new MenuBar();
         fileMenu = new Menu("File");
+        editMenu = new Menu("Edit");
         overviewMenu = new Menu("Overview");
         
         openItem = new MenuItem("Open");
         saveItem = new MenuItem("Save");
         exitItem = new MenuItem("Exit");
+        undoItem = new MenuItem("Undo");
+        redoItem = new MenuItem("Redo");
+        undoItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Z"));
+        redoItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Y"));
         
         tabPane = new TabPane();
         
         automataTab = new Tab("Automata", automataConstructorView);
         simulationTab = new Tab("Simulation", automataSimulatorView);
         subsetTab = new Tab("Subset Construction Algorithm", subsetConstructionView);
+
+        progressBar = new ProgressBar();
+        statusLabel = new Label();
+        cancelButton = new Button("Cancel");
+        statusBar = new HBox(10, progressBar, statusLabel, cancelButton);
         
         scene = new Scene(root, 1200, 900);
     }
     
     private void layoutComponents() {
         fileMenu.getItems().addAll(openItem, saveItem, new SeparatorMenuItem(), exitItem);
-        menuBar.getMenus().addAll(fileMenu, overviewMenu);
+        editMenu.getItems().addAll(undoItem, redoItem);
+        menuBar.getMenus().addAll(fileMenu, editMenu, overviewMenu);
         
         root.setTop(menuBar);
         
@@ -99,6 +135,13 @@ public class App extends Application {
         tabPane.getTabs().addAll(automataTab, simulationTab, subsetTab);
         
         root.setCenter(tabPane);
+
+        statusBar.setAlignment(Pos.CENTER_LEFT);
+        statusBar.setPadding(new Insets(4, 10, 4, 10));
+        progressBar.setPrefWidth(200);
+        statusBar.setVisible(false);
+        statusBar.setManaged(false);
+        root.setBottom(statusBar);
     }
     
     private void initialiseEventHandlers() {
@@ -107,20 +150,7 @@ public class App extends Application {
             fileChooser.setTitle("Open Automata File");
             File file = fileChooser.showOpenDialog(primaryStage);
             if (file != null) {
-                try {
-                    primaryStage.setTitle("Automata Animated Visual Toolkit - " + file.getName());
-                    states = AutomataIO.loadAutomata(file);
-                    automata.setStates(states);
-                    setAppStates(automata);
-                    
-                    MainCanvas.drawAllCanvases();
-                } catch (IOException | ClassNotFoundException err) {
-                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                    alert.setTitle("Error");
-                    alert.setHeaderText("Error Loading Automata");
-                    alert.setContentText("An error occurred while loading the automata. Please make sure the file is valid.");
-                    alert.showAndWait();
-                }
+                openAutomata(file);
             }
         });
         
@@ -129,22 +159,49 @@ public class App extends Application {
             fileChooser.setTitle("Save Automata File");
             File file = fileChooser.showSaveDialog(primaryStage);
             if (file != null) {
-                try {
-                    AutomataIO.saveAutomata(states, file);
-                } catch (IOException err) {
-                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                    alert.setTitle("Error");
-                    alert.setHeaderText("Error Saving Automata");
-                    alert.setContentText("An error occurred while saving the automata. Please try again.");
-                    alert.showAndWait();
-                }
+                saveAutomata(file);
+            }
+        });
+
+        cancelButton.setOnAction(e -> {
+            if (runningTask != null) {
+                runningTask.cancel();
+            }
+        });
+        
+        undoItem.setOnAction(e -> {
+            AutomataController controller = getEditedController();
+            if (controller != null && controller.undo()) {
+                MainCanvas.drawAllCanvases();
             }
         });
         
+        redoItem.setOnAction(e -> {
+            AutomataController controller = getEditedController();
+            if (controller != null && controller.redo()) {
+                MainCanvas.drawAllCanvases();
+            }
+        });
+        
+        // Only disable the items while the menu is open, disabled items would ignore their shortcuts
+        editMenu.setOnShowing(e -> {
+            AutomataController controller = getEditedController();
+            undoItem.setDisable(controller == null || !controller.getHistory().canUndo());
+            redoItem.setDisable(controller == null || !controller.getHistory().canRedo());
+        });
+        editMenu.setOnHidden(e -> {
+            undoItem.setDisable(false);
+            redoItem.setDisable(false);
+        });
+        
         exitItem.setOnAction(e -> {
             System.exit(0);
         });
         
+        // Canvases that were changed while hidden are drawn once they are shown
+        tabPane.getSelectionModel().selectedItemProperty().addListener((obs, oldTab, newTab) -> RenderScheduler.wake());
+        primaryStage.setOnShown(e -> RenderScheduler.wake());
+        
         scene.setOnKeyPressed(event -> {
             if (event.isControlDown()) { // Ctrl key held
                 if (event.getCode() == KeyCode.DIGIT1) { // 1 key
@@ -164,6 +221,159 @@ public class App extends Application {
         });
     }
     
+    /**
+     * Offers to restore the automaton autosaved in the workspace, then starts journalling edits to it.
+     */
+    private void openWorkspace() {
+        try {
+            EditJournal.Recovered recovered = EditJournal.recover(WORKSPACE);
+            if (recovered != null && !recovered.isEmpty()) {
+                Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+                alert.setTitle("Recover Automata");
+                alert.setHeaderText("Recover the automaton from your last session?");
+                alert.setContentText("An automaton with " + recovered.getStates().size() + " states was autosaved. Cancel discards it.");
+                if (alert.showAndWait().filter(button -> button == ButtonType.OK).isPresent()) {
+                    automata.setStates(recovered.getStates());
+                    if (recovered.getAlphabet() != null) {
+                        AutomataConstructorView.getController().setAlphabet(recovered.getAlphabet());
+                    }
+                    setAppStates(automata);
+                }
+            }
+        } catch (IOException err) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText("Error Recovering Automata");
+            alert.setContentText("The autosaved automaton could not be read and will be discarded.");
+            alert.showAndWait();
+        }
+        
+        try {
+            AutomataConstructorView.getController().setJournal(EditJournal.create(WORKSPACE, automata));
+        } catch (IOException err) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Warning");
+            alert.setHeaderText("Autosave Unavailable");
+            alert.setContentText("The workspace " + WORKSPACE + " could not be written, so edits are only kept when saved.");
+            alert.showAndWait();
+        }
+    }
+    
+    /**
+     * Loads the automata from the file on a background thread. The loaded states replace the current ones
+     * on the FX thread once the whole file has been read.
+     * 
+     * @param file
+     */
+    private void openAutomata(File file) {
+        Task<Map<State, SerializablePoint2D>> task = new Task<>() {
+            @Override
+            protected Map<model.State, SerializablePoint2D> call() throws Exception {
+                return AutomataIO.loadAutomata(file, (done, total) -> {
+                    updateProgress(done, total);
+                    return !isCancelled();
+                });
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            primaryStage.setTitle("Automata Animated Visual Toolkit - " + file.getName());
+            automata.setStates(task.getValue());
+            setAppStates(automata);
+            finishTask(null);
+        });
+        task.setOnFailed(e -> {
+            finishTask(null);
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText("Error Loading Automata");
+            alert.setContentText("An error occurred while loading the automata. Please make sure the file is valid.");
+            alert.showAndWait();
+        });
+        task.setOnCancelled(e -> finishTask("Opening " + file.getName() + " was cancelled."));
+
+        startTask(task, "Opening " + file.getName() + "...", "automata-open");
+    }
+
+    /**
+     * Saves the automata to the file on a background thread. The states are copied on the FX thread first,
+     * so they can be edited while the file is written.
+     * 
+     * @param file
+     */
+    private void saveAutomata(File file) {
+        AutomataFormat.Snapshot snapshot = AutomataFormat.snapshot(states);
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                AutomataIO.saveAutomata(snapshot, file, (done, total) -> {
+                    updateProgress(done, total);
+                    return !isCancelled();
+                });
+                return null;
+            }
+        };
+
+        task.setOnSucceeded(e -> finishTask("Saved " + file.getName() + "."));
+        task.setOnFailed(e -> {
+            // A cancelled write leaves the previous file untouched
+            if (task.getException() instanceof InterruptedIOException) {
+                finishTask("Saving " + file.getName() + " was cancelled.");
+                return;
+            }
+            finishTask(null);
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText("Error Saving Automata");
+            alert.setContentText("An error occurred while saving the automata. Please try again.");
+            alert.showAndWait();
+        });
+        task.setOnCancelled(e -> finishTask("Saving " + file.getName() + " was cancelled."));
+
+        startTask(task, "Saving " + file.getName() + "...", "automata-save");
+    }
+
+    // Show the status bar for the task and run it on a daemon thread
+    private void startTask(Task<?> task, String message, String threadName) {
+        runningTask = task;
+        openItem.setDisable(true);
+        saveItem.setDisable(true);
+        progressBar.progressProperty().bind(task.progressProperty());
+        statusLabel.setText(message);
+        cancelButton.setVisible(true);
+        statusBar.setVisible(true);
+        statusBar.setManaged(true);
+
+        Thread thread = new Thread(task, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Hide the progress of the finished task, leaving the message in the status bar if there is one
+    private void finishTask(String message) {
+        runningTask = null;
+        openItem.setDisable(false);
+        saveItem.setDisable(false);
+        progressBar.progressProperty().unbind();
+        progressBar.setProgress(0);
+        cancelButton.setVisible(false);
+        statusLabel.setText(message == null ? "" : message);
+        statusBar.setVisible(message != null);
+        statusBar.setManaged(message != null);
+    }
+    
+    // The controller of the automaton edited in the selected tab, or null if the tab has nothing to undo
+    private AutomataController getEditedController() {
+        Tab selected = tabPane.getSelectionModel().getSelectedItem();
+        if (selected == automataTab) {
+            return AutomataConstructorView.getController();
+        }
+        if (selected == subsetTab) {
+            return SubsetConstructionView.getDFAController();
+        }
+        return null;
+    }
+    
     /**
      * Sets the states of the application to the new states. 
      * 
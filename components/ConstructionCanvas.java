@@ -93,7 +93,7 @@ public class ConstructionCanvas extends MainCanvas<ConstructionController> {
             startState = state;
             controller.showPopupMessage("Choose the target state for the transition.");
             stateInnerColor = Color.LIGHTGREEN;
-            drawCanvas();
+            requestDraw();
         });
         
         epsilonTransitionItem.setOnAction(e -> {
@@ -102,7 +102,7 @@ public class ConstructionCanvas extends MainCanvas<ConstructionController> {
             controller.showPopupMessage("Choose the target state for the ε-transition.");
             stateInnerColor = Color.LIGHTGREEN;
             isEpsilonTransition = true;
-            drawCanvas();
+            requestDraw();
         });
         
         showContextMenu(point, deleteItem, renameItem, makeAcceptingItem, makeInitialItem, addTransitionItem, epsilonTransitionItem);
@@ -140,6 +140,7 @@ public class ConstructionCanvas extends MainCanvas<ConstructionController> {
 
     private void resetStatesAfterAddingTransition() {
         isChoosingStateTransition = false;
+        hideTransitionPreview();
         startState = null;
         stateInnerColor = Color.LIGHTGRAY;
         isEpsilonTransition = false;
@@ -169,7 +170,7 @@ public class ConstructionCanvas extends MainCanvas<ConstructionController> {
             } else if (isMouseOverTransition && lastSelectedTransition != null && getTransitionUIByTransition(lastSelectedTransition).isSelfTransition()) {
                 handleSelfTransitionDrag(new SerializablePoint2D(e.getX(), e.getY()));
                 canvas.setCursor(Cursor.MOVE);
-                MainCanvas.drawAllCanvases();
+                MainCanvas.repaintAllCanvases(lastSelectedTransition.getSourceState());
             }
             else {
                 canvas.setCursor(javafx.scene.Cursor.DEFAULT);
@@ -180,6 +181,9 @@ public class ConstructionCanvas extends MainCanvas<ConstructionController> {
             SerializablePoint2D point = new SerializablePoint2D(e.getX(), e.getY());
             if (isMouseOverCanvas(point)) {
                 updateCoordinatesLabel(point);
+                if (isChoosingStateTransition) {
+                    showTransitionPreview(startState, point);
+                }
                 
                 isMouseOverState = isMouseOverState(point);
                 isMouseOverTransition = isMouseOverTransition(point);
@@ -0,0 +1,63 @@
+package components;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javafx.geometry.Bounds;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+/*
+ * LabelMetrics: Measures the labels drawn on the canvases and remembers their sizes.
+ * Sizes are kept per font for the most recently measured strings, so labels that are drawn again are not laid out again.
+ * Fonts are resolved once, as constants, rather than on every draw.
+ */
+public final class LabelMetrics {
+    public static final Font LABEL_FONT = Font.font("Arial", FontWeight.BOLD, 12);
+
+    private static final int MAX_STRINGS_PER_FONT = 1024;
+    private static final Map<Font, Map<String, Bounds>> cache = new HashMap<>();
+    private static Text measuringText = null;
+
+    private LabelMetrics() {
+    }
+
+    /**
+     * Gets the layout bounds of the string in the font. The least recently used sizes are forgotten first.
+     * @param font
+     * @param value
+     * @return Bounds
+     */
+    public static Bounds measure(Font font, String value) {
+        Map<String, Bounds> sizes = cache.computeIfAbsent(font, f -> new LinkedHashMap<String, Bounds>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bounds> eldest) {
+                return size() > MAX_STRINGS_PER_FONT;
+            }
+        });
+
+        Bounds bounds = sizes.get(value);
+        if (bounds == null) {
+            if (measuringText == null) {
+                measuringText = new Text();
+            }
+            measuringText.setFont(font);
+            measuringText.setText(value);
+            bounds = measuringText.getLayoutBounds();
+            sizes.put(value, bounds);
+        }
+        return bounds;
+    }
+
+    public static double getWidth(Font font, String value) {
+        return measure(font, value).getWidth();
+    }
+
+    public static double getHeight(Font font, String value) {
+        return measure(font, value).getHeight();
+    }
+}
@@ -2,6 +2,8 @@ package components;
 
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.canvas.Canvas;
@@ -21,11 +23,14 @@ import java.util.Map;
 import app.App;
 import components.serialization.SerializablePoint2D;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import controller.AutomataController;
+import model.Automata;
 import model.State;
 import model.Transition;
 
@@ -40,6 +45,7 @@ public class MainCanvas<ControllerT extends AutomataController> extends StackPan
     protected boolean isMouseOverTransition = false;
     
     protected SerializablePoint2D lastMousePosition = null;
+    protected SerializablePoint2D dragStartPosition = null; // Where the dragged state was, to undo the drag
     protected boolean isDraggingState = false;
     protected Transition lastSelectedTransition = null;
     protected static State interactingState = null;
@@ -47,33 +53,57 @@ public class MainCanvas<ControllerT extends AutomataController> extends StackPan
     
     protected ContextMenu contextMenu;
     
-    protected Canvas canvas;
+    protected Canvas backgroundCanvas; // The grid, only drawn again when the canvas is resized
+    protected Canvas canvas; // The states and transitions
+    protected Canvas overlayCanvas; // Highlights and previews that change more often than the graph
     protected ControllerT controller;
     
-    protected static List<MainCanvas<? extends AutomataController>> instances = new ArrayList<>();
+    private double backgroundWidth = -1;
+    private double backgroundHeight = -1;
+    private Bounds overlayBounds = null;
+    private State previewSourceState = null;
+    private SerializablePoint2D previewPoint = null;
     
-    protected List<StateUI> stateUIs = new ArrayList<>();
-    protected List<TransitionUI> transitionUIs = new ArrayList<>();
+    private static final Color OUTLINE_COLOR = Color.BLACK.darker();
+    
+    // Kept between draws by the id of their state or transition, so only what changed is worked out again
+    protected Map<Integer, StateUI> stateUIs = new LinkedHashMap<>();
+    protected Map<Integer, TransitionUI> transitionUIs = new LinkedHashMap<>();
+    private int generation = 0;
+    private Automata drawnAutomata = null;
+    private long drawnVersion = -1;
+    
+    // Finds the states and transitions under the mouse, kept up to date as they are drawn
+    private static final double INDEX_CELL_SIZE = 100;
+    protected SpatialIndex<StateUI> stateIndex = new SpatialIndex<>(INDEX_CELL_SIZE);
+    protected SpatialIndex<TransitionUI> transitionIndex = new SpatialIndex<>(INDEX_CELL_SIZE);
     
     protected SerializablePoint2D newTransitionDragPoint = null;
+    // Where self-transitions were dragged to, relative to their state, so a loop follows its state however it moves
     protected static Map<Transition, SerializablePoint2D> transitionDragPoints = new HashMap<>();
     
     public MainCanvas(ControllerT controller) {
         this.controller = controller;
         this.setStyle("-fx-background-color: white;");
-        instances.add(this);
+        RenderScheduler.register(this);
         
+        backgroundCanvas = new Canvas(2000, 2000);
+        backgroundCanvas.setMouseTransparent(true);
         canvas = new Canvas(2000, 2000);
         canvas.setFocusTraversable(false);
-        getChildren().add(canvas);
+        overlayCanvas = new Canvas(2000, 2000);
+        overlayCanvas.setMouseTransparent(true); // Mouse events go to the graph layer below
+        getChildren().addAll(backgroundCanvas, canvas, overlayCanvas);
         
+        widthProperty().addListener((obs, oldValue, newValue) -> drawBackground());
+        heightProperty().addListener((obs, oldValue, newValue) -> drawBackground());
         
         coordinatesLabel = new Label();
         coordinatesLabel.setId("coordinatesLabel");
         StackPane.setAlignment(coordinatesLabel, Pos.BOTTOM_RIGHT);  
         getChildren().add(coordinatesLabel);
         
-        drawCanvas();
+        requestDraw();
         setCanvasEvents();
     }
     
@@ -86,96 +116,345 @@ public class MainCanvas<ControllerT extends AutomataController> extends StackPan
     }
     
     /*
-     * Draws all the canvases in the application.
+     * Draws all the canvases in the application on the next frame.
      */
     public static void drawAllCanvases() {
-        for (MainCanvas<? extends AutomataController> canvas : instances) {
-            canvas.drawCanvas();
-        }
+        RenderScheduler.requestDrawAll();
     }
     
+    /*
+     * Redraws the simulation highlights on the next frame. They are on the overlay, so the graph itself is left alone.
+     */
     public static void drawSimulatorCanvas() {
-        for (MainCanvas<? extends AutomataController> canvas : instances) {
+        for (MainCanvas<?> canvas : RenderScheduler.getCanvases()) {
             if (canvas instanceof SimulatorCanvas) {
-                canvas.drawCanvas();
+                RenderScheduler.requestOverlay(canvas);
             }
         }
     }
     
+    /**
+     * Repaints the neighbourhood of a state that moved on every canvas showing it on the next frame.
+     * @param state
+     */
+    public static void repaintAllCanvases(State state) {
+        RenderScheduler.requestRepaintAll(state);
+    }
+    
+    /*
+     * Draws this canvas on the next frame.
+     */
+    public void requestDraw() {
+        RenderScheduler.requestDraw(this);
+    }
+    
     /*
      * Clears the canvas and redraws the states and transitions on the canvas.
      */
     public void drawCanvas() {
-        stateUIs.clear();
-        transitionUIs.clear();
+        generation++;
+        drawBackground();
         
         GraphicsContext gc = canvas.getGraphicsContext2D();
-        
         gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-        gc.setFill(Color.WHITE);
+        
+        drawStates(gc);
+        drawTransitions(gc);
+        drawOverlay();
+    }
+    
+    /**
+     * Repaints the state and its transitions after the state moved, together with everything they overlap
+     * at their old and new positions. Only that part of the graph layer is cleared and drawn again.
+     * @param state
+     */
+    public void repaintState(State state) {
+        SerializablePoint2D position = controller.getAutomata().getStates().get(state);
+        if (position == null) {
+            return; // Not shown on this canvas
+        }
+        StateUI stateUI = getStateUIByState(state);
+        if (stateUI == null) {
+            drawCanvas();
+            return;
+        }
+        
+        // Outgoing transitions are kept by the state; incoming ones end on its border, so the index finds them there
+        Set<TransitionUI> attached = new LinkedHashSet<>();
+        for (Transition transition : state.getTransitions()) {
+            TransitionUI transitionUI = getTransitionUIByTransition(transition);
+            if (transitionUI != null) {
+                attached.add(transitionUI);
+            }
+        }
+        for (TransitionUI transitionUI : transitionIndex.query(stateUI.getBounds())) {
+            if (transitionUI.getTransition().getTargetState() == state) {
+                attached.add(transitionUI);
+            }
+        }
+        
+        Bounds dirty = stateUI.getBounds();
+        for (TransitionUI transitionUI : attached) {
+            dirty = union(dirty, transitionUI.getBounds());
+        }
+        
+        stateUI.setPosition(position);
+        if (stateUI.takeGeometryChange()) {
+            stateIndex.remove(stateUI);
+            stateIndex.add(stateUI, stateUI.getBounds());
+        }
+        for (TransitionUI transitionUI : attached) {
+            if (transitionUI.isSelfTransition()) {
+                transitionUI.setSelfTransitionPosition(getSelfTransitionDragPoint(transitionUI.getTransition()));
+            }
+            if (transitionUI.takeGeometryChange()) {
+                indexTransition(transitionUI);
+            }
+            dirty = union(dirty, transitionUI.getBounds());
+        }
+        
+        repaintRegion(union(dirty, stateUI.getBounds()));
+        drawOverlay();
+    }
+    
+    /**
+     * Clears a region of the graph layer and draws the states and transitions that overlap it again,
+     * clipped to the region. States are drawn before transitions, as in a full draw.
+     * @param region
+     */
+    protected void repaintRegion(Bounds region) {
+        Bounds dirty = snapOutwards(region);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        
+        gc.save();
+        gc.beginPath();
+        gc.rect(dirty.getMinX(), dirty.getMinY(), dirty.getWidth(), dirty.getHeight());
+        gc.clip();
+        gc.clearRect(dirty.getMinX(), dirty.getMinY(), dirty.getWidth(), dirty.getHeight());
+        
+        for (StateUI stateUI : stateIndex.query(dirty)) {
+            stateUI.draw(gc);
+        }
+        for (TransitionUI transitionUI : transitionIndex.query(dirty)) {
+            transitionUI.draw(gc);
+        }
+        gc.restore();
+    }
+    
+    /*
+     * Clears what was last drawn on the overlay and draws the overlay again.
+     */
+    public void drawOverlay() {
+        GraphicsContext gc = overlayCanvas.getGraphicsContext2D();
+        if (overlayBounds != null) {
+            Bounds dirty = snapOutwards(overlayBounds);
+            gc.clearRect(dirty.getMinX(), dirty.getMinY(), dirty.getWidth(), dirty.getHeight());
+        }
+        overlayBounds = union(drawOverlay(gc), drawTransitionPreview(gc));
+    }
+    
+    /**
+     * Draws the highlights of the canvas on the overlay.
+     * @param gc The graphics context of the overlay.
+     * @return Bounds the region drawn in, or null if nothing was drawn
+     */
+    protected Bounds drawOverlay(GraphicsContext gc) {
+        return null;
+    }
+    
+    /**
+     * Shows a line from the state to the point while the target of a new transition is chosen.
+     * @param sourceState
+     * @param point
+     */
+    protected void showTransitionPreview(State sourceState, SerializablePoint2D point) {
+        previewSourceState = sourceState;
+        previewPoint = point;
+        drawOverlay();
+    }
+    
+    protected void hideTransitionPreview() {
+        if (previewSourceState != null) {
+            previewSourceState = null;
+            previewPoint = null;
+            drawOverlay();
+        }
+    }
+    
+    private Bounds drawTransitionPreview(GraphicsContext gc) {
+        SerializablePoint2D source = previewSourceState == null ? null : controller.getAutomata().getStates().get(previewSourceState);
+        if (source == null || previewPoint == null || source.distance(previewPoint) <= StateUI.getRadius()) {
+            return null;
+        }
+        double dx = previewPoint.getX() - source.getX();
+        double dy = previewPoint.getY() - source.getY();
+        double magnitude = Math.sqrt(dx * dx + dy * dy);
+        double startX = source.getX() + dx / magnitude * StateUI.getRadius();
+        double startY = source.getY() + dy / magnitude * StateUI.getRadius();
+        
+        gc.setStroke(Color.GRAY);
+        gc.setLineWidth(1.5);
+        gc.setLineDashes(6);
+        gc.strokeLine(startX, startY, previewPoint.getX(), previewPoint.getY());
+        gc.setLineDashes(null);
+        gc.setLineWidth(1);
+        
+        return new BoundingBox(Math.min(startX, previewPoint.getX()) - 2, Math.min(startY, previewPoint.getY()) - 2,
+            Math.abs(previewPoint.getX() - startX) + 4, Math.abs(previewPoint.getY() - startY) + 4);
+    }
+    
+    // Draws the grid on the background layer when the canvas has been resized since it was last drawn
+    private void drawBackground() {
+        if (getWidth() == backgroundWidth && getHeight() == backgroundHeight) {
+            return;
+        }
+        backgroundWidth = getWidth();
+        backgroundHeight = getHeight();
+        
+        GraphicsContext gc = backgroundCanvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, backgroundCanvas.getWidth(), backgroundCanvas.getHeight());
         
         if (this instanceof SimulatorCanvas) {
             drawDottedCanvas(gc);
         } else if (this instanceof ConstructionCanvas || this instanceof SubsetConstructionCanvas) {
             drawSquareGridCanvas(gc);
         }
-        
-        drawStates(gc);
-        drawTransitions(gc);
+    }
+    
+    protected static Bounds union(Bounds a, Bounds b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        double minX = Math.min(a.getMinX(), b.getMinX());
+        double minY = Math.min(a.getMinY(), b.getMinY());
+        return new BoundingBox(minX, minY, Math.max(a.getMaxX(), b.getMaxX()) - minX, Math.max(a.getMaxY(), b.getMaxY()) - minY);
+    }
+    
+    // Widen the bounds to whole pixels so anti-aliased edges are cleared as well
+    private static Bounds snapOutwards(Bounds bounds) {
+        double minX = Math.floor(bounds.getMinX()) - 1;
+        double minY = Math.floor(bounds.getMinY()) - 1;
+        return new BoundingBox(minX, minY, Math.ceil(bounds.getMaxX()) + 1 - minX, Math.ceil(bounds.getMaxY()) + 1 - minY);
     }
     
     /**
-     * Draws the states on the canvas and adds them to the list of stateUIs.
+     * Draws the states on the canvas, reusing the StateUIs of the states drawn before.
+     * StateUIs of states that are gone are dropped.
      * @param gc The graphics context of the canvas.
      */
     protected void drawStates(GraphicsContext gc) {
-        for (State state : controller.getAutomata().getStates().keySet()) {
-            StateUI stateUI = new StateUI(state, controller.getAutomata().getStates().get(state));
+        for (Map.Entry<State, SerializablePoint2D> entry : controller.getAutomata().getStates().entrySet()) {
+            State state = entry.getKey();
+            StateUI stateUI = getStateUIByState(state);
+            if (stateUI == null) {
+                stateIndex.remove(stateUIs.get(state.getId())); // A state of a replaced automaton may have had the id
+                stateUI = new StateUI(state, entry.getValue());
+                stateUIs.put(state.getId(), stateUI);
+            } else {
+                stateUI.setPosition(entry.getValue());
+            }
+            stateUI.setGeneration(generation);
             
             stateUI.setStateOutlineColor(getStateOutlineColor(state));
             stateUI.setStateInnerColor(getStateInnerColor(state));
             stateUI.setStateTextColor(getStateTextColor(state));
             stateUI.draw(gc);
-            stateUIs.add(stateUI);
+            if (stateUI.takeGeometryChange()) {
+                stateIndex.remove(stateUI);
+                stateIndex.add(stateUI, stateUI.getBounds());
+            }
         }
+        
+        stateUIs.values().removeIf(stateUI -> {
+            if (stateUI.getGeneration() == generation) {
+                return false;
+            }
+            stateIndex.remove(stateUI);
+            return true;
+        });
     }
     
     /**
-     * Draws the transitions on the canvas and adds them to the list of transitionUIs.
+     * Draws the transitions on the canvas, reusing the TransitionUIs of the transitions drawn before.
+     * Where a transition is among those between the same states is only worked out again after the automaton changed,
+     * or when the number of transitions between them differs from the last draw.
      * @param gc The graphics context of the canvas.
      */
     protected void drawTransitions(GraphicsContext gc) {
-        for (StateUI sourceStateUI : stateUIs) {
-            for (Transition transition : sourceStateUI.getState().getTransitions()) {
-                StateUI targetStateUI = getStateUIByState(transition.getTargetState());
-                if (targetStateUI != null) {
-                    TransitionUI transitionUI = new TransitionUI(transition, sourceStateUI, targetStateUI);
-                    if (transitionDragPoints.containsKey(transition)) {
-                        transitionUI.setSelfTransitionPosition(transitionDragPoints.get(transition));
-                    }
-                    transitionUI.draw(gc);
-                    transitionUIs.add(transitionUI);
+        Automata automata = controller.getAutomata();
+        boolean isAutomataChanged = automata != drawnAutomata || automata.getVersion() != drawnVersion;
+        drawnAutomata = automata;
+        drawnVersion = automata.getVersion();
+        
+        for (StateUI sourceStateUI : stateUIs.values()) {
+            State sourceState = sourceStateUI.getState();
+            for (Transition transition : sourceState.getTransitions()) {
+                State targetState = transition.getTargetState();
+                StateUI targetStateUI = getStateUIByState(targetState);
+                if (targetStateUI == null) {
+                    continue;
+                }
+                
+                TransitionUI transitionUI = getTransitionUIByTransition(transition);
+                boolean isNew = transitionUI == null || !transitionUI.connects(sourceStateUI, targetStateUI);
+                if (isNew) {
+                    transitionIndex.remove(transitionUIs.get(transition.getId()));
+                    transitionUI = new TransitionUI(transition, sourceStateUI, targetStateUI);
+                    transitionUIs.put(transition.getId(), transitionUI);
+                }
+                // The count is checked on every draw as well, so siblings are spread again even if an edit went unseen
+                List<Transition> parallelTransitions = sourceState.getTransitionsTo(targetState);
+                if (isNew || isAutomataChanged || transitionUI.getParallelCount() != parallelTransitions.size()) {
+                    transitionUI.setParallelTransitions(parallelTransitions.indexOf(transition) + 1, parallelTransitions.size(),
+                        !targetState.getTransitionsTo(sourceState).isEmpty());
+                }
+                if (transitionUI.isSelfTransition()) {
+                    transitionUI.setSelfTransitionPosition(getSelfTransitionDragPoint(transition));
+                }
+                transitionUI.setGeneration(generation);
+                
+                transitionUI.draw(gc);
+                if (transitionUI.takeGeometryChange()) {
+                    indexTransition(transitionUI);
                 }
             }
         }
+        
+        transitionUIs.values().removeIf(transitionUI -> {
+            if (transitionUI.getGeneration() == generation) {
+                return false;
+            }
+            transitionIndex.remove(transitionUI);
+            return true;
+        });
     }
     
-    protected StateUI getStateUIByState(State state) {
-        for (StateUI stateUI : stateUIs) {
-            if (stateUI.getState().equals(state)) {
-                return stateUI;
-            }
+    // Index the transition by its line, arrow head and label
+    private void indexTransition(TransitionUI transitionUI) {
+        transitionIndex.remove(transitionUI);
+        double margin = TransitionUI.getHitDistance() + 2; // The arrow head is about as wide as the hit distance
+        List<SerializablePoint2D> points = transitionUI.getTransitionPoints();
+        for (int i = 0; i < points.size() - 1; i++) {
+            SerializablePoint2D p1 = points.get(i);
+            SerializablePoint2D p2 = points.get(i + 1);
+            transitionIndex.addSegment(transitionUI, p1.getX(), p1.getY(), p2.getX(), p2.getY(), margin);
         }
-        return null;
+        SerializablePoint2D symbolPoint = transitionUI.getSymbolPoint();
+        double hitDistance = TransitionUI.getHitDistance();
+        transitionIndex.add(transitionUI, union(transitionUI.getLabelBounds(),
+            new BoundingBox(symbolPoint.getX() - hitDistance, symbolPoint.getY() - hitDistance, 2 * hitDistance, 2 * hitDistance)));
+    }
+    
+    protected StateUI getStateUIByState(State state) {
+        StateUI stateUI = stateUIs.get(state.getId());
+        return stateUI != null && stateUI.getState() == state ? stateUI : null;
     }
     
     protected TransitionUI getTransitionUIByTransition(Transition transition) {
-        for (TransitionUI transitionUI : transitionUIs) {
-            if (transitionUI.getTransition().equals(transition)) {
-                return transitionUI;
-            }
-        }
-        return null;
+        TransitionUI transitionUI = transitionUIs.get(transition.getId());
+        return transitionUI != null && transitionUI.getTransition() == transition ? transitionUI : null;
     }
     
     /**
@@ -209,9 +488,9 @@ public class MainCanvas<ControllerT extends AutomataController> extends StackPan
     
     protected Color getStateOutlineColor(State state) {
         if (interactingState != null && interactingState.equals(state)) {
-            return Color.BLACK.darker();
+            return OUTLINE_COLOR;
         } else {
-            return Color.BLACK.darker();
+            return OUTLINE_COLOR;
         }
     }
     
@@ -238,7 +517,7 @@ public class MainCanvas<ControllerT extends AutomataController> extends StackPan
     }
     
     protected boolean isMouseOverState(SerializablePoint2D mousePoint) {
-        for (StateUI stateUI : stateUIs) {
+        for (StateUI stateUI : stateIndex.query(mousePoint.getX(), mousePoint.getY())) {
             if (stateUI.isMouseOverState(mousePoint)) {
                 return true;
             }
@@ -247,7 +526,7 @@ public class MainCanvas<ControllerT extends AutomataController> extends StackPan
     }
     
     protected boolean isMouseOverTransition(SerializablePoint2D mousePoint) {
-        for (TransitionUI transitionUI : transitionUIs) {
+        for (TransitionUI transitionUI : transitionIndex.query(mousePoint.getX(), mousePoint.getY())) {
             if (transitionUI.isMouseOverTransition(mousePoint)) {
                 lastSelectedTransition = transitionUI.getTransition();
                 return true;
@@ -307,36 +586,47 @@ public class MainCanvas<ControllerT extends AutomataController> extends StackPan
             controller.getAutomata().getStates().put(interactingState, newPosition);
             lastMousePosition = dragPoint;
             
-            // Update drag point of self-transition
-            for (Transition transition : interactingState.getTransitions()) {
-                SerializablePoint2D selfTransitionDragPoint = getTransitionUIByTransition(transition).getDragPoint();
-                if (getTransitionUIByTransition(transition).isSelfTransition() && selfTransitionDragPoint != null) {
-                    transitionDragPoints.put(transition, new SerializablePoint2D(
-                        selfTransitionDragPoint.getX() + deltaX,
-                        selfTransitionDragPoint.getY() + deltaY
-                    ));
-                }
-            }
-            
-            MainCanvas.drawAllCanvases();
+            MainCanvas.repaintAllCanvases(interactingState);
         }
         isMouseOverState = isMouseOverState(dragPoint);
         updateCoordinatesLabel(dragPoint);
     }
     
     protected void handleSelfTransitionDrag(SerializablePoint2D dragPoint) {
-        if (lastSelectedTransition != null) {
-            transitionDragPoints.put(lastSelectedTransition, dragPoint);
+        SerializablePoint2D statePosition = lastSelectedTransition == null ? null
+            : controller.getAutomata().getStates().get(lastSelectedTransition.getSourceState());
+        if (statePosition != null) {
+            transitionDragPoints.put(lastSelectedTransition, new SerializablePoint2D(
+                dragPoint.getX() - statePosition.getX(),
+                dragPoint.getY() - statePosition.getY()
+            ));
+        }
+    }
+    
+    /**
+     * Get where the self-transition was dragged to, from where its state is now.
+     * @param transition
+     * @return SerializablePoint2D, or null if the loop has not been dragged
+     */
+    protected SerializablePoint2D getSelfTransitionDragPoint(Transition transition) {
+        SerializablePoint2D offset = transitionDragPoints.get(transition);
+        SerializablePoint2D statePosition = controller.getAutomata().getStates().get(transition.getSourceState());
+        if (offset == null || statePosition == null) {
+            return null;
         }
+        return new SerializablePoint2D(statePosition.getX() + offset.getX(), statePosition.getY() + offset.getY());
     }
     
     protected void handleMousePress(SerializablePoint2D pressPoint, MouseEvent e) {
         Map<State, SerializablePoint2D> states = controller.getAutomata().getStates();
         
-        for (Map.Entry<State, SerializablePoint2D> entry : states.entrySet()) {
-            State state = entry.getKey();
-            SerializablePoint2D position = entry.getValue();
+        for (StateUI stateUI : stateIndex.query(pressPoint.getX(), pressPoint.getY())) {
+            State state = stateUI.getState();
+            SerializablePoint2D position = states.get(state);
             int radius = StateUI.getRadius();
+            if (position == null) {
+                continue;
+            }
             
             double distance = pressPoint.distance(position);
             
@@ -347,6 +637,7 @@ public class MainCanvas<ControllerT extends AutomataController> extends StackPan
                 else {
                     interactingState = state;
                     lastMousePosition = pressPoint;
+                    dragStartPosition = position;
                     isDraggingState = true;
                 }
                 break;
@@ -359,7 +650,7 @@ public class MainCanvas<ControllerT extends AutomataController> extends StackPan
     }
 
     protected StateUI chooseStateUI(SerializablePoint2D pressPoint) {
-        for (StateUI stateUI : stateUIs) {
+        for (StateUI stateUI : stateIndex.query(pressPoint.getX(), pressPoint.getY())) {
             if (stateUI.isMouseOverState(pressPoint)) {
                 return stateUI;
             }
@@ -368,11 +659,21 @@ public class MainCanvas<ControllerT extends AutomataController> extends StackPan
     }
     
     protected void handleMouseRelease() {
+        boolean wasDraggingState = isDraggingState && interactingState != null;
+        if (wasDraggingState) {
+            SerializablePoint2D position = controller.getAutomata().getStates().get(interactingState);
+            if (dragStartPosition != null && position != null && position != dragStartPosition) {
+                controller.moveState(interactingState, dragStartPosition, position);
+            }
+        }
         isDraggingState = false;
+        dragStartPosition = null;
         interactingState = null;
         lastMousePosition = null;
         lastSelectedTransition = null;
-        MainCanvas.drawAllCanvases();
+        if (!wasDraggingState) {
+            MainCanvas.drawAllCanvases(); // A dragged state has been repainted while it moved
+        }
     }
     
     public Label getCoordinatesLabel() {
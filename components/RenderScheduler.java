@@ -0,0 +1,167 @@
+package components;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import model.State;
+
+/*
+ * RenderScheduler: Draws the canvases that were marked dirty on the next frame, each at most once per frame.
+ * Canvases that are not shown, like those on other tabs, keep their requests until they are shown again.
+ * Canvases are held weakly, so a canvas of a replaced view is collected and never drawn again.
+ */
+public final class RenderScheduler {
+    private static final Map<MainCanvas<?>, Boolean> canvases = new WeakHashMap<>();
+    private static final Map<MainCanvas<?>, Request> requests = new WeakHashMap<>();
+    private static AnimationTimer timer = null;
+    private static boolean isRunning = false;
+
+    /*
+     * Request: What a canvas needs drawn on the next frame.
+     */
+    private static final class Request {
+        private boolean isDrawNeeded = false;
+        private boolean isOverlayNeeded = false;
+        private final Set<State> movedStates = new LinkedHashSet<>();
+    }
+
+    private RenderScheduler() {
+    }
+
+    /**
+     * Adds a canvas to the ones drawn by requestDrawAll.
+     * @param canvas
+     */
+    public static void register(MainCanvas<?> canvas) {
+        canvases.put(canvas, Boolean.TRUE);
+    }
+
+    /**
+     * Gets the registered canvases that have not been collected.
+     * @return List<MainCanvas<?>>
+     */
+    public static List<MainCanvas<?>> getCanvases() {
+        return new ArrayList<>(canvases.keySet());
+    }
+
+    /**
+     * Draws the whole canvas on the next frame.
+     * @param canvas
+     */
+    public static void requestDraw(MainCanvas<?> canvas) {
+        request(canvas).isDrawNeeded = true;
+        start();
+    }
+
+    /**
+     * Draws every registered canvas on the next frame.
+     */
+    public static void requestDrawAll() {
+        for (MainCanvas<?> canvas : new ArrayList<>(canvases.keySet())) {
+            request(canvas).isDrawNeeded = true;
+        }
+        start();
+    }
+
+    /**
+     * Draws the overlay of the canvas on the next frame.
+     * @param canvas
+     */
+    public static void requestOverlay(MainCanvas<?> canvas) {
+        request(canvas).isOverlayNeeded = true;
+        start();
+    }
+
+    /**
+     * Repaints the neighbourhood of a state that moved on every registered canvas on the next frame.
+     * @param state
+     */
+    public static void requestRepaintAll(State state) {
+        for (MainCanvas<?> canvas : new ArrayList<>(canvases.keySet())) {
+            request(canvas).movedStates.add(state);
+        }
+        start();
+    }
+
+    /**
+     * Looks for requests of canvases that may have been shown since, e.g. after another tab was selected.
+     */
+    public static void wake() {
+        if (!requests.isEmpty()) {
+            start();
+        }
+    }
+
+    private static Request request(MainCanvas<?> canvas) {
+        return requests.computeIfAbsent(canvas, c -> new Request());
+    }
+
+    private static void start() {
+        if (isRunning) {
+            return;
+        }
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    drawRequests();
+                }
+            };
+        }
+        isRunning = true;
+        timer.start();
+    }
+
+    private static void stop() {
+        isRunning = false;
+        timer.stop();
+    }
+
+    // Draw the requests of the canvases that are shown, stopping once nothing shown is left to draw
+    private static void drawRequests() {
+        List<MainCanvas<?>> shown = new ArrayList<>();
+        for (MainCanvas<?> canvas : requests.keySet()) {
+            if (isShowing(canvas)) {
+                shown.add(canvas);
+            }
+        }
+        if (shown.isEmpty()) {
+            stop();
+            return;
+        }
+
+        for (MainCanvas<?> canvas : shown) {
+            Request request = requests.remove(canvas);
+            if (request.isDrawNeeded) {
+                canvas.drawCanvas();
+                continue;
+            }
+            for (State state : request.movedStates) {
+                canvas.repaintState(state);
+            }
+            if (request.isOverlayNeeded) {
+                canvas.drawOverlay();
+            }
+        }
+    }
+
+    private static boolean isShowing(Node node) {
+        Scene scene = node.getScene();
+        if (scene == null || scene.getWindow() == null || !scene.getWindow().isShowing()) {
+            return false;
+        }
+        for (Node current = node; current != null; current = current.getParent()) {
+            if (!current.isVisible()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,5 +1,7 @@
 package components;
 
+import javafx.geometry.Bounds;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.paint.Color;
 import javafx.scene.input.MouseButton;
@@ -32,7 +34,7 @@ public class SimulatorCanvas extends MainCanvas<SimulatorController> {
      * @param clickPoint
      */
     protected void handleStateSelect(SerializablePoint2D clickPoint) {
-        for (StateUI stateUI : stateUIs) {
+        for (StateUI stateUI : stateIndex.query(clickPoint.getX(), clickPoint.getY())) {
             State state = stateUI.getState();
             boolean isStatePossibleNextState = false;
             if (controller.getPossibleNextStates() != null && controller.getPossibleNextStates().contains(state)) {
@@ -53,11 +55,41 @@ public class SimulatorCanvas extends MainCanvas<SimulatorController> {
     }
     
     /**
-     * Sets the color of the state based on the current state of the simulator
+     * States are drawn plain on the graph layer, the simulator's colors are drawn on the overlay.
      * @param state
      */
     @Override
     protected Color getStateInnerColor(State state) {
+        return Color.LIGHTGRAY;
+    }
+    
+    /**
+     * Draws the states the simulator has colored over the plain ones, so a simulation step only redraws those.
+     * @param gc
+     * @return Bounds
+     */
+    @Override
+    protected Bounds drawOverlay(GraphicsContext gc) {
+        Bounds drawn = null;
+        for (StateUI stateUI : stateUIs.values()) {
+            Color color = getHighlightColor(stateUI.getState());
+            if (color.equals(Color.LIGHTGRAY)) {
+                continue;
+            }
+            stateUI.setStateInnerColor(color);
+            stateUI.draw(gc);
+            stateUI.setStateInnerColor(Color.LIGHTGRAY);
+            
+            drawn = union(drawn, stateUI.getBounds());
+        }
+        return drawn;
+    }
+    
+    /**
+     * Gets the color of the state based on the current state of the simulator
+     * @param state
+     */
+    private Color getHighlightColor(State state) {
         State selectedState = controller.getSelectedState();
         Stack<State> previousStates = controller.getPreviousStates();
         Set<State> possibleNextStates = controller.getPossibleNextStates();
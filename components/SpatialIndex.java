@@ -0,0 +1,166 @@
+package components;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+
+/*
+ * SpatialIndex: A uniform grid that finds the items near a point or in a region without looking at every item.
+ * An item is added with one or more boxes, e.g. the pieces of a transition's line, and is kept in every cell its
+ * boxes cover. Queries return the items with a box at the point or in the region, which the caller checks exactly.
+ */
+public class SpatialIndex<T> {
+    private final double cellSize;
+    private final Map<Long, Set<T>> cells = new HashMap<>();
+    private final Map<T, List<Bounds>> boxes = new HashMap<>();
+
+    // Constructor
+    public SpatialIndex(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds a box to the item, adding the item to the index if it is not in it yet.
+     * @param item
+     * @param box
+     */
+    public void add(T item, Bounds box) {
+        boxes.computeIfAbsent(item, i -> new ArrayList<>()).add(box);
+        for (int x = cell(box.getMinX()); x <= cell(box.getMaxX()); x++) {
+            for (int y = cell(box.getMinY()); y <= cell(box.getMaxY()); y++) {
+                cells.computeIfAbsent(key(x, y), k -> new LinkedHashSet<>()).add(item);
+            }
+        }
+    }
+
+    /**
+     * Adds a line segment to the item. Long segments are split into pieces of about one cell, so a diagonal line
+     * only covers the cells along it rather than every cell of its bounding box.
+     * @param item
+     * @param x1
+     * @param y1
+     * @param x2
+     * @param y2
+     * @param margin How far from the segment a point still counts as on it
+     */
+    public void addSegment(T item, double x1, double y1, double x2, double y2, double margin) {
+        double length = Math.hypot(x2 - x1, y2 - y1);
+        int pieces = Math.max(1, (int) Math.ceil(length / cellSize));
+        for (int i = 0; i < pieces; i++) {
+            double startX = x1 + (x2 - x1) * i / pieces;
+            double startY = y1 + (y2 - y1) * i / pieces;
+            double endX = x1 + (x2 - x1) * (i + 1) / pieces;
+            double endY = y1 + (y2 - y1) * (i + 1) / pieces;
+            add(item, new BoundingBox(Math.min(startX, endX) - margin, Math.min(startY, endY) - margin,
+                Math.abs(endX - startX) + 2 * margin, Math.abs(endY - startY) + 2 * margin));
+        }
+    }
+
+    /**
+     * Removes the item and all of its boxes.
+     * @param item
+     */
+    public void remove(T item) {
+        List<Bounds> itemBoxes = boxes.remove(item);
+        if (itemBoxes == null) {
+            return;
+        }
+        for (Bounds box : itemBoxes) {
+            for (int x = cell(box.getMinX()); x <= cell(box.getMaxX()); x++) {
+                for (int y = cell(box.getMinY()); y <= cell(box.getMaxY()); y++) {
+                    Set<T> items = cells.get(key(x, y));
+                    if (items != null) {
+                        items.remove(item);
+                        if (items.isEmpty()) {
+                            cells.remove(key(x, y));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+        boxes.clear();
+    }
+
+    public boolean contains(T item) {
+        return boxes.containsKey(item);
+    }
+
+    public int size() {
+        return boxes.size();
+    }
+
+    /**
+     * Gets the items with a box containing the point.
+     * @param x
+     * @param y
+     * @return Set<T>
+     */
+    public Set<T> query(double x, double y) {
+        Set<T> found = new LinkedHashSet<>();
+        Set<T> items = cells.get(key(cell(x), cell(y)));
+        if (items == null) {
+            return found;
+        }
+        for (T item : items) {
+            for (Bounds box : boxes.get(item)) {
+                if (box.contains(x, y)) {
+                    found.add(item);
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the items with a box intersecting the region.
+     * @param region
+     * @return Set<T>
+     */
+    public Set<T> query(Bounds region) {
+        Set<T> found = new LinkedHashSet<>();
+        Set<T> checked = new HashSet<>();
+        for (int x = cell(region.getMinX()); x <= cell(region.getMaxX()); x++) {
+            for (int y = cell(region.getMinY()); y <= cell(region.getMaxY()); y++) {
+                Set<T> items = cells.get(key(x, y));
+                if (items == null) {
+                    continue;
+                }
+                for (T item : items) {
+                    if (!checked.add(item)) {
+                        continue;
+                    }
+                    for (Bounds box : boxes.get(item)) {
+                        if (box.intersects(region)) {
+                            found.add(item);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
@@ -3,6 +3,7 @@ package components;
 import components.serialization.SerializablePoint2D;
 import controller.AutomataController;
 import controller.SubsetConstructionController;
+import controller.commands.ToggleStateCommand;
 
 import java.util.Optional;
 import javafx.scene.control.TextInputDialog;
@@ -10,7 +11,6 @@ import javafx.scene.Cursor;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.paint.Color;
-import model.Automata;
 import model.State;
 import view.SubsetConstructionView;
 
@@ -18,6 +18,9 @@ import view.SubsetConstructionView;
  * SubsetConstructionCanvas: This class is responsible for the canvases for the subset construction view.
  */
 public class SubsetConstructionCanvas<ControllerT extends AutomataController> extends MainCanvas<SubsetConstructionController> {
+    private static final Color DISCARDED_COLOR = Color.rgb(0, 0, 0, 0.5);
+    private static final Color OUTLINE_COLOR = Color.BLACK.darker();
+    
     private boolean isChoosingStateTransition = false;
     private State startState = null;
 
@@ -45,16 +48,16 @@ public class SubsetConstructionCanvas<ControllerT extends AutomataController> ex
     @Override
     protected Color getStateOutlineColor(State state) {
         if (state.isDiscarded()) {
-            return Color.rgb(0, 0, 0, 0.5);
+            return DISCARDED_COLOR;
         } else {
-            return Color.BLACK.darker();
+            return OUTLINE_COLOR;
         }
     }
     
     @Override
     protected Color getStateTextColor(State state) {
         if (state.isDiscarded()) {
-            return Color.rgb(0, 0, 0, 0.5);
+            return DISCARDED_COLOR;
         } else {
             return Color.BLACK;
         }
@@ -71,28 +74,26 @@ public class SubsetConstructionCanvas<ControllerT extends AutomataController> ex
         MenuItem discardStateItem = new MenuItem(state.isDiscarded() ? "Restore State" : "Discard State");
         
         makeAcceptingItem.setOnAction(e -> {
-            state.toggleAcceptingState();
+            controller.execute(new ToggleStateCommand(controller.getAutomata(), state, ToggleStateCommand.Flag.ACCEPTING));
             controller.checkShouldBeAcceptingState(state);
             controller.checkIsConversionCorrect();
             drawAllCanvases();
-            Automata automata = controller.getAutomata();
-            SubsetConstructionView.updateCorrespondingAutomata(automata);
+            SubsetConstructionView.automataEdited();
         });
         
         makeInitialItem.setOnAction(e -> {
-            state.toggleStartingState();
+            controller.execute(new ToggleStateCommand(controller.getAutomata(), state, ToggleStateCommand.Flag.STARTING));
             controller.checkShouldBeStartingState(state);
             controller.checkIsConversionCorrect();
             drawAllCanvases();
-            Automata automata = controller.getAutomata();
-            SubsetConstructionView.updateCorrespondingAutomata(automata);
+            SubsetConstructionView.automataEdited();
         });
         
         addTransitionItem.setOnAction(e -> {
             isChoosingStateTransition = true;
             startState = state;
             controller.showPopupMessage("Choose the target state for the transition.");
-            drawCanvas();
+            requestDraw();
         });
 
         discardStateItem.setOnAction(e -> {
@@ -100,9 +101,7 @@ public class SubsetConstructionCanvas<ControllerT extends AutomataController> ex
             controller.checkShouldStateBeDiscarded(state);
             controller.checkIsConversionCorrect();
             MainCanvas.drawAllCanvases();
-
-            Automata automata = controller.getAutomata();
-            SubsetConstructionView.updateCorrespondingAutomata(automata);
+            SubsetConstructionView.automataEdited();
         });
         
         showContextMenu(pressPoint, makeAcceptingItem, makeInitialItem, addTransitionItem, discardStateItem);
@@ -156,7 +155,7 @@ public class SubsetConstructionCanvas<ControllerT extends AutomataController> ex
             } else if (isMouseOverTransition && lastSelectedTransition != null && getTransitionUIByTransition(lastSelectedTransition).isSelfTransition()) {
                 handleSelfTransitionDrag(new SerializablePoint2D(e.getX(), e.getY()));
                 canvas.setCursor(Cursor.MOVE);
-                MainCanvas.drawAllCanvases();
+                MainCanvas.repaintAllCanvases(lastSelectedTransition.getSourceState());
             }
             else {
                 canvas.setCursor(Cursor.DEFAULT);
@@ -167,6 +166,9 @@ public class SubsetConstructionCanvas<ControllerT extends AutomataController> ex
             SerializablePoint2D point = new SerializablePoint2D(e.getX(), e.getY());
             if (isMouseOverCanvas(point)) {
                 updateCoordinatesLabel(point);
+                if (isChoosingStateTransition) {
+                    showTransitionPreview(startState, point);
+                }
                 
                 isMouseOverState = isMouseOverState(point);
                 isMouseOverTransition = isMouseOverTransition(point);
@@ -216,6 +218,7 @@ public class SubsetConstructionCanvas<ControllerT extends AutomataController> ex
                         
                         isChoosingStateTransition = false;
                         startState = null;
+                        hideTransitionPreview();
                         MainCanvas.drawAllCanvases();
                     }
                 } 
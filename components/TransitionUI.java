@@ -5,28 +5,57 @@ import java.util.List;
 
 
 import components.serialization.SerializablePoint2D;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
-import javafx.scene.text.Text;
 import java.awt.geom.Line2D;
 
 import model.*;
 
+/*
+ * TransitionUI class is responsible for drawing a transition on the canvas.
+ * A canvas keeps the TransitionUI of a transition between draws. Its line, arrow head and label are only
+ * worked out again when one of its states moves, its symbol changes or the transitions beside it change.
+ */
 public class TransitionUI {
     private static final int ARROW_SIZE = 15;
+    private static final double ARROW_ANGLE = Math.toRadians(20);
     private static final int TEXT_GAP = 1;
+    private static final int HIT_DISTANCE = 5;
+    private static final int CURVE_SEGMENTS = 16;
+    private static final int LINE_PADDING = 3; // Half the line width and its anti-aliasing, and the chords of the flattened curve
     private static int CIRCLE_RADIUS;
-    
+
     private Transition transition;
     private StateUI sourceStateUI;
     private StateUI targetStateUI;
-    
+    private int generation;
+
     private boolean isSelfTransition;
-    private List<SerializablePoint2D> transitionPoints;
-    private SerializablePoint2D dragPoint;
-    
+    private SerializablePoint2D dragPoint; // Where the user dragged a self-transition to, or null for its default place
+
+    // Transitions between the same states, set by the canvas when the automaton changes
+    private int parallelIndex = 1; // From 1, in the order the transitions were added
+    private int parallelCount = 1;
+    private boolean hasReverse = false;
+
+    // What the geometry was worked out for
+    private boolean isGeometryValid = false;
+    private boolean isGeometryChanged = true;
+    private double sourceX;
+    private double sourceY;
+    private double targetX;
+    private double targetY;
+    private String measuredSymbol;
+
+    // The geometry
+    private List<SerializablePoint2D> transitionPoints; // The line of the transition, self-transitions as a flattened curve
+    private SerializablePoint2D symbolPoint;
+    private SerializablePoint2D loopPoint; // The point a self-transition is drawn towards
+    private Bounds bounds;
+    private Bounds labelBounds;
+
     private double startX;
     private double startY;
     private double endX;
@@ -36,319 +65,414 @@ public class TransitionUI {
     private double controlY1;
     private double controlX2;
     private double controlY2;
-    
+
+    private double symbolWidth;
+    private double symbolHeight;
+    private final double[] arrowXs = new double[3];
+    private final double[] arrowYs = new double[3];
+
     public TransitionUI(Transition transition, StateUI sourceStateUI, StateUI targetStateUI) {
         this.transition = transition;
         this.sourceStateUI = sourceStateUI;
         this.targetStateUI = targetStateUI;
-        
+
         CIRCLE_RADIUS = StateUI.getRadius();
         transitionPoints = new ArrayList<>();
         isSelfTransition = sourceStateUI.getState().equals(targetStateUI.getState());
-        
-        startX = sourceStateUI.getX();
-        startY = sourceStateUI.getY() - CIRCLE_RADIUS;
-        
-        endX = startX;
-        endY = startY - ARROW_SIZE * 2;
-        
-        // Set control points for bezier curve function
-        controlX1 = startX + CIRCLE_RADIUS;
-        controlY1 = startY - CIRCLE_RADIUS * 1.5;
-        controlX2 = startX - CIRCLE_RADIUS;
-        controlY2 = startY - CIRCLE_RADIUS * 1.5;
-        
+
         dragPoint = null;
     }
-    
+
     public void draw(GraphicsContext gc) {
+        updateGeometry();
+
         gc.setStroke(Color.BLACK);
-        
-        sourceStateUI.incrementDrawnTransitionCount(sourceStateUI, targetStateUI);
-        
+        gc.setLineWidth(1.5); // transition line width
+
+        if (isSelfTransition) {
+            gc.beginPath();
+            gc.moveTo(startX, startY);
+            gc.bezierCurveTo(controlX1, controlY1, controlX2, controlY2, startX, startY);
+            gc.stroke();
+        }
+        else {
+            gc.strokeLine(startX, startY, endX, endY);
+        }
+
+        gc.setLineWidth(1); // Reset line width
+
+        drawTransitionText(gc);
+
+        gc.setFill(Color.BLACK);
+        gc.fillPolygon(arrowXs, arrowYs, 3);
+    }
+
+    private void drawTransitionText(GraphicsContext gc) {
+        gc.setFont(LabelMetrics.LABEL_FONT);
+
+        gc.setFill(Color.WHITE);
+        gc.fillRect(labelBounds.getMinX(), labelBounds.getMinY(), labelBounds.getWidth(), labelBounds.getHeight());
+
+        gc.setFill(Color.BLACK);
+        gc.fillText(measuredSymbol, symbolPoint.getX() - symbolWidth / 2, symbolPoint.getY() + symbolHeight / 4);
+    }
+
+    // Work the geometry out again if anything it depends on changed since it was last worked out
+    private void updateGeometry() {
+        String symbol = transition.getTransitionSymbol();
+        if (isGeometryValid && sourceX == sourceStateUI.getX() && sourceY == sourceStateUI.getY()
+            && targetX == targetStateUI.getX() && targetY == targetStateUI.getY() && symbol.equals(measuredSymbol)) {
+            return;
+        }
+        sourceX = sourceStateUI.getX();
+        sourceY = sourceStateUI.getY();
+        targetX = targetStateUI.getX();
+        targetY = targetStateUI.getY();
+        if (!symbol.equals(measuredSymbol)) {
+            measuredSymbol = symbol;
+            Bounds textBounds = LabelMetrics.measure(LabelMetrics.LABEL_FONT, symbol);
+            symbolWidth = textBounds.getWidth();
+            symbolHeight = textBounds.getHeight();
+        }
+
+        transitionPoints.clear();
         if (isSelfTransition) {
-            drawSelfTransition(gc);
-        } 
+            updateSelfTransitionGeometry();
+        }
         else {
-            drawNormalTransition(gc);
+            updateNormalTransitionGeometry();
         }
+        updateBounds();
+
+        isGeometryValid = true;
+        isGeometryChanged = true;
     }
-    
-    private void drawSelfTransition(GraphicsContext gc) {
+
+    private void updateSelfTransitionGeometry() {
         if (dragPoint != null) {
-            setSelfTransitionPosition(dragPoint);
+            loopPoint = dragPoint;
         } else {
-            int drawnCount = sourceStateUI.getDrawnTransitionCount(sourceStateUI, sourceStateUI);
-            
-            switch (drawnCount) {
+            double topY = sourceY - CIRCLE_RADIUS;
+            switch (parallelIndex) {
                 case 2:
-                    setSelfTransitionPosition(new SerializablePoint2D(startX, startY + CIRCLE_RADIUS * 4));
+                    loopPoint = new SerializablePoint2D(sourceX, topY + CIRCLE_RADIUS * 4);
                     break;
                 case 1:
-                    setSelfTransitionPosition(new SerializablePoint2D(startX, startY - CIRCLE_RADIUS * 2));
+                    loopPoint = new SerializablePoint2D(sourceX, topY - CIRCLE_RADIUS * 2);
                     break;
                 default:
-                    setSelfTransitionPosition(new SerializablePoint2D(startX + CIRCLE_RADIUS * 3, sourceStateUI.getY()));
+                    loopPoint = new SerializablePoint2D(sourceX + CIRCLE_RADIUS * 3, sourceY);
                     break;
             }
         }
-        
-        transitionPoints.add(new SerializablePoint2D(startX, startY));
-        transitionPoints.add(new SerializablePoint2D(endX, endY));
-        
-        gc.setLineWidth(1.5); // transition line width
-        
-        gc.beginPath();
-        gc.moveTo(startX, startY);
-        gc.bezierCurveTo(controlX1, controlY1, controlX2, controlY2, startX, startY);
-        gc.stroke();
-        
-        gc.setLineWidth(1); // Reset line width
-        
-        // Calculate the direction of the curve at the end point
-        double dx = startX - controlX2;
-        double dy = startY - controlY2;
+
+        double dx = loopPoint.getX() - sourceX;
+        double dy = loopPoint.getY() - sourceY;
+
+        if (Math.abs(dx) >= CIRCLE_RADIUS && Math.abs(dy) >= CIRCLE_RADIUS) {
+            double angle = Math.atan2(dy, dx);
+            dx = CIRCLE_RADIUS * Math.cos(angle);
+            dy = CIRCLE_RADIUS * Math.sin(angle);
+        }
+        else if (Math.abs(dx) >= CIRCLE_RADIUS) {
+            dx = dx > 0 ? CIRCLE_RADIUS : -CIRCLE_RADIUS;
+        }
+        if (Math.abs(dy) >= CIRCLE_RADIUS) {
+            dy = dy > 0 ? CIRCLE_RADIUS : -CIRCLE_RADIUS;
+        }
+
+        // The curve starts and ends on the circle, facing the loop point
+        startX = sourceX + dx;
+        startY = sourceY + dy;
+        endX = startX;
+        endY = startY;
+
         double angle = Math.atan2(dy, dx);
-        
-        // Calculate the position of the arrow head
-        double arrowX = startX - ARROW_SIZE * Math.cos(angle);
-        double arrowY = startY - ARROW_SIZE * Math.sin(angle);
-        
-        double symbolStartX = controlX1;
-        double symbolStartY = controlY1 - CIRCLE_RADIUS * 0.01;
-        double symbolEndX = controlX2;
-        double symbolEndY = controlY2 - CIRCLE_RADIUS * 0.01;
-        
-        drawTransitionText(gc, symbolStartX, symbolStartY, symbolEndX, symbolEndY, transition.getTransitionSymbol());
-        drawArrowHead(gc, arrowX, arrowY, startX, startY);
+        double controlDistance = CIRCLE_RADIUS * 1.5;
+
+        // Control points for the bezier curve, to either side of the loop point
+        controlX1 = loopPoint.getX() + controlDistance * Math.cos(angle + Math.PI / 2);
+        controlY1 = loopPoint.getY() + controlDistance * Math.sin(angle + Math.PI / 2);
+        controlX2 = loopPoint.getX() + controlDistance * Math.cos(angle - Math.PI / 2);
+        controlY2 = loopPoint.getY() + controlDistance * Math.sin(angle - Math.PI / 2);
+
+        for (int i = 0; i <= CURVE_SEGMENTS; i++) {
+            double t = (double) i / CURVE_SEGMENTS;
+            double u = 1 - t;
+            // The curve starts and ends at the same point, so its end points share a weight
+            double x = (u * u * u + t * t * t) * startX + 3 * u * u * t * controlX1 + 3 * u * t * t * controlX2;
+            double y = (u * u * u + t * t * t) * startY + 3 * u * u * t * controlY1 + 3 * u * t * t * controlY2;
+            transitionPoints.add(new SerializablePoint2D(x, y));
+        }
+
+        // The arrow head follows the direction of the curve at its end point
+        double angleAtEnd = Math.atan2(startY - controlY2, startX - controlX2);
+        setArrowHead(startX - ARROW_SIZE * Math.cos(angleAtEnd), startY - ARROW_SIZE * Math.sin(angleAtEnd), startX, startY);
+
+        setSymbolPoint(controlX1, controlY1 - CIRCLE_RADIUS * 0.01, controlX2, controlY2 - CIRCLE_RADIUS * 0.01);
     }
-    
-    private void drawNormalTransition(GraphicsContext gc) {
-        double dx = targetStateUI.getX() - sourceStateUI.getX();
-        double dy = targetStateUI.getY() - sourceStateUI.getY();
-        
+
+    private void updateNormalTransitionGeometry() {
+        double dx = targetX - sourceX;
+        double dy = targetY - sourceY;
+
         double magnitude = Math.sqrt(dx * dx + dy * dy); // root(x^2 + y^2) = magnitude of the line
-        
+
         // Normalize the change in x and y to get the unit vector
         double nx = dx / magnitude;
         double ny = dy / magnitude;
-        
-        boolean hasSingleTransitionBetween = hasSingleTransitionBetweenStates(sourceStateUI.getState(), targetStateUI.getState());
-        boolean hasSingleTransitionFromStateToTarget = sourceStateUI.getTransitionCount(sourceStateUI.getState(), targetStateUI.getState()) <= 1;
-        
+
+        boolean hasSingleTransitionFromStateToTarget = parallelCount <= 1;
+
         // Calculate the intersection points with the circle
-        double startX = sourceStateUI.getX() + nx * CIRCLE_RADIUS;
-        double startY = sourceStateUI.getY() + ny * CIRCLE_RADIUS;
-        double endX = targetStateUI.getX() - nx * CIRCLE_RADIUS;
-        double endY = targetStateUI.getY() - ny * CIRCLE_RADIUS;
-        
-        if (!hasSingleTransitionBetween && hasSingleTransitionFromStateToTarget) {
-            double distance = CIRCLE_RADIUS * 0.3;
+        startX = sourceX + nx * CIRCLE_RADIUS;
+        startY = sourceY + ny * CIRCLE_RADIUS;
+        endX = targetX - nx * CIRCLE_RADIUS;
+        endY = targetY - ny * CIRCLE_RADIUS;
+
+        double distance = 0;
+        if (hasReverse) {
             // Moves transition to the side of the circle
-            startX += ny * distance;
-            startY -= nx * distance;
-            endX   += ny * distance;
-            endY   -= nx * distance;
-        } 
-        else if (!hasSingleTransitionBetween && !hasSingleTransitionFromStateToTarget) {
-            int drawnCount = sourceStateUI.getDrawnTransitionCount(sourceStateUI, targetStateUI);
-            double distance = CIRCLE_RADIUS * 0.3;
-            
-            startX += ny * distance;
-            startY -= nx * distance;
-            endX   += ny * distance;
-            endY   -= nx * distance;
-            
-            distance = determineDistanceForCurrentTransition(drawnCount, 0.3);
-            startX += ny * distance;
-            startY -= nx * distance;
-            endX   += ny * distance;
-            endY   -= nx * distance;
+            distance = CIRCLE_RADIUS * 0.3;
+            if (!hasSingleTransitionFromStateToTarget) {
+                distance += determineDistanceForCurrentTransition(0.3);
+            }
         }
         else if (!hasSingleTransitionFromStateToTarget) {
-            int drawnCount = sourceStateUI.getDrawnTransitionCount(sourceStateUI, targetStateUI);
-            double distance = determineDistanceForCurrentTransition(drawnCount, 0.6);
-            
-            startX += ny * distance;
-            startY -= nx * distance;
-            endX   += ny * distance;
-            endY   -= nx * distance;
+            distance = determineDistanceForCurrentTransition(0.6);
         }
-        
-        gc.setLineWidth(1.5);
-        gc.strokeLine(startX, startY, endX, endY);
-        gc.setLineWidth(1);
-        
+        startX += ny * distance;
+        startY -= nx * distance;
+        endX   += ny * distance;
+        endY   -= nx * distance;
+
         transitionPoints.add(new SerializablePoint2D(startX, startY));
         transitionPoints.add(new SerializablePoint2D(endX, endY));
-        
-        drawTransitionText(gc, startX, startY, endX, endY, transition.getTransitionSymbol());
-        drawArrowHead(gc, startX, startY, endX, endY);
-    }    
+
+        setArrowHead(startX, startY, endX, endY);
+        setSymbolPoint(startX, startY, endX, endY);
+    }
 
     /**
      * Determines the distance gap between transitions for the current transition when there are multiple transitions between two states
-     * @param drawnCount
      * @param availableSpaceFactor
      * @return
      */
-    private double determineDistanceForCurrentTransition(int drawnCount, double availableSpaceFactor) {
-        int totalTransitions = sourceStateUI.getTransitionCount(sourceStateUI.getState(), targetStateUI.getState());
-        
+    private double determineDistanceForCurrentTransition(double availableSpaceFactor) {
         double maxDistance = CIRCLE_RADIUS * availableSpaceFactor;
-        double spaceBetweenTransitions = maxDistance / (totalTransitions - 1);
-        double distance = spaceBetweenTransitions * drawnCount - maxDistance;
-        
-        if (totalTransitions == 2) {
+        double spaceBetweenTransitions = maxDistance / (parallelCount - 1);
+        double distance = spaceBetweenTransitions * parallelIndex - maxDistance;
+
+        if (parallelCount == 2) {
             distance = CIRCLE_RADIUS * availableSpaceFactor/2;
         }
-        
-        if(drawnCount % 2 == 0) {
+
+        if(parallelIndex % 2 == 0) {
             distance *= -1;
         }
-        
+
         return distance;
     }
-    
-    private boolean hasSingleTransitionBetweenStates(State sourceState, State targetState) {
-        // check if there is a transition from the target state to the source state
-        for (Transition sourceStateTransition : sourceState.getTransitions()) {
-            for (Transition targetStateTransition : targetState.getTransitions()) {
-                if (targetStateTransition.getTargetState().getName().equals(sourceState.getName())) {
-                    return false;
-                } 
-            }
+
+    // The arrow head points along the line from the start to the end, with its tip at the end
+    private void setArrowHead(double startX, double startY, double endX, double endY) {
+        double dx = endX - startX;
+        double dy = endY - startY;
+
+        double magnitude = Math.sqrt(dx * dx + dy * dy);
+
+        double nx = dx / magnitude;
+        double ny = dy / magnitude;
+
+        arrowXs[0] = endX;
+        arrowYs[0] = endY;
+        arrowXs[1] = endX - ARROW_SIZE * (nx * Math.cos(ARROW_ANGLE) - ny * Math.sin(ARROW_ANGLE));
+        arrowYs[1] = endY - ARROW_SIZE * (ny * Math.cos(ARROW_ANGLE) + nx * Math.sin(ARROW_ANGLE));
+        arrowXs[2] = endX - ARROW_SIZE * (nx * Math.cos(-ARROW_ANGLE) - ny * Math.sin(-ARROW_ANGLE));
+        arrowYs[2] = endY - ARROW_SIZE * (ny * Math.cos(-ARROW_ANGLE) + nx * Math.sin(-ARROW_ANGLE));
+    }
+
+    // The symbol is drawn halfway between the points, on a white box
+    private void setSymbolPoint(double startX, double startY, double endX, double endY) {
+        double symbolX = (startX + endX) / 2;
+        double symbolY = (startY + endY) / 2;
+        symbolPoint = new SerializablePoint2D(symbolX, symbolY);
+
+        double rectangleWidth = symbolWidth + TEXT_GAP;
+        double rectangleHeight = symbolHeight + TEXT_GAP;
+        labelBounds = new BoundingBox(symbolX - rectangleWidth / 2, symbolY - rectangleHeight / 2, rectangleWidth, rectangleHeight);
+    }
+
+    private void updateBounds() {
+        double minX = labelBounds.getMinX();
+        double minY = labelBounds.getMinY();
+        double maxX = labelBounds.getMaxX();
+        double maxY = labelBounds.getMaxY();
+        for (SerializablePoint2D point : transitionPoints) {
+            minX = Math.min(minX, point.getX() - LINE_PADDING);
+            minY = Math.min(minY, point.getY() - LINE_PADDING);
+            maxX = Math.max(maxX, point.getX() + LINE_PADDING);
+            maxY = Math.max(maxY, point.getY() + LINE_PADDING);
+        }
+        for (int i = 0; i < 3; i++) {
+            minX = Math.min(minX, arrowXs[i] - 1);
+            minY = Math.min(minY, arrowYs[i] - 1);
+            maxX = Math.max(maxX, arrowXs[i] + 1);
+            maxY = Math.max(maxY, arrowYs[i] + 1);
         }
-        
-        return true;
+        bounds = new BoundingBox(minX, minY, maxX - minX, maxY - minY);
     }
-    
+
     /**
      * Checks if the mouse is over the transition
      * @param mousePoint
      * @return
      */
     public boolean isMouseOverTransition(SerializablePoint2D mousePoint) {
-        int distanceThreshold = 5;
-        
+        updateGeometry();
+        int distanceThreshold = HIT_DISTANCE;
+
         for (int i = 0; i < transitionPoints.size() - 1; i++) {
             SerializablePoint2D p1 = transitionPoints.get(i);
             SerializablePoint2D p2 = transitionPoints.get(i + 1);
-            
+
             double distance = Line2D.ptSegDist(p1.getX(), p1.getY(), p2.getX(), p2.getY(), mousePoint.getX(), mousePoint.getY());
-            
+
             boolean isMouseOutsideState = !sourceStateUI.isMouseOverState(mousePoint) && !targetStateUI.isMouseOverState(mousePoint);
             boolean isOnTransitionLine = distance <= distanceThreshold;
-            
+
             if (isMouseOutsideState && isOnTransitionLine) {
                 return true;
             }
         }
-        
-        SerializablePoint2D symbolPoint = transitionPoints.get(transitionPoints.size() - 1);
-        double symbolDistance = mousePoint.distance(symbolPoint);
-        if (symbolDistance <= distanceThreshold) {
+
+        if (symbolPoint != null && mousePoint.distance(symbolPoint) <= distanceThreshold) {
             return true;
         }
-        
+
         return false;
     }
-    
-    private void drawTransitionText(GraphicsContext gc, double startX, double startY, double endX, double endY, String text) {
-        double symbolX = (startX + endX) / 2;
-        double symbolY = (startY + endY) / 2;
-        
-        transitionPoints.add(new SerializablePoint2D(symbolX, symbolY));
-        
-        Font font = Font.font(gc.getFont().getFamily(), FontWeight.BOLD, 12);
-        gc.setFont(font);
-        
-        Text textNode = new Text(text);
-        textNode.setFont(gc.getFont());
-        
-        double textWidth = textNode.getLayoutBounds().getWidth();
-        double textHeight = textNode.getLayoutBounds().getHeight();
-        
-        double rectangleWidth = textWidth + TEXT_GAP;
-        double rectangleHeight = textHeight + TEXT_GAP;
-        
-        gc.setFill(Color.WHITE);
-        gc.fillRect(symbolX - rectangleWidth / 2, symbolY - rectangleHeight / 2, rectangleWidth, rectangleHeight);
-        
-        gc.setFill(Color.BLACK);
-        gc.fillText(text, symbolX - textWidth / 2, symbolY + textHeight / 4);
+
+    /**
+     * Sets where the transition is among the transitions between its states, which spreads them apart.
+     * @param index The place of the transition among those from its source to its target, from 1
+     * @param count The number of transitions from its source to its target
+     * @param hasReverse Whether there is a transition from its target back to its source
+     */
+    public void setParallelTransitions(int index, int count, boolean hasReverse) {
+        if (index != parallelIndex || count != parallelCount || hasReverse != this.hasReverse) {
+            parallelIndex = index;
+            parallelCount = count;
+            this.hasReverse = hasReverse;
+            isGeometryValid = false;
+        }
     }
-    
-    private void drawArrowHead(GraphicsContext gc, double startX, double startY, double endX, double endY) {
-        double dx = endX - startX;
-        double dy = endY - startY;
-        
-        double magnitude = Math.sqrt(dx * dx + dy * dy);
-        
-        double nx = dx / magnitude;
-        double ny = dy / magnitude;
-        
-        double arrowAngle = Math.toRadians(20);
-        double x1 = endX - ARROW_SIZE * (nx * Math.cos(arrowAngle) - ny * Math.sin(arrowAngle));
-        double y1 = endY - ARROW_SIZE * (ny * Math.cos(arrowAngle) + nx * Math.sin(arrowAngle));
-        double x2 = endX - ARROW_SIZE * (nx * Math.cos(-arrowAngle) - ny * Math.sin(-arrowAngle));
-        double y2 = endY - ARROW_SIZE * (ny * Math.cos(-arrowAngle) + nx * Math.sin(-arrowAngle));
-        
-        gc.setFill(Color.BLACK);
-        gc.fillPolygon(new double[]{endX, x1, x2}, new double[]{endY, y1, y2}, 3);
+
+    public int getParallelCount() {
+        return parallelCount;
     }
-    
+
+    /**
+     * Get the region the transition covers when drawn, including its arrow head and label.
+     * @return Bounds
+     */
+    public Bounds getBounds() {
+        updateGeometry();
+        return bounds;
+    }
+
+    /**
+     * Get the white box drawn behind the symbol.
+     * @return Bounds
+     */
+    public Bounds getLabelBounds() {
+        updateGeometry();
+        return labelBounds;
+    }
+
+    /**
+     * Check if the geometry changed since the last call, e.g. to know when to index the transition again.
+     * @return boolean
+     */
+    public boolean takeGeometryChange() {
+        updateGeometry();
+        boolean isChanged = isGeometryChanged;
+        isGeometryChanged = false;
+        return isChanged;
+    }
+
+    /**
+     * Get the points of the line of the transition, which are what isMouseOverTransition checks against.
+     * @return List<SerializablePoint2D>
+     */
+    public List<SerializablePoint2D> getTransitionPoints() {
+        updateGeometry();
+        return transitionPoints;
+    }
+
+    public SerializablePoint2D getSymbolPoint() {
+        updateGeometry();
+        return symbolPoint;
+    }
+
+    public static int getHitDistance() {
+        return HIT_DISTANCE;
+    }
+
     public Transition getTransition() {
         return transition;
     }
-    
+
     public boolean isSelfTransition() {
         return isSelfTransition;
     }
-    
+
+    /**
+     * Check if the transition is drawn between the given state UIs.
+     * @param sourceStateUI
+     * @param targetStateUI
+     * @return boolean
+     */
+    public boolean connects(StateUI sourceStateUI, StateUI targetStateUI) {
+        return this.sourceStateUI == sourceStateUI && this.targetStateUI == targetStateUI;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(int generation) {
+        this.generation = generation;
+    }
+
     /**
-     * Sets the drag point for the self transition and updates the transition to the new position.
-     * @param dragPoint
+     * Sets the drag point for the self transition, the transition is drawn towards it from then on.
+     * @param dragPoint The point, or null to draw the transition in its default place
      */
     public void setSelfTransitionPosition(SerializablePoint2D dragPoint) {
-        this.dragPoint = dragPoint;
-        
-        double dx = dragPoint.getX() - sourceStateUI.getX();
-        double dy = dragPoint.getY() - sourceStateUI.getY();
-        
-        if (Math.abs(dx) >= StateUI.getRadius() && Math.abs(dy) >= StateUI.getRadius()) {
-            double angle = Math.atan2(dy, dx);
-            double x = sourceStateUI.getX() + StateUI.getRadius() * Math.cos(angle);
-            double y = sourceStateUI.getY() + StateUI.getRadius() * Math.sin(angle);
-            dx = x - sourceStateUI.getX();
-            dy = y - sourceStateUI.getY();
-        }
-        else if (Math.abs(dx) >= StateUI.getRadius()) {
-            dx = dx > 0 ? StateUI.getRadius() : -StateUI.getRadius();
+        if (dragPoint == this.dragPoint) {
+            return;
         }
-        if (Math.abs(dy) >= StateUI.getRadius()) {
-            dy = dy > 0 ? StateUI.getRadius() : -StateUI.getRadius();
+        if (dragPoint == null || this.dragPoint == null
+            || dragPoint.getX() != this.dragPoint.getX() || dragPoint.getY() != this.dragPoint.getY()) {
+            isGeometryValid = false;
         }
-        
-        // Update the transition start points
-        startX = sourceStateUI.getX() + dx;
-        startY = sourceStateUI.getY() + dy;
-        
-        double angle = Math.atan2(dy, dx);
-        double controlDistance = CIRCLE_RADIUS * 1.5;
-        
-        // Update the positions of the control points for the bezier curve
-        controlX1 = dragPoint.getX() + controlDistance * Math.cos(angle + Math.PI / 2);
-        controlY1 = dragPoint.getY() + controlDistance * Math.sin(angle + Math.PI / 2);
-        controlX2 = dragPoint.getX() + controlDistance * Math.cos(angle - Math.PI / 2);
-        controlY2 = dragPoint.getY() + controlDistance * Math.sin(angle - Math.PI / 2);
+        this.dragPoint = dragPoint;
     }
 
     public boolean equals(TransitionUI transitionUI) {
         return transition.equals(transitionUI.getTransition()) && isSelfTransition == transitionUI.isSelfTransition();
     }
 
+    /**
+     * Get the point the self-transition is drawn towards, whether it was dragged there or is in its default place.
+     * @return SerializablePoint2D
+     */
     public SerializablePoint2D getDragPoint() {
-        return dragPoint;
+        if (!isSelfTransition) {
+            return dragPoint;
+        }
+        updateGeometry();
+        return loopPoint;
     }
 }
@@ -0,0 +1,431 @@
+package components.serialization;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.State;
+import model.Transition;
+
+/**
+ * AutomataFormat class which reads and writes automata in a compact binary format.
+ *
+ * The file is a header (magic number and version) followed by four sections:
+ * the interned transition symbols, one record per state (id, flags, name),
+ * the transitions as (source, symbol, target) int triples indexing the earlier sections,
+ * and the layout, the position of each state in state order.
+ * All numbers are big-endian and strings are length-prefixed UTF-8.
+ */
+public class AutomataFormat {
+    public static final int MAGIC = 0x41415654; // "AAVT"
+    public static final short VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int STARTING = 1;
+    private static final int ACCEPTING = 1 << 1;
+    private static final int DISCARDED = 1 << 2;
+
+    // The fewest bytes each record can take, to tell a corrupt count from a large one
+    private static final int SYMBOL_BYTES = 4;
+    private static final int STATE_BYTES = 4 + 1 + 4 + 2 * 8;
+    private static final int TRANSITION_BYTES = 3 * 4;
+
+    /**
+     * ProgressListener interface which is told how far a read or write has got each time the buffer is refilled or flushed.
+     */
+    public interface ProgressListener {
+        /**
+         * @param done the work done so far
+         * @param total the total work, in the same unit
+         * @return false to stop, which fails the read or write with an InterruptedIOException
+         */
+        boolean onProgress(long done, long total);
+    }
+
+    /**
+     * Writes the states to the channel.
+     *
+     * @param states
+     * @param channel
+     * @throws IOException
+     */
+    public static void write(Map<State, SerializablePoint2D> states, WritableByteChannel channel) throws IOException {
+        snapshot(states).write(channel, null);
+    }
+
+    /**
+     * Copies everything that is saved out of the states, so it can be written while the states keep changing.
+     *
+     * @param states
+     * @return The snapshot
+     */
+    public static Snapshot snapshot(Map<State, SerializablePoint2D> states) {
+        return new Snapshot(states);
+    }
+
+    /**
+     * Reads states from the channel. The magic number must not have been consumed yet.
+     *
+     * @param channel
+     * @return The states read, in the order they were written
+     * @throws IOException if the data is not in this format, is of a newer version or is cut short
+     */
+    public static Map<State, SerializablePoint2D> read(ReadableByteChannel channel) throws IOException {
+        return read(channel, -1, null);
+    }
+
+    /**
+     * Reads states from the channel, reporting progress in bytes.
+     *
+     * @param channel
+     * @param size the number of bytes in the channel, or -1 if unknown
+     * @param listener may be null
+     * @return The states read, in the order they were written
+     * @throws IOException if the data is not in this format, is of a newer version or is cut short
+     * @throws InterruptedIOException if the listener stopped the read
+     */
+    public static Map<State, SerializablePoint2D> read(ReadableByteChannel channel, long size, ProgressListener listener) throws IOException {
+        Reader in = new Reader(channel, size, listener);
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not an automata file.");
+        }
+        short version = in.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported automata file version " + version + ".");
+        }
+
+        // Lists grow with what is actually read, as a count cannot be checked when the size is unknown
+        int numSymbols = in.getCount(SYMBOL_BYTES);
+        List<String> symbols = new ArrayList<>(Math.min(numSymbols, BUFFER_SIZE));
+        for (int i = 0; i < numSymbols; i++) {
+            symbols.add(in.getString());
+        }
+
+        int numStates = in.getCount(STATE_BYTES);
+        List<State> states = new ArrayList<>(Math.min(numStates, BUFFER_SIZE));
+        for (int i = 0; i < numStates; i++) {
+            int id = in.getInt();
+            int flags = in.getByte();
+            State state = new State(id, in.getString());
+            state.setStartingState((flags & STARTING) != 0);
+            state.setAcceptingState((flags & ACCEPTING) != 0);
+            if ((flags & DISCARDED) != 0) {
+                state.toggleDiscarded();
+            }
+            states.add(state);
+        }
+
+        int numTransitions = in.getCount(TRANSITION_BYTES);
+        for (int i = 0; i < numTransitions; i++) {
+            State source = in.getElement(states);
+            String symbol = in.getElement(symbols);
+            State target = in.getElement(states);
+            source.addTransition(target, symbol);
+        }
+
+        Map<State, SerializablePoint2D> result = new LinkedHashMap<>(states.size() * 4 / 3 + 1);
+        for (State state : states) {
+            result.put(state, new SerializablePoint2D(in.getDouble(), in.getDouble()));
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the bytes start with the magic number of this format.
+     *
+     * @param header at least four bytes, from position 0
+     * @return true if the bytes start with the magic number
+     */
+    public static boolean isAutomataFormat(ByteBuffer header) {
+        return header.limit() >= 4 && header.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Snapshot class which holds the saved data of an automaton as flat arrays.
+     */
+    public static final class Snapshot {
+        private final String[] symbols;
+        private final int[] ids;
+        private final byte[] flags;
+        private final String[] names;
+        private final int[] transitions;
+        private final double[] positions;
+
+        // Constructor
+        private Snapshot(Map<State, SerializablePoint2D> states) {
+            List<State> stateList = new ArrayList<>(states.keySet());
+            Map<State, Integer> stateIndexes = new HashMap<>();
+            for (int i = 0; i < stateList.size(); i++) {
+                stateIndexes.put(stateList.get(i), i);
+            }
+
+            int numStates = stateList.size();
+            ids = new int[numStates];
+            flags = new byte[numStates];
+            names = new String[numStates];
+            positions = new double[numStates * 2];
+
+            Map<String, Integer> symbolIndexes = new LinkedHashMap<>();
+            int[] triples = new int[48];
+            int numTriples = 0;
+            for (int i = 0; i < numStates; i++) {
+                State state = stateList.get(i);
+                ids[i] = state.getId();
+                flags[i] = (byte) ((state.isStartingState() ? STARTING : 0) | (state.isAcceptingState() ? ACCEPTING : 0) | (state.isDiscarded() ? DISCARDED : 0));
+                names[i] = state.getName();
+                SerializablePoint2D position = states.get(state);
+                positions[i * 2] = position == null ? 0 : position.getX();
+                positions[i * 2 + 1] = position == null ? 0 : position.getY();
+
+                for (Transition transition : state.getTransitions()) {
+                    // Transitions to states outside the automaton cannot be stored
+                    Integer target = stateIndexes.get(transition.getTargetState());
+                    if (target != null) {
+                        symbolIndexes.putIfAbsent(transition.getTransitionSymbol(), symbolIndexes.size());
+                        if (numTriples * 3 == triples.length) {
+                            triples = Arrays.copyOf(triples, triples.length * 2);
+                        }
+                        triples[numTriples * 3] = i;
+                        triples[numTriples * 3 + 1] = symbolIndexes.get(transition.getTransitionSymbol());
+                        triples[numTriples * 3 + 2] = target;
+                        numTriples++;
+                    }
+                }
+            }
+
+            symbols = symbolIndexes.keySet().toArray(new String[0]);
+            transitions = Arrays.copyOf(triples, numTriples * 3);
+        }
+
+        public int getNumStates() {
+            return ids.length;
+        }
+
+        /**
+         * Writes the snapshot to the channel, reporting progress in records.
+         *
+         * @param channel
+         * @param listener may be null
+         * @throws IOException
+         * @throws InterruptedIOException if the listener stopped the write
+         */
+        public void write(WritableByteChannel channel, ProgressListener listener) throws IOException {
+            int numTransitions = transitions.length / 3;
+            Writer out = new Writer(channel, symbols.length + ids.length * 2L + numTransitions, listener);
+            out.putInt(MAGIC);
+            out.putShort(VERSION);
+
+            out.putInt(symbols.length);
+            for (String symbol : symbols) {
+                out.putString(symbol);
+                out.recordDone();
+            }
+
+            out.putInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                out.putInt(ids[i]);
+                out.putByte(flags[i]);
+                out.putString(names[i]);
+                out.recordDone();
+            }
+
+            out.putInt(numTransitions);
+            for (int i = 0; i < transitions.length; i += 3) {
+                out.putInt(transitions[i]);
+                out.putInt(transitions[i + 1]);
+                out.putInt(transitions[i + 2]);
+                out.recordDone();
+            }
+
+            for (int i = 0; i < ids.length; i++) {
+                out.putDouble(positions[i * 2]);
+                out.putDouble(positions[i * 2 + 1]);
+                out.recordDone();
+            }
+            out.flush();
+        }
+    }
+
+    /*
+     * Writer: Buffers the output and writes it to the channel whenever the buffer fills up.
+     */
+    private static class Writer {
+        private final WritableByteChannel channel;
+        private final long totalRecords;
+        private final ProgressListener listener;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long records;
+
+        // Constructor
+        Writer(WritableByteChannel channel, long totalRecords, ProgressListener listener) {
+            this.channel = channel;
+            this.totalRecords = totalRecords;
+            this.listener = listener;
+        }
+
+        void putByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void putShort(short value) throws IOException {
+            ensure(2);
+            buffer.putShort(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void recordDone() {
+            records++;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+                if (buffer.capacity() < bytes) {
+                    buffer = ByteBuffer.allocate(bytes);
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+            if (listener != null && !listener.onProgress(records, totalRecords)) {
+                throw new InterruptedIOException("Writing the automata was cancelled.");
+            }
+        }
+    }
+
+    /*
+     * Reader: Reads the channel through a buffer, refilling it as values are taken out.
+     */
+    private static class Reader {
+        private final ReadableByteChannel channel;
+        private final long size;
+        private final ProgressListener listener;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long bytesRead;
+
+        // Constructor
+        Reader(ReadableByteChannel channel, long size, ProgressListener listener) {
+            this.channel = channel;
+            this.size = size;
+            this.listener = listener;
+            buffer.limit(0);
+        }
+
+        int getByte() throws IOException {
+            ensure(1);
+            return buffer.get() & 0xFF;
+        }
+
+        short getShort() throws IOException {
+            ensure(2);
+            return buffer.getShort();
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        double getDouble() throws IOException {
+            ensure(8);
+            return buffer.getDouble();
+        }
+
+        /**
+         * Read a count and check that that many records can still follow.
+         * @param recordBytes the fewest bytes each record takes
+         * @return int
+         * @throws IOException if the count is negative or more records than the rest of the file can hold
+         */
+        int getCount(int recordBytes) throws IOException {
+            int count = getInt();
+            if (count < 0) {
+                throw new IOException("Corrupt automata file: negative count " + count + ".");
+            }
+            if ((long) count * recordBytes > remaining()) {
+                throw new IOException("Corrupt automata file: count " + count + " does not fit in the " + remaining() + " bytes left.");
+            }
+            return count;
+        }
+
+        String getString() throws IOException {
+            int length = getCount(1);
+            ensure(length);
+            String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        <T> T getElement(List<T> elements) throws IOException {
+            int index = getInt();
+            if (index < 0 || index >= elements.size()) {
+                throw new IOException("Corrupt automata file: index " + index + " out of range.");
+            }
+            return elements.get(index);
+        }
+
+        // The number of bytes not read yet, or Long.MAX_VALUE if the size is unknown
+        private long remaining() {
+            return size < 0 ? Long.MAX_VALUE : size - bytesRead + buffer.remaining();
+        }
+
+        // Make sure the buffer holds at least the given number of unread bytes
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            if (listener != null && !listener.onProgress(bytesRead, size)) {
+                throw new InterruptedIOException("Reading the automata was cancelled.");
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (!buffer.hasRemaining()) {
+                    // Grow only as the data arrives, so a corrupt length runs into the end of the file before using up memory
+                    ByteBuffer larger = ByteBuffer.allocate((int) Math.min(bytes, buffer.capacity() * 2L));
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new EOFException("The automata file is cut short.");
+                }
+                bytesRead += read;
+            }
+            buffer.flip();
+        }
+    }
+}
@@ -1,35 +1,121 @@
 package components.serialization;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import model.State;
 
 /**
  * AutomataIO class which handles the input and output of states data.
+ * Files are saved in the binary AutomataFormat; files saved with Java serialization by
+ * earlier versions can still be loaded.
  */
 public class AutomataIO {
     /**
      * Saves the given states to the specified file.
-     * 
-     * @param states 
-     * @param file 
+     *
+     * @param states
+     * @param file
      * @throws IOException
      */
     public static void saveAutomata(Map<State, SerializablePoint2D> states, File file) throws IOException {
-        try (ObjectOutputStream outputStream = new ObjectOutputStream(new FileOutputStream(file))) {
-            outputStream.writeObject(states);
+        saveAutomata(AutomataFormat.snapshot(states), file, null);
+    }
+
+    /**
+     * Saves a snapshot to the specified file. The data is written to a temporary file next to it, which then
+     * replaces the file in a single rename, so the file is never left half written.
+     *
+     * @param snapshot
+     * @param file
+     * @param listener may be null
+     * @throws IOException
+     */
+    public static void saveAutomata(AutomataFormat.Snapshot snapshot, File file, AutomataFormat.ProgressListener listener) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+        try {
+            copyPermissions(target, temp);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                snapshot.write(channel, listener);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
         }
     }
+
+    // The temporary file is owner-only, so give it the permissions of the file it replaces before the rename
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        if (!Files.exists(from)) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system, the replaced file keeps the permissions of its directory
+        }
+    }
+
     /**
-     * Loads the states from the specified file.
-     * 
-     * @param file 
+     * Loads the states from the specified file, in either the binary or the legacy serialized format.
+     *
+     * @param file
      * @return The states loaded from the file
      * @throws IOException
      * @throws ClassNotFoundException
      */
     public static Map<State, SerializablePoint2D> loadAutomata(File file) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream inputStream = new ObjectInputStream(new FileInputStream(file))) {
+        return loadAutomata(file, null);
+    }
+
+    /**
+     * Loads the states from the specified file, in either the binary or the legacy serialized format.
+     * Progress is reported in bytes for binary files only.
+     *
+     * @param file
+     * @param listener may be null
+     * @return The states loaded from the file
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public static Map<State, SerializablePoint2D> loadAutomata(File file, AutomataFormat.ProgressListener listener) throws IOException, ClassNotFoundException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (AutomataFormat.isAutomataFormat(header)) {
+                channel.position(0);
+                return AutomataFormat.read(channel, channel.size(), listener);
+            }
+        }
+        return loadLegacyAutomata(file);
+    }
+
+    /**
+     * Loads the states from a file written with Java serialization.
+     *
+     * @param file
+     * @return The states loaded from the file
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<State, SerializablePoint2D> loadLegacyAutomata(File file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
             return (Map<State, SerializablePoint2D>) inputStream.readObject();
         }
     }
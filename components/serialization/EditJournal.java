@@ -0,0 +1,479 @@
+package components.serialization;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import components.SpecialSymbols;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+/**
+ * EditJournal class which autosaves an automaton by appending each edit to a journal file in a workspace directory.
+ *
+ * The workspace holds a snapshot of the automaton in the AutomataFormat and a journal of the edits made since.
+ * Each edit costs one small record, and every COMPACT_AFTER records the automaton is written to a new snapshot
+ * and the journal starts over. The journal is a header (magic number, version and the generation of its snapshot)
+ * followed by records of a big-endian int length, the payload (an operation byte and its fields) and the CRC32
+ * of the payload. Records are not forced to disk, so they survive the application crashing but a crash of
+ * the system can lose the last few; a record cut short or failing its CRC ends the journal.
+ */
+public class EditJournal implements Closeable {
+    public static final int MAGIC = 0x4141564A; // "AAVJ"
+    public static final short VERSION = 1;
+    public static final int COMPACT_AFTER = 4096;
+
+    private static final String JOURNAL_FILE = "journal";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final int HEADER_SIZE = 14;
+
+    private static final byte ADD_STATE = 1;
+    private static final byte DELETE_STATE = 2;
+    private static final byte ADD_TRANSITION = 3;
+    private static final byte REMOVE_TRANSITION = 4;
+    private static final byte RENAME_STATE = 5;
+    private static final byte SET_ACCEPTING = 6;
+    private static final byte SET_STARTING = 7;
+    private static final byte SET_ALPHABET = 8;
+    private static final byte MOVE_STATE = 9;
+    private static final byte CLEAR = 10;
+
+    private final Path directory;
+    private final CRC32 crc = new CRC32();
+    private Automata automata;
+    private FileChannel channel;
+    private long generation;
+    private int records;
+    private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+    // Constructor
+    private EditJournal(Path directory, Automata automata) {
+        this.directory = directory;
+        this.automata = automata;
+    }
+
+    /**
+     * Starts a new journal for the automaton in the directory, replacing whatever the directory held.
+     *
+     * @param directory created if it does not exist
+     * @param automata
+     * @return The journal, ready for edits
+     * @throws IOException
+     */
+    public static EditJournal create(Path directory, Automata automata) throws IOException {
+        Files.createDirectories(directory);
+        EditJournal journal = new EditJournal(directory, automata);
+        // Carry on from the previous generation so its snapshot is never overwritten in place
+        ByteBuffer header = readHeader(directory.resolve(JOURNAL_FILE));
+        journal.generation = header == null ? 0 : header.getLong();
+        journal.compact();
+        return journal;
+    }
+
+    /**
+     * Reads the automaton saved in the directory by replaying its journal over its snapshot.
+     *
+     * @param directory
+     * @return The automaton, or null if the directory holds no journal
+     * @throws IOException if the snapshot cannot be read or a complete record does not fit the automaton
+     */
+    public static Recovered recover(Path directory) throws IOException {
+        ByteBuffer in = readHeader(directory.resolve(JOURNAL_FILE));
+        if (in == null) {
+            return null;
+        }
+        long generation = in.getLong();
+
+        Map<State, SerializablePoint2D> states;
+        Path snapshotFile = snapshotFile(directory, generation);
+        try {
+            states = Files.exists(snapshotFile) ? AutomataIO.loadAutomata(snapshotFile.toFile()) : new LinkedHashMap<>();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Corrupt workspace snapshot.", e);
+        }
+        Recovered recovered = new Recovered(generation, states);
+
+        CRC32 check = new CRC32();
+        while (in.remaining() >= 4) {
+            int length = in.getInt();
+            if (length < 1 || length > in.remaining() - 4) {
+                break;
+            }
+            ByteBuffer payload = in.slice();
+            payload.limit(length);
+            check.reset();
+            check.update(payload.duplicate());
+            in.position(in.position() + length);
+            if (in.getInt() != (int) check.getValue()) {
+                break;
+            }
+            try {
+                recovered.apply(payload);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Corrupt edit journal: record " + recovered.records + " is too short.", e);
+            }
+            recovered.records++;
+        }
+        return recovered;
+    }
+
+    // Read the journal, positioned after its magic number and version, or null if it is missing or not a journal
+    private static ByteBuffer readHeader(Path journalFile) throws IOException {
+        if (!Files.isRegularFile(journalFile)) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(journalFile));
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC || in.getShort() != VERSION) {
+            return null;
+        }
+        return in;
+    }
+
+    /**
+     * Switches the journal to another automaton, e.g. after a file has been opened.
+     *
+     * @param automata
+     * @throws IOException
+     */
+    public void reset(Automata automata) throws IOException {
+        this.automata = automata;
+        compact();
+    }
+
+    public void addState(State state, SerializablePoint2D position) throws IOException {
+        start(ADD_STATE).putInt(state.getId());
+        putString(state.getName());
+        putPosition(position);
+        append();
+    }
+
+    public void deleteState(State state) throws IOException {
+        start(DELETE_STATE).putInt(state.getId());
+        append();
+    }
+
+    public void addTransition(State fromState, State toState, String symbol) throws IOException {
+        start(ADD_TRANSITION).putInt(fromState.getId()).putInt(toState.getId());
+        putString(symbol);
+        append();
+    }
+
+    public void removeTransition(Transition transition) throws IOException {
+        removeTransition(transition.getSourceState(), transition.getTargetState(), transition.getTransitionSymbol());
+    }
+
+    public void removeTransition(State fromState, State toState, String symbol) throws IOException {
+        start(REMOVE_TRANSITION).putInt(fromState.getId()).putInt(toState.getId());
+        putString(symbol);
+        append();
+    }
+
+    public void updateStateName(State state) throws IOException {
+        start(RENAME_STATE).putInt(state.getId());
+        putString(state.getName());
+        append();
+    }
+
+    // The flags are recorded by value rather than as toggles, so replaying a record twice does no harm
+    public void updateAcceptingState(State state) throws IOException {
+        start(SET_ACCEPTING).putInt(state.getId()).put((byte) (state.isAcceptingState() ? 1 : 0));
+        append();
+    }
+
+    public void updateStartingState(State state) throws IOException {
+        start(SET_STARTING).putInt(state.getId()).put((byte) (state.isStartingState() ? 1 : 0));
+        append();
+    }
+
+    public void setAlphabet(String alphabet) throws IOException {
+        start(SET_ALPHABET);
+        putString(alphabet);
+        append();
+    }
+
+    public void moveState(State state, SerializablePoint2D position) throws IOException {
+        start(MOVE_STATE).putInt(state.getId());
+        putPosition(position);
+        append();
+    }
+
+    public void clear() throws IOException {
+        start(CLEAR);
+        append();
+    }
+
+    /**
+     * Writes the automaton to a new snapshot and starts an empty journal for it. The journal is replaced
+     * in a single rename, so a crash leaves either the old snapshot and journal or the new ones.
+     *
+     * @throws IOException
+     */
+    public void compact() throws IOException {
+        long next = generation + 1;
+        AutomataIO.saveAutomata(AutomataFormat.snapshot(automata.getStates()), snapshotFile(directory, next).toFile(), null);
+
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+        Path temp = Files.createTempFile(directory, "." + JOURNAL_FILE, ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putShort(VERSION).putLong(next).flip();
+                write(out, header);
+                // The snapshot does not hold the alphabet, so it is the first record of every journal
+                start(SET_ALPHABET);
+                putString(alphabetOf(automata));
+                write(out, finish());
+                out.force(true);
+            }
+            try {
+                Files.move(temp, journalFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, journalFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        if (channel != null) {
+            channel.close();
+        }
+        channel = FileChannel.open(journalFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        generation = next;
+        records = 0;
+        deleteOtherSnapshots();
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The number of records appended since the last compaction
+     */
+    public int getRecordCount() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private ByteBuffer start(byte operation) {
+        buffer.clear();
+        buffer.putInt(0); // Length, filled in by finish
+        return buffer.put(operation);
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensure(4 + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private void putPosition(SerializablePoint2D position) {
+        ensure(16);
+        buffer.putDouble(position == null ? 0 : position.getX()).putDouble(position == null ? 0 : position.getY());
+    }
+
+    private void ensure(int bytes) {
+        // Leave room for the CRC as well
+        if (buffer.remaining() < bytes + 4) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes + 4));
+            buffer.flip();
+            buffer = larger.put(buffer);
+        }
+    }
+
+    // Fill in the length and append the CRC of the record in the buffer
+    private ByteBuffer finish() {
+        int length = buffer.position() - 4;
+        buffer.putInt(0, length);
+        crc.reset();
+        crc.update(buffer.array(), 4, length);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    private void append() throws IOException {
+        if (channel == null) {
+            throw new IOException("The edit journal is closed.");
+        }
+        write(channel, finish());
+        if (++records >= COMPACT_AFTER) {
+            compact();
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void deleteOtherSnapshots() throws IOException {
+        String current = snapshotFile(directory, generation).getFileName().toString();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*")) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static Path snapshotFile(Path directory, long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation);
+    }
+
+    // The alphabet as the string setAlphabet takes, without the ε that NFAs add themselves
+    private static String alphabetOf(Automata automata) {
+        StringBuilder alphabet = new StringBuilder();
+        for (String symbol : new TreeSet<>(automata.getAlphabet())) {
+            if (!symbol.equals(SpecialSymbols.EPSILON.toString())) {
+                alphabet.append(symbol);
+            }
+        }
+        return alphabet.toString();
+    }
+
+    /**
+     * Recovered class which holds an automaton read back from a workspace.
+     */
+    public static final class Recovered {
+        private final long generation;
+        private final Map<State, SerializablePoint2D> states;
+        private final Map<Integer, State> statesById = new HashMap<>();
+        private String alphabet;
+        private int records;
+
+        // Constructor
+        private Recovered(long generation, Map<State, SerializablePoint2D> states) {
+            this.generation = generation;
+            this.states = states;
+            for (State state : states.keySet()) {
+                statesById.put(state.getId(), state);
+            }
+        }
+
+        public Map<State, SerializablePoint2D> getStates() {
+            return states;
+        }
+
+        /**
+         * @return The alphabet last set, or null if the journal did not record one
+         */
+        public String getAlphabet() {
+            return alphabet;
+        }
+
+        /**
+         * @return The number of records replayed over the snapshot
+         */
+        public int getRecordCount() {
+            return records;
+        }
+
+        public boolean isEmpty() {
+            return states.isEmpty();
+        }
+
+        private void apply(ByteBuffer record) throws IOException {
+            byte operation = record.get();
+            switch (operation) {
+                case ADD_STATE: {
+                    State state = new State(record.getInt(), getString(record));
+                    statesById.put(state.getId(), state);
+                    states.put(state, new SerializablePoint2D(record.getDouble(), record.getDouble()));
+                    break;
+                }
+                case DELETE_STATE: {
+                    State state = getState(record);
+                    states.remove(state);
+                    statesById.remove(state.getId());
+                    for (State other : states.keySet()) {
+                        for (Transition transition : new ArrayList<>(other.getTransitionsTo(state))) {
+                            other.removeTransition(transition);
+                        }
+                    }
+                    break;
+                }
+                case ADD_TRANSITION:
+                    getState(record).addTransition(getState(record), getString(record));
+                    break;
+                case REMOVE_TRANSITION: {
+                    State source = getState(record);
+                    State target = getState(record);
+                    String symbol = getString(record);
+                    List<Transition> transitions = new ArrayList<>(source.getTransitionsTo(target));
+                    for (Transition transition : transitions) {
+                        if (transition.getTransitionSymbol().equals(symbol)) {
+                            source.removeTransition(transition);
+                            break;
+                        }
+                    }
+                    break;
+                }
+                case RENAME_STATE:
+                    getState(record).updateName(getString(record));
+                    break;
+                case SET_ACCEPTING:
+                    getState(record).setAcceptingState(record.get() != 0);
+                    break;
+                case SET_STARTING:
+                    getState(record).setStartingState(record.get() != 0);
+                    break;
+                case SET_ALPHABET:
+                    alphabet = getString(record);
+                    break;
+                case MOVE_STATE:
+                    states.put(getState(record), new SerializablePoint2D(record.getDouble(), record.getDouble()));
+                    break;
+                case CLEAR:
+                    states.clear();
+                    statesById.clear();
+                    alphabet = "";
+                    break;
+                default:
+                    throw new IOException("Corrupt edit journal: unknown operation " + operation + ".");
+            }
+        }
+
+        private State getState(ByteBuffer record) throws IOException {
+            int id = record.getInt();
+            State state = statesById.get(id);
+            if (state == null) {
+                throw new IOException("Corrupt edit journal: no state with id " + id + ".");
+            }
+            return state;
+        }
+
+        private static String getString(ByteBuffer record) {
+            byte[] bytes = new byte[record.getInt()];
+            record.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
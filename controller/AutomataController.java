@@ -20,6 +20,7 @@ import javafx.collections.ObservableList;
 import javafx.scene.control.Label;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,13 @@ import app.App;
 import components.MainCanvas;
 import components.serialization.SerializablePoint2D;
 import components.SpecialSymbols;
+import controller.commands.Command;
+import controller.commands.CommandHistory;
+import controller.commands.MoveStateCommand;
+import controller.commands.RetargetTransitionCommand;
+import controller.commands.UpdateTransitionSymbolCommand;
+import model.AutomataEvent;
+import model.AutomataListener;
 
 import model.*;
 import view.SubsetConstructionView;
@@ -41,6 +49,14 @@ public class AutomataController {
     protected State selectedState;
     protected State rejectedState;
     protected TableView<ObservableList<StringProperty>> transitionTable;
+    protected CommandHistory history = new CommandHistory();
+    
+    // The rows of the transition table, kept up to date from the automaton's events once tracked.
+    // Rows share one name property per state, so renaming a state updates all of its rows at once.
+    private final Map<Transition, ObservableList<StringProperty>> transitionRows = new HashMap<>();
+    private final Map<State, StringProperty> stateNames = new HashMap<>();
+    private final AutomataListener transitionTableListener = this::updateTransitionTable;
+    private boolean isTrackingTransitionTable = false;
 
     // Constructor
     public AutomataController(Map<State, SerializablePoint2D> states) {
@@ -77,7 +93,9 @@ public class AutomataController {
                     transitionsToRemove.add(transition);
                 }
             }
-            state.getTransitions().removeAll(transitionsToRemove);
+            for (Transition transition : transitionsToRemove) {
+                state.removeTransition(transition);
+            }
         }
     }
     
@@ -167,13 +185,116 @@ public class AutomataController {
     // Update states
     public void updateStates(Map<State, SerializablePoint2D> states) {
         automata.setStates(states);
-        updateTransitionTable();
+        if (!isTrackingTransitionTable) {
+            updateTransitionTable(); // A tracked table has been rebuilt by the reset already
+        }
+    }
+    
+    /**
+     * Keep the transition table up to date from the automaton's events, changing only the rows an edit touches.
+     */
+    protected void trackTransitionTable() {
+        if (!isTrackingTransitionTable) {
+            isTrackingTransitionTable = true;
+            automata.addAutomataListener(transitionTableListener);
+        }
+    }
+    
+    /**
+     * Replace the automaton of the controller, moving the listeners over to it.
+     * @param automata
+     */
+    protected void setAutomata(Automata automata) {
+        if (isTrackingTransitionTable) {
+            this.automata.removeAutomataListener(transitionTableListener);
+            automata.addAutomataListener(transitionTableListener);
+        }
+        this.automata = automata;
+    }
+    
+    /**
+     * Get the listener that keeps the transition table up to date, so events of another automaton showing
+     * the same states can be passed on to it.
+     * @return AutomataListener
+     */
+    public AutomataListener getTransitionTableListener() {
+        return transitionTableListener;
+    }
+    
+    // Apply one change to the transition table
+    private void updateTransitionTable(AutomataEvent event) {
+        switch (event.getType()) {
+            case TRANSITION_ADDED:
+                addTransitionRow(event.getTransition());
+                break;
+            case TRANSITION_REMOVED:
+                removeTransitionRow(event.getTransition());
+                break;
+            case TRANSITION_CHANGED: {
+                Transition transition = event.getTransition();
+                ObservableList<StringProperty> row = transitionRows.get(transition);
+                if (row == null) {
+                    addTransitionRow(transition);
+                } else {
+                    row.setAll(stateName(transition.getSourceState()), new SimpleStringProperty(transition.getTransitionSymbol()), stateName(transition.getTargetState()));
+                }
+                break;
+            }
+            case STATE_ADDED:
+                for (Transition transition : event.getState().getTransitions()) {
+                    addTransitionRow(transition);
+                }
+                break;
+            case STATE_REMOVED:
+                for (Transition transition : event.getState().getTransitions()) {
+                    removeTransitionRow(transition);
+                }
+                stateNames.remove(event.getState());
+                break;
+            case STATE_CHANGED: {
+                StringProperty name = stateNames.get(event.getState());
+                if (name != null) {
+                    name.set(event.getState().getName());
+                }
+                break;
+            }
+            case RESET:
+                updateTransitionTable();
+                break;
+            default:
+                break; // Positions and the alphabet are not shown in the table
+        }
+    }
+    
+    private void addTransitionRow(Transition transition) {
+        if (transitionRows.containsKey(transition)) {
+            return;
+        }
+        ObservableList<StringProperty> row = FXCollections.observableArrayList();
+        row.add(stateName(transition.getSourceState()));
+        row.add(new SimpleStringProperty(transition.getTransitionSymbol()));
+        row.add(stateName(transition.getTargetState()));
+        transitionRows.put(transition, row);
+        transitionTable.getItems().add(row);
+    }
+    
+    private void removeTransitionRow(Transition transition) {
+        ObservableList<StringProperty> row = transitionRows.remove(transition);
+        if (row != null) {
+            transitionTable.getItems().remove(row);
+        }
+    }
+    
+    private StringProperty stateName(State state) {
+        return stateNames.computeIfAbsent(state, s -> new SimpleStringProperty(s.getName()));
     }
 
     // Update transition table
     public void updateTransitionTable() {
         transitionTable.getItems().clear();
         transitionTable.getColumns().clear();
+        transitionRows.clear();
+        stateNames.clear();
     
         TableColumn<ObservableList<StringProperty>, String> stateColumn = createEditableColumn("State", 0);
         TableColumn<ObservableList<StringProperty>, String> symbolColumn = createEditableColumn("Input Symbol", 1);
@@ -183,12 +304,7 @@ public class AutomataController {
     
         for (State state : automata.getStates().keySet()) {
             for (Transition transition : state.getTransitions()) {
-                ObservableList<StringProperty> row = FXCollections.observableArrayList();
-                row.add(new SimpleStringProperty(state.getName()));
-                row.add(new SimpleStringProperty(transition.getTransitionSymbol()));
-                row.add(new SimpleStringProperty(transition.getTargetState().getName()));
-    
-                transitionTable.getItems().add(row);
+                addTransitionRow(transition);
             }
         }
 
@@ -252,29 +368,56 @@ public class AutomataController {
      * @param newValue
      */
     public void updateControllerTable(int row, int columnIndex, String newValue) {
-        State sourceState = getStateByName(transitionTable.getItems().get(row).get(0).get());
-        String symbol = transitionTable.getItems().get(row).get(1).get();
-        Transition transition = sourceState.getTransitionBySymbol(symbol);
+        Transition transition = getRowTransition(transitionTable.getItems().get(row));
+        if (transition == null) {
+            return;
+        }
         
         if (columnIndex == 0) {
-            State newSourceState = getStateByName(newValue);
-            
-            if (newSourceState != null) {
-                sourceState.removeTransition(transition);
-                transition.setSourceState(newSourceState);
-                newSourceState.addTransition(transition);
-                updateTransitionTable();
-            }
+            retargetTransition(transition, getStateByName(newValue), transition.getTargetState());
         } else if (columnIndex == 1) {
             updateTransitionSymbol(transition, newValue);
         } else if (columnIndex == 2) {
-            State newTargetState = getStateByName(newValue);
-            
-            if (newTargetState != null) {
-                transition.setTargetState(newTargetState);
-                updateTransitionTable();
+            retargetTransition(transition, transition.getSourceState(), getStateByName(newValue));
+        }
+    }
+    
+    // Find the transition a row of the transition table shows
+    private Transition getRowTransition(ObservableList<StringProperty> row) {
+        for (Map.Entry<Transition, ObservableList<StringProperty>> entry : transitionRows.entrySet()) {
+            if (entry.getValue() == row) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Moves the transition to the given source and target states so that it can be undone
+     * @param transition
+     * @param source
+     * @param target
+     */
+    public void retargetTransition(Transition transition, State source, State target) {
+        if (source == null || target == null || (source == transition.getSourceState() && target == transition.getTargetState())) {
+            return;
+        }
+        
+        for (Transition eachTransition : source.getTransitionsTo(target)) {
+            if (eachTransition.getTransitionSymbol().equals(transition.getTransitionSymbol())) {
+                Alert alert = new Alert(AlertType.ERROR);
+                alert.setTitle("Error");
+                alert.setHeaderText("The transition already exists.");
+                alert.setContentText("Please try a different transition.");
+                alert.showAndWait();
+                return;
             }
         }
+        
+        execute(new RetargetTransitionCommand(automata, transition, source, target));
+        if (!isTrackingTransitionTable) {
+            updateTransitionTable();
+        }
     }
     
     public TableView<ObservableList<StringProperty>> getTransitionTable() {
@@ -303,10 +446,11 @@ public class AutomataController {
         } 
 
         if (automata.getAlphabet().contains(symbol) || symbol.equals(SpecialSymbols.EPSILON.toString())) {
-            transition.updateTransitionSymbol(symbol);
-            updateTransitionTable();
+            execute(new UpdateTransitionSymbolCommand(automata, transition, symbol));
+            if (!isTrackingTransitionTable) {
+                updateTransitionTable();
+            }
             automata.isValid();
-            SubsetConstructionView.updateCorrespondingAutomata(automata);
         } else {
             Alert alert = new Alert(AlertType.ERROR);
             alert.setTitle("Error");
@@ -316,15 +460,88 @@ public class AutomataController {
         }
     }
 
+    /**
+     * Called once a state has been dragged to a new position, so the drag can be undone.
+     * @param state
+     * @param from
+     * @param to
+     */
+    public void moveState(State state, SerializablePoint2D from, SerializablePoint2D to) {
+        Command command = new MoveStateCommand(automata, state, from, to);
+        history.record(command);
+        commandDone(command, false);
+    }
+
+    /**
+     * Execute an edit so that it can be undone.
+     * @param command
+     */
+    public void execute(Command command) {
+        history.execute(command);
+        commandDone(command, false);
+    }
+
+    /**
+     * Undo the most recent edit.
+     * @return boolean false if there was nothing to undo
+     */
+    public boolean undo() {
+        Command command = history.undo();
+        if (command == null) {
+            return false;
+        }
+        commandDone(command, true);
+        refresh(command, true);
+        return true;
+    }
+
+    /**
+     * Redo the most recently undone edit.
+     * @return boolean false if there was nothing to redo
+     */
+    public boolean redo() {
+        Command command = history.redo();
+        if (command == null) {
+            return false;
+        }
+        commandDone(command, false);
+        refresh(command, false);
+        return true;
+    }
+
+    public CommandHistory getHistory() {
+        return history;
+    }
+
+    // Called after a command has been executed, undone or redone
+    protected void commandDone(Command command, boolean undone) {
+        return;
+    }
+
+    /**
+     * Bring the views up to date after a command has been undone or redone.
+     * @param command
+     * @param undone
+     */
+    protected void refresh(Command command, boolean undone) {
+        if (!isTrackingTransitionTable) {
+            updateTransitionTable();
+        }
+        automata.isValid();
+    }
+
     public void clearAutomata() {
         automata.clear();
+        history.clear();
         updateTransitionTable();
         selectedState = null;
     }
 
     public void setAlphabet(String alphabet) {
         automata.setAlphabet(alphabet);
-        updateTransitionTable();
+        if (!isTrackingTransitionTable) {
+            updateTransitionTable();
+        }
     }
 
     public void showPopupMessage(String stringText) {
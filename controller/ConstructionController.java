@@ -1,14 +1,25 @@
 package controller;
 
+import java.io.IOException;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import components.serialization.EditJournal;
 import components.serialization.SerializablePoint2D;
 import components.SpecialSymbols;
+import controller.commands.AddStateCommand;
+import controller.commands.AddTransitionCommand;
+import controller.commands.Command;
+import controller.commands.DeleteStateCommand;
+import controller.commands.RemoveTransitionCommand;
+import controller.commands.RenameStateCommand;
+import controller.commands.SetAlphabetCommand;
+import controller.commands.ToggleStateCommand;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.control.Alert.AlertType;
 import model.Automata;
+import model.AutomataListener;
 import model.State;
 import model.Transition;
 import view.SubsetConstructionView;
@@ -19,11 +30,24 @@ import view.SubsetConstructionView;
 public class ConstructionController extends AutomataController{
     private Label automataValidityLabel;
     private int stateCounter = 0;
+    private EditJournal journal;
+
+    /*
+     * JournalWrite: One edit to append to the journal.
+     */
+    private interface JournalWrite {
+        void write(EditJournal journal) throws IOException;
+    }
+
+    // Mirror every edit in the subset construction view, which shows the same states
+    private final AutomataListener subsetViewListener = SubsetConstructionView::automataChanged;
 
     // Constructor
     public ConstructionController(Automata automata) {
         super(automata);
         this.automataValidityLabel = new Label("Automata is valid: false");
+        trackTransitionTable();
+        automata.addAutomataListener(subsetViewListener);
     }
     
     /**
@@ -33,9 +57,8 @@ public class ConstructionController extends AutomataController{
     public void addState(SerializablePoint2D position) {
         String automatonName = "q" + stateCounter++;
         State state = new State(automatonName);
-        automata.getStates().put(state, position);
+        execute(new AddStateCommand(automata, state, position));
         updateAutomataValidityLabel(automata.isValid());
-        updateSubsetConstructionView();
     }
     
     public void setSelectedState(State state) {
@@ -47,13 +70,10 @@ public class ConstructionController extends AutomataController{
      * @param state
      */
     public void deleteState(State state) {
-        automata.getStates().remove(state);
-        removeTransitionsToState(state);
+        execute(new DeleteStateCommand(automata, state));
         stateCounter--;
         
-        updateTransitionTable();
         updateAutomataValidityLabel(automata.isValid());
-        updateSubsetConstructionView();
     }
 
     public void addTransition(State fromState, State toState, String symbol) {
@@ -73,10 +93,8 @@ public class ConstructionController extends AutomataController{
         }
 
         if (automata.getAlphabet().contains(symbol)) {
-            fromState.addTransition(toState, symbol);
-            updateTransitionTable();
+            execute(new AddTransitionCommand(automata, new Transition(fromState, toState, symbol)));
             updateAutomataValidityLabel(automata.isValid());
-            updateSubsetConstructionView();
         } else {
             Alert alert = new Alert(AlertType.ERROR);
             alert.setTitle("Error");
@@ -87,10 +105,8 @@ public class ConstructionController extends AutomataController{
     }
     
     public void removeTransition(Transition transition) {
-        transition.getSourceState().removeTransition(transition);
-        updateTransitionTable();
+        execute(new RemoveTransitionCommand(automata, transition));
         updateAutomataValidityLabel(automata.isValid());
-        updateSubsetConstructionView();
     }
 
     public void updateStateName(State state, String name) {
@@ -109,27 +125,23 @@ public class ConstructionController extends AutomataController{
             return;
         }
         
-        state.updateName(name);
-        updateTransitionTable();
-        updateSubsetConstructionView();
+        execute(new RenameStateCommand(automata, state, name));
     }
 
     public void toggleAcceptingState(State state) {
-        state.toggleAcceptingState();
-        updateTransitionTable();
+        execute(new ToggleStateCommand(automata, state, ToggleStateCommand.Flag.ACCEPTING));
         updateAutomataValidityLabel(automata.isValid());
-        updateSubsetConstructionView();
     }
 
     public void toggleStartingState(State state) {
-        state.toggleStartingState();
-        updateTransitionTable();
+        execute(new ToggleStateCommand(automata, state, ToggleStateCommand.Flag.STARTING));
         updateAutomataValidityLabel(automata.isValid());
-        updateSubsetConstructionView();
     }
 
     public void updateAutomata(Automata automata) {
-        this.automata = automata;
+        setAutomata(automata);
+        history.clear();
+        journal(j -> j.reset(automata));
         updateTransitionTable();
         updateAutomataValidityLabel(automata.isValid());
         updateSubsetConstructionView();
@@ -145,24 +157,73 @@ public class ConstructionController extends AutomataController{
         return automataValidityLabel;
     }
 
+    @Override
+    protected void setAutomata(Automata automata) {
+        this.automata.removeAutomataListener(subsetViewListener);
+        super.setAutomata(automata);
+        automata.addAutomataListener(subsetViewListener);
+    }
+
     protected void updateSubsetConstructionView() {
         SubsetConstructionView.updateCorrespondingAutomata(automata);
     }
 
     @Override
     public void setAlphabet(String alphabet) {
-        automata.setAlphabet(alphabet);
+        execute(new SetAlphabetCommand(automata, alphabet));
         SubsetConstructionView.updateAlphabetView(alphabet);
         updateAutomataValidityLabel(automata.isValid());
-        updateTransitionTable();
-        updateSubsetConstructionView();
     }
 
     @Override
     public void clearAutomata() {
         automata.clear();
         stateCounter = 0;
-        updateTransitionTable();
+        history.clear();
+        journal(j -> j.clear());
         selectedState = null;
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void commandDone(Command command, boolean undone) {
+        journal(j -> command.journal(j, undone));
+    }
+
+    @Override
+    protected void refresh(Command command, boolean undone) {
+        if (command instanceof SetAlphabetCommand) {
+            SubsetConstructionView.updateAlphabetView(((SetAlphabetCommand) command).getAlphabet(undone));
+        }
+        super.refresh(command, undone);
+        updateAutomataValidityLabel(automata.isValid());
+    }
+
+    /**
+     * Sets the journal that every edit is appended to, or null to stop journalling.
+     * @param journal
+     */
+    public void setJournal(EditJournal journal) {
+        this.journal = journal;
+    }
+
+    public EditJournal getJournal() {
+        return journal;
+    }
+
+    // Append an edit to the journal, giving up on autosave if the journal cannot be written
+    private void journal(JournalWrite write) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            write.write(journal);
+        } catch (IOException e) {
+            journal = null;
+            Alert alert = new Alert(AlertType.WARNING);
+            alert.setTitle("Warning");
+            alert.setHeaderText("Autosave has stopped.");
+            alert.setContentText("The edit journal could not be written: " + e.getMessage() + "\nSave your work to keep it.");
+            alert.show();
+        }
+    }
+}
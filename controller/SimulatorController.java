@@ -1,6 +1,7 @@
 package controller;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
@@ -28,12 +29,17 @@ import javafx.scene.control.TableColumn;
 import components.SpecialSymbols;
 import components.MainCanvas;
 import model.*;
+import model.engine.AcceptanceEngine;
+import model.engine.AcceptingPathFinder;
 import view.AutomataSimulatorView;
 
 /*
  * SimulatorController class is responsible for controlling the simulation of an automata.
  */
 public class SimulatorController extends AutomataController {
+    // Upper bound on the accepting paths logged for one word
+    private static final int MAX_LOGGED_PATHS = 20;
+
     private boolean isInputAccepted;
     private Double delay = 0.5;
     
@@ -41,6 +47,10 @@ public class SimulatorController extends AutomataController {
     private Map<String, String> loggedInputWords = new HashMap<>();
     
     protected InputTape inputTape;
+    // Compiled lazily for acceptance checks, and again whenever the automaton changes
+    private AcceptanceEngine acceptanceEngine;
+    private AcceptingPathFinder pathFinder;
+    private long pathFinderVersion;
     
     private Runnable onSimulationFinished;
     
@@ -137,102 +147,56 @@ public class SimulatorController extends AutomataController {
     }
     
     /**
-     * Find an accepting path for the input string provided.
+     * Find the accepting paths for the input string provided, shortest first, and log each of them.
      * @param inputString
      */
     public void findAcceptingPath(String inputString) {
-        Set<String> visitedStates = new HashSet<>();
-        Stack<State> path = new Stack<>();
-        Stack<String> transitionSymbols = new Stack<>();
-        
-        State startingState = getStartingState();
-        if (startingState != null) {
-            searchForAcceptingPath(startingState, transitionSymbols, visitedStates, path, inputString);
-        }
-    }
-    
-    /**
-     * Recursively search for an accepting path in the automaton for the given input string.
-     * @param currentState
-     * @param transitionSymbols
-     * @param visitedStates
-     * @param path
-     * @param inputString
-     */
-    private void searchForAcceptingPath(State currentState, Stack<String> transitionSymbols, Set<String> visitedStates, Stack<State> path, String inputString) {
-        // A key representing the current state and transition symbols used to reach it
-        String currentStateKey = currentState.getName() + ":" + getTransitionsStringIncludingEpsilon(transitionSymbols);
-        
-        // Backtrack if the current state has already been visited to avoid infinite loops
-        if (visitedStates.contains(currentStateKey)) {
+        if (getStartingState() == null || !getAcceptanceEngine().accepts(inputString)) {
             return;
         }
         
-        visitedStates.add(currentStateKey);
-        
-        // Add the current state to the path
-        path.push(currentState);
-        
-        // Log path in table if the input string has been consumed and if the current state is an accepting state
-        if (getMergedTransitionsSymbolsExcludingEpsilon(transitionSymbols).equals(inputString) && currentState.isAcceptingState()) {
-            String pathString = generateStringPath(path, inputString);
+        List<List<State>> paths = AcceptingPathFinder.compile(automata).findPaths(inputString, MAX_LOGGED_PATHS);
+        for (List<State> path : paths) {
+            String pathString = generateStringPath(path);
             boolean isSimulationAlreadyLogged = loggedInputWords.containsKey(inputTape.getInput()) && loggedInputWords.get(inputTape.getInput()).equals(pathString);
             
-            Stack<State> tempStack = new Stack<>();
-            tempStack.addAll(path);
-            
-            if (!isSimulationAlreadyLogged && path != null && !path.isEmpty()) {
+            if (!isSimulationAlreadyLogged) {
                 logSimulationResult(inputString, true, pathString);
             }
-            path.pop(); // Remove the current state from the path before backtracking
-            return;
         }
-        
-        // Handle epsilon transitions 
-        Set<State> epsilonStates = currentState.getNextStatesFromSymbol(SpecialSymbols.EPSILON.toString());
-        for (State epsilonState : epsilonStates) {
-            Stack<String> nextTransitionSymbols = new Stack<>();
-            nextTransitionSymbols.addAll(transitionSymbols);
-            nextTransitionSymbols.push(SpecialSymbols.EPSILON.toString());
-            searchForAcceptingPath(epsilonState, nextTransitionSymbols, visitedStates, path, inputString);
-        }
-        
-        int index = getMergedTransitionsSymbolsExcludingEpsilon(transitionSymbols).length();
-        if (index < inputString.length()) { // Check if there are more symbols to consume
-            char nextSymbol = inputString.charAt(index);
-            // Handle non-epsilon transitions
-            Set<State> nextStates = currentState.getNonEpsilonNextStatesFromSymbol(String.valueOf(nextSymbol));
-            for (State nextState : nextStates) {
-                Stack<String> nextTransitionSymbols = new Stack<>();
-                nextTransitionSymbols.addAll(transitionSymbols);
-                nextTransitionSymbols.push(String.valueOf(nextSymbol));
-                searchForAcceptingPath(nextState, nextTransitionSymbols, visitedStates, path, inputString);
-            }
-        }
-        
-        path.pop();
     }
     
+    /**
+     * Check whether the automaton accepts the input string, without running the simulation.
+     * @param inputString
+     * @return AcceptanceEngine.Result, or null if there is no starting state
+     */
+    public AcceptanceEngine.Result evaluate(String inputString) {
+        AcceptanceEngine engine = getAcceptanceEngine();
+        return engine == null ? null : engine.evaluate(inputString);
+    }
     
-    private String getMergedTransitionsSymbolsExcludingEpsilon(Stack<String> transitionSymbols) {
-        StringBuilder transitionsString = new StringBuilder();
-        for (String symbol : transitionSymbols) {
-            if (!symbol.equals(SpecialSymbols.EPSILON.toString())) {
-                transitionsString.append(symbol);
-            }
+    /**
+     * Get the acceptance engine for the automaton, compiling it again if the automaton has been edited since.
+     * @return AcceptanceEngine, or null if there is no starting state
+     */
+    public AcceptanceEngine getAcceptanceEngine() {
+        if (acceptanceEngine == null || !acceptanceEngine.isCurrent(automata)) {
+            acceptanceEngine = automata.findStartingState() == null ? null : AcceptanceEngine.compile(automata);
         }
-        return transitionsString.toString();
+        return acceptanceEngine;
     }
     
-    private String getTransitionsStringIncludingEpsilon(Stack<String> transitionSymbols) {
-        StringBuilder transitionsString = new StringBuilder();
-        for (String symbol : transitionSymbols) {
-            transitionsString.append(symbol);
+    // Get the path finder for the automaton, compiling it again if the automaton has been edited since
+    private AcceptingPathFinder getPathFinder() {
+        if (pathFinder == null || pathFinderVersion != automata.getVersion()) {
+            pathFinderVersion = automata.getVersion();
+            pathFinder = AcceptingPathFinder.compile(automata);
         }
-        return transitionsString.toString();
+        return pathFinder;
     }
     
-    private String generateStringPath(Stack<State> path, String inputString) {
+    private String generateStringPath(List<State> path) {
         StringBuilder pathString = new StringBuilder();
         for (int i = 0; i < path.size(); i++) {
             State state = path.get(i);
@@ -337,10 +301,11 @@ public class SimulatorController extends AutomataController {
         
         // Continue the simulation
         String symbol = inputTape.readSymbol();
-        Set<State> states = selectedState.getNextStatesFromSymbol(symbol);
+        Set<State> states = filterPossibleNextStates(selectedState.getNextStatesFromSymbol(symbol), symbol);
         
         if (states.isEmpty()) {
-            endSimulationAsRejected();
+            handleEndOfInput();
+            setTimedResetView();
             return;
         }
         
@@ -402,6 +367,38 @@ public class SimulatorController extends AutomataController {
         }
     }
     
+    /**
+     * Keep the possible next states from which the input can still be accepted, so every choice stays on a run
+     * the acceptance engine accepts. If the engine rejects the input, every branch rejects it and all are kept.
+     * @param states
+     * @param symbol
+     * @return Set<State>
+     */
+    private Set<State> filterPossibleNextStates(Set<State> states, String symbol) {
+        AcceptanceEngine.Result result = evaluate(inputTape.getInput());
+        if (result == null || !result.isAccepted() || states.isEmpty()) {
+            return states;
+        }
+        
+        String word = inputTape.getInput();
+        int position = inputTape.getHeadPosition();
+        Set<State> liveNow = getPathFinder().findLiveStates(word, position);
+        Set<State> liveNext = position < word.length() ? getPathFinder().findLiveStates(word, position + 1) : new HashSet<>();
+        Set<State> epsilonStates = selectedState.getNextStatesFromSymbol(SpecialSymbols.EPSILON.toString());
+        
+        Set<State> filtered = new HashSet<>();
+        for (State state : states) {
+            boolean isReadingSymbol = false;
+            for (Transition transition : selectedState.getTransitionsTo(state)) {
+                isReadingSymbol |= transition.getTransitionSymbol().equals(symbol);
+            }
+            if ((isReadingSymbol && liveNext.contains(state)) || (epsilonStates.contains(state) && liveNow.contains(state))) {
+                filtered.add(state);
+            }
+        }
+        return filtered;
+    }
+    
     /**
      * Move the input tape head to the right and update the tape view.
      */
@@ -543,15 +540,12 @@ public class SimulatorController extends AutomataController {
     }
     
     /**
-     * Determine if the input string is accepted by the automata.
+     * Determine if the input string is accepted by the automata. The verdict is the acceptance engine's
+     * for the whole input, whichever branch the simulation followed.
      */
     private void handleEndOfInput() {
-        if (selectedState != null && selectedState.isAcceptingState()) {
-            isInputAccepted = true;
-        } 
-        else {
-            isInputAccepted = false;
-        }
+        AcceptanceEngine.Result result = evaluate(inputTape.getInput());
+        isInputAccepted = result != null && result.isAccepted();
     }
     
     private void setTimedResetView() {
@@ -683,6 +677,7 @@ public class SimulatorController extends AutomataController {
 
     public void updateAutomata(Automata automata) {
         this.automata = automata;
+        acceptanceEngine = null;
         simulationLog.getItems().clear();
         loggedInputWords.clear();
     }
@@ -1,20 +1,31 @@
 package controller;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 
 import model.*;
+import model.engine.BitParallelNFA;
+import model.engine.CompiledDFA;
+import model.engine.DFAMinimizer;
+import model.engine.EpsilonClosure;
+import model.engine.MappedDFA;
+import model.engine.SubsetConstruction;
 import view.SubsetConstructionView;
+import controller.commands.AddTransitionCommand;
+import controller.commands.Command;
+import controller.commands.RemoveTransitionCommand;
+import controller.commands.ToggleDiscardedCommand;
 import components.serialization.SerializablePoint2D;
 import components.SpecialSymbols;
+import javafx.concurrent.Task;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 
@@ -25,7 +36,6 @@ public class SubsetConstructionController extends AutomataController {
     private State emptyState;
     private Map<State, Set<State>> dfaStateMap;
     private State dfaStartState;
-    private Queue<State> queue;
     private Map<State, SerializablePoint2D> dfaStates;
     
     private Set<State> expectedDFAStates;
@@ -36,11 +46,14 @@ public class SubsetConstructionController extends AutomataController {
         emptyState = new State(SpecialSymbols.EMPTY_SET.toString());
         dfaStateMap = new HashMap<>();
         dfaStartState = null;
-        queue = new LinkedList<>();
         dfaStates = new HashMap<>();
         expectedDFAStates = new HashSet<>();
+        trackTransitionTable();
     }
     
+    /**
+     * Convert the NFA to a DFA on the calling thread, without a state budget.
+     */
     public void convertToDFA() {
         clearData();
         
@@ -48,15 +61,107 @@ public class SubsetConstructionController extends AutomataController {
             return;
         }
         
-        dfaStartState = createDFAStartState();
-        initialiseEmptyState();
+        List<String> alphabet = getInputSymbols();
+        BitParallelNFA nfa = BitParallelNFA.compile(getAutomata());
+        applyConversion(buildConversion(nfa, alphabet, Integer.MAX_VALUE, null));
+    }
+    
+    /**
+     * Create a task that converts the NFA to a DFA in the background. The NFA is compiled here, on the
+     * JavaFX thread, so later edits cannot race with the conversion. The task's progress is the number of states
+     * discovered out of maxStates, and its message also gives the number still queued. It stops with a partial
+     * result once maxStates DFA states are found.
+     * Pass the value of a successful task to applyConversion on the JavaFX thread.
+     * @param maxStates
+     * @return Task or null if the NFA has no starting state
+     */
+    public Task<DFAConversion> createConversionTask(int maxStates) {
+        if (getStartingState() == null) {
+            clearData();
+            return null;
+        }
         
-        queue.add(dfaStartState);
+        List<String> alphabet = getInputSymbols();
+        BitParallelNFA nfa = BitParallelNFA.compile(getAutomata());
         
-        while (!queue.isEmpty()) {
-            State currentDFAstate = queue.poll();
-            processDFAState(currentDFAstate);
+        return new Task<DFAConversion>() {
+            @Override
+            protected DFAConversion call() {
+                updateMessage("Converting...");
+                return buildConversion(nfa, alphabet, maxStates, (discovered, pending) -> {
+                    updateMessage(discovered + " states discovered, " + pending + " in queue");
+                    updateProgress(Math.min(discovered, maxStates), maxStates);
+                    return !isCancelled();
+                });
+            }
+        };
+    }
+    
+    /**
+     * Make a finished conversion the controller's DFA. Must be called on the JavaFX thread.
+     * @param conversion
+     */
+    public void applyConversion(DFAConversion conversion) {
+        dfaStates = conversion.states;
+        dfaStateMap = conversion.stateMap;
+        dfaStartState = conversion.startState;
+        emptyState = conversion.emptyState;
+        history.clear();
+        updateTransitionTable();
+    }
+    
+    /**
+     * Run the subset construction and create the DFA states and transitions from its result.
+     * Every subset becomes one state and missing transitions lead to the empty state. Only new objects are
+     * touched, so this can run off the JavaFX thread.
+     * @param nfa
+     * @param alphabet
+     * @param maxStates
+     * @param listener
+     * @return DFAConversion
+     */
+    private DFAConversion buildConversion(BitParallelNFA nfa, List<String> alphabet, int maxStates, SubsetConstruction.ProgressListener listener) {
+        int[] symbolIds = new int[alphabet.size()];
+        for (int i = 0; i < symbolIds.length; i++) {
+            symbolIds[i] = nfa.getSymbols().idOf(alphabet.get(i));
+        }
+        SubsetConstruction.Result result = SubsetConstruction.determinize(nfa, symbolIds, maxStates, listener);
+        
+        Map<State, SerializablePoint2D> newDFAStates = new HashMap<>();
+        Map<State, Set<State>> newStateMap = new HashMap<>();
+        State newEmptyState = createEmptyState(newDFAStates, alphabet);
+        
+        State[] newStates = new State[result.getNumStates()];
+        for (int dfaState = 0; dfaState < newStates.length; dfaState++) {
+            Set<State> composition = new HashSet<>();
+            for (int member : result.getSubset(dfaState)) {
+                composition.add(nfa.stateAt(member));
+            }
+            newStates[dfaState] = createNewDFAState(composition, newDFAStates);
+            newStateMap.put(newStates[dfaState], composition);
         }
+        newStates[0].toggleStartingState();
+        
+        // Each subset has exactly one successor per symbol, so the transitions need no duplicate checks
+        for (int dfaState = 0; dfaState < newStates.length; dfaState++) {
+            for (int column = 0; column < alphabet.size(); column++) {
+                int target = result.next(dfaState, column);
+                if (target == SubsetConstruction.UNEXPLORED) {
+                    continue;
+                }
+                State targetState = target == SubsetConstruction.EMPTY_SET ? newEmptyState : newStates[target];
+                newStates[dfaState].addTransition(targetState, alphabet.get(column));
+            }
+        }
+        return new DFAConversion(newDFAStates, newStateMap, newStates[0], newEmptyState, result.isComplete());
+    }
+    
+    // The alphabet without epsilon, sorted so the columns are the same on every conversion
+    private List<String> getInputSymbols() {
+        List<String> alphabet = new ArrayList<>(getAutomata().getAlphabet());
+        alphabet.remove(SpecialSymbols.EPSILON.toString());
+        Collections.sort(alphabet);
+        return alphabet;
     }
     
     public Map<State, SerializablePoint2D> getDFAStates() {
@@ -119,10 +224,10 @@ public class SubsetConstructionController extends AutomataController {
             dfaStates.put(state, new SerializablePoint2D());
         }
         
-        initialiseEmptyState();
+        emptyState = createEmptyState(dfaStates, getInputSymbols());
+        history.clear();
         
         updateStates(dfaStates);
-        updateTransitionTable();
     }
     
     /**
@@ -313,7 +418,7 @@ public class SubsetConstructionController extends AutomataController {
         for (State expectedState: expectedDFAStates) {
             for (State dfaState : dfaStates.keySet()) {
                 if (expectedState.getName().equals(dfaState.getName())) {
-                    if (!expectedState.equals(dfaState)) {
+                    if (!expectedState.structurallyEquals(dfaState)) {
                         return false;
                     }
                 }
@@ -345,30 +450,6 @@ public class SubsetConstructionController extends AutomataController {
         return true;
     }
     
-    private void processDFAState(State currentDFAstate) {
-        Set<String> alphabet = new HashSet<>(getAutomata().getAlphabet());
-        alphabet.remove(SpecialSymbols.EPSILON.toString());
-        
-        for (String symbol : alphabet) {
-            Set<State> newDFAStateComposition = computeNewDFAStateComposition(currentDFAstate, symbol);
-            
-            if (newDFAStateComposition.contains(emptyState) && newDFAStateComposition.size() > 1){
-                newDFAStateComposition.remove(emptyState);
-            }
-            
-            if (shouldAddNewState(newDFAStateComposition)){
-                State newState = createNewDFAState(newDFAStateComposition);
-                dfaStateMap.put(newState, newDFAStateComposition);
-                
-                queue.add(newState);
-                addTransition(currentDFAstate, newState, symbol);
-            } else {
-                State existingState = getExistingDFAState(newDFAStateComposition);
-                addTransition(currentDFAstate, existingState, symbol);
-            }
-        }
-    }
-    
     public void addTransition(State fromState, State toState, String symbol) {
         if (symbol.equals("-")) {
             symbol = SpecialSymbols.EPSILON.toString();
@@ -386,8 +467,7 @@ public class SubsetConstructionController extends AutomataController {
         }
         
         if (automata.getAlphabet().contains(symbol)) {
-            fromState.addTransition(toState, symbol);
-            updateTransitionTable();
+            execute(new AddTransitionCommand(automata, new Transition(fromState, toState, symbol)));
         } else {
             Alert alert = new Alert(AlertType.ERROR);
             alert.setTitle("Error");
@@ -397,45 +477,61 @@ public class SubsetConstructionController extends AutomataController {
         }
     }
 
-    public void toggleDiscardedState(State state) {
-        state.toggleDiscarded();
-        for (Map.Entry<State, SerializablePoint2D> item : dfaStates.entrySet()) {
-            if (item.getKey().getName().equals(state.getName()) && state.isDiscarded()) {
-                item.setValue(new SerializablePoint2D(800, 600));
-            }
+    /**
+     * Replace the DFA of this controller with its minimal equivalent. Unreachable states are dropped and
+     * equivalent states are merged into the one that comes first in breadth first order from the start.
+     * @return boolean true if the DFA was minimized
+     */
+    public boolean minimizeDFA() {
+        try {
+            updateStates(DFAMinimizer.minimize(automata));
+            history.clear();
+            return true;
+        } catch (IllegalArgumentException e) {
+            Alert alert = new Alert(AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText("The DFA cannot be minimized.");
+            alert.setContentText(e.getMessage());
+            alert.showAndWait();
+            return false;
         }
-        
-        if (state.isDiscarded()) {
-            state.setAcceptingState(false);
-            state.setStartingState(false);
-            state.clearTransitions();
-            removeTransitionsToState(state);
+    }
+
+    /**
+     * Export the transition table of this controller's DFA to a file that MappedDFA can map without loading it.
+     * @param file
+     * @return boolean true if the table was written
+     */
+    public boolean exportDFATable(File file) {
+        try {
+            MappedDFA.export(CompiledDFA.compile(automata), file.toPath());
+            return true;
+        } catch (IllegalArgumentException | IOException e) {
+            Alert alert = new Alert(AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText("The DFA table could not be exported.");
+            alert.setContentText(e.getMessage());
+            alert.showAndWait();
+            return false;
         }
-        
-        updateStates(dfaStates);
     }
-    
 
-    private State getExistingDFAState(Set<State> composition) {
-        for (Map.Entry<State, Set<State>> entry : dfaStateMap.entrySet()) {
-            if (entry.getValue().equals(composition)) {
-                return entry.getKey();
-            }
+    public void toggleDiscardedState(State state) {
+        if (automata.getStates() != dfaStates) {
+            updateStates(dfaStates);
         }
-        return emptyState;
+        execute(new ToggleDiscardedCommand(automata, state));
     }
     
+
     public Set<State> computeNewDFAStateComposition(State currentDFAstate, String symbol) {
         Set<State> newDFAStateComposition = new HashSet<>();
+        EpsilonClosure epsilonClosure = getAutomata().getEpsilonClosure();
         
         for (State state : dfaStateMap.get(currentDFAstate)) {
-            Set<State> reachableStates = getReachableStates(state, symbol);
-            Set<State> reachStatesClosure = new HashSet<>();
-            
-            for (State reachableState : reachableStates) {
-                reachStatesClosure.addAll(State.epsilonClosure(reachableState, new HashSet<>()));
+            for (State reachableState : getReachableStates(state, symbol)) {
+                epsilonClosure.addClosureTo(reachableState, newDFAStateComposition);
             }
-            newDFAStateComposition.addAll(reachStatesClosure);
         }
         
         return newDFAStateComposition;
@@ -489,47 +585,69 @@ public class SubsetConstructionController extends AutomataController {
     }
 
 
-    private State createDFAStartState() {
-        Set<State> startingClosure = State.epsilonClosure(getStartingState(), new HashSet<>());
-        State dfaStartState = createNewDFAState(startingClosure);
-        dfaStartState.toggleStartingState();
-        dfaStateMap.put(dfaStartState, startingClosure);
-        return dfaStartState;
-    }
-
-    private void initialiseEmptyState() {
-        dfaStates.put(emptyState, new SerializablePoint2D());
-        
-        Set<String> alphabet = new HashSet<>(getAutomata().getAlphabet());
-        alphabet.remove(SpecialSymbols.EPSILON.toString());
+    private State createEmptyState(Map<State, SerializablePoint2D> states, List<String> alphabet) {
+        State newEmptyState = new State(SpecialSymbols.EMPTY_SET.toString());
+        states.put(newEmptyState, new SerializablePoint2D());
         
         for (String symbol : alphabet) {
-            emptyState.addTransition(new Transition(emptyState, emptyState, symbol));
+            newEmptyState.addTransition(new Transition(newEmptyState, newEmptyState, symbol));
         }
+        return newEmptyState;
     }
 
-    private boolean shouldAddNewState(Set<State> newDFAStateComposition) {
-        return !newDFAStateComposition.isEmpty() && !newDFAStateComposition.contains(emptyState) && !dfaStateMap.containsValue(newDFAStateComposition);
-    }
-
-    private State createNewDFAState(Set<State> newDFAStateComposition) {
+    private State createNewDFAState(Set<State> newDFAStateComposition, Map<State, SerializablePoint2D> states) {
         State newState = new State(getMergedStatesName(newDFAStateComposition));
         newState.setAcceptingState(hasAcceptingState(newDFAStateComposition));
-        dfaStates.put(newState, new SerializablePoint2D());
+        states.put(newState, new SerializablePoint2D());
         return newState;
     }
 
+    // Start over with new maps, the previous ones may still be shown as the DFA
     private void clearData() {
-        dfaStateMap.clear();
-        queue.clear();
+        dfaStateMap = new HashMap<>();
         dfaStartState = null;
-        emptyState.getTransitions().clear();
-        dfaStates.clear();
+        emptyState = new State(SpecialSymbols.EMPTY_SET.toString());
+        dfaStates = new HashMap<>();
     }
 
     public void removeTransition(Transition transition) {
-        transition.getSourceState().removeTransition(transition);
-        updateTransitionTable();
-        SubsetConstructionView.updateCorrespondingAutomata(automata);
+        execute(new RemoveTransitionCommand(automata, transition));
+    }
+
+    @Override
+    protected void commandDone(Command command, boolean undone) {
+        SubsetConstructionView.automataEdited();
+    }
+
+    /*
+     * DFAConversion: The DFA built by one run of the subset construction, applied to the controller in one step.
+     */
+    public static final class DFAConversion {
+        private final Map<State, SerializablePoint2D> states;
+        private final Map<State, Set<State>> stateMap;
+        private final State startState;
+        private final State emptyState;
+        private final boolean isComplete;
+
+        // Constructor
+        private DFAConversion(Map<State, SerializablePoint2D> states, Map<State, Set<State>> stateMap, State startState, State emptyState, boolean isComplete) {
+            this.states = states;
+            this.stateMap = stateMap;
+            this.startState = startState;
+            this.emptyState = emptyState;
+            this.isComplete = isComplete;
+        }
+
+        public int getNumStates() {
+            return states.size();
+        }
+
+        /**
+         * Check if the conversion found the whole DFA rather than stopping at the state budget.
+         * @return boolean
+         */
+        public boolean isComplete() {
+            return isComplete;
+        }
     }
 }
@@ -0,0 +1,48 @@
+package controller.commands;
+
+import java.io.IOException;
+import components.serialization.EditJournal;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+
+/*
+ * AddStateCommand: Adds a state at a position.
+ */
+public class AddStateCommand implements Command {
+    private final Automata automata;
+    private final State state;
+    private final SerializablePoint2D position;
+
+    // Constructor
+    public AddStateCommand(Automata automata, State state, SerializablePoint2D position) {
+        this.automata = automata;
+        this.state = state;
+        this.position = position;
+    }
+
+    @Override
+    public void execute() {
+        automata.addState(state, position);
+    }
+
+    @Override
+    public void undo() {
+        automata.removeState(state);
+    }
+
+    @Override
+    public long getSize() {
+        // The state itself is kept alive too while the command can be redone
+        return Sizes.OBJECT + 3 * Sizes.REFERENCE + Sizes.POINT + Sizes.OBJECT + Sizes.of(state.getName());
+    }
+
+    @Override
+    public void journal(EditJournal journal, boolean undone) throws IOException {
+        if (undone) {
+            journal.deleteState(state);
+        } else {
+            journal.addState(state, position);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import components.serialization.EditJournal;
+import model.Automata;
+import model.Transition;
+
+/*
+ * AddTransitionCommand: Adds a transition to its source state.
+ */
+public class AddTransitionCommand implements Command {
+    private final Automata automata;
+    private final Transition transition;
+
+    // Constructor
+    public AddTransitionCommand(Automata automata, Transition transition) {
+        this.automata = automata;
+        this.transition = transition;
+    }
+
+    @Override
+    public void execute() {
+        automata.addTransition(transition);
+    }
+
+    @Override
+    public void undo() {
+        automata.removeTransition(transition);
+    }
+
+    @Override
+    public long getSize() {
+        return Sizes.OBJECT + 2 * Sizes.REFERENCE + Sizes.TRANSITION;
+    }
+
+    @Override
+    public void journal(EditJournal journal, boolean undone) throws IOException {
+        if (undone) {
+            journal.removeTransition(transition);
+        } else {
+            journal.addTransition(transition.getSourceState(), transition.getTargetState(), transition.getTransitionSymbol());
+        }
+    }
+
+    public Transition getTransition() {
+        return transition;
+    }
+}
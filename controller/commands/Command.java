@@ -0,0 +1,37 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import components.serialization.EditJournal;
+
+/*
+ * Command: One undoable edit of an automaton. A command keeps only what it changed, never a copy of the automaton,
+ * so executing, undoing and storing it costs no more than the edit itself.
+ */
+public interface Command {
+    /**
+     * Apply the edit. Called again to redo it after an undo.
+     */
+    void execute();
+
+    /**
+     * Reverse the edit. Only called after execute.
+     */
+    void undo();
+
+    /**
+     * Estimate how many bytes the command keeps alive, for the memory limit of the history.
+     * @return long
+     */
+    long getSize();
+
+    /**
+     * Append what the last execute or undo changed to the journal.
+     * @param journal
+     * @param undone true if the command was just undone
+     * @throws IOException
+     */
+    default void journal(EditJournal journal, boolean undone) throws IOException {
+        return;
+    }
+}
@@ -0,0 +1,130 @@
+package controller.commands;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/*
+ * CommandHistory: The undo and redo stacks of one controller. The oldest commands are dropped once the commands
+ * on both stacks keep more than the memory limit alive, though the most recent command can always be undone.
+ * The default limit can be set with the aavt.history.memoryLimit system property, in bytes.
+ */
+public class CommandHistory {
+    public static final long DEFAULT_MEMORY_LIMIT = Long.getLong("aavt.history.memoryLimit", 16L << 20);
+
+    private final Deque<Command> undoStack = new ArrayDeque<>();
+    private final Deque<Command> redoStack = new ArrayDeque<>();
+    private long memoryLimit;
+    private long memoryUsed;
+
+    // Constructor
+    public CommandHistory() {
+        this(DEFAULT_MEMORY_LIMIT);
+    }
+
+    // Constructor
+    public CommandHistory(long memoryLimit) {
+        setMemoryLimit(memoryLimit);
+    }
+
+    /**
+     * Execute a command and make it the next one to undo.
+     * @param command
+     */
+    public void execute(Command command) {
+        command.execute();
+        record(command);
+    }
+
+    /**
+     * Make a command that has already been applied the next one to undo, e.g. a drag that moved a state as it went.
+     * Anything that could be redone is forgotten.
+     * @param command
+     */
+    public void record(Command command) {
+        while (!redoStack.isEmpty()) {
+            memoryUsed -= redoStack.pop().getSize();
+        }
+        undoStack.push(command);
+        memoryUsed += command.getSize();
+        trim();
+    }
+
+    /**
+     * Undo the most recent command.
+     * @return Command the command undone, or null if there is nothing to undo
+     */
+    public Command undo() {
+        Command command = undoStack.poll();
+        if (command != null) {
+            command.undo();
+            redoStack.push(command);
+        }
+        return command;
+    }
+
+    /**
+     * Redo the most recently undone command.
+     * @return Command the command redone, or null if there is nothing to redo
+     */
+    public Command redo() {
+        Command command = redoStack.poll();
+        if (command != null) {
+            command.execute();
+            undoStack.push(command);
+        }
+        return command;
+    }
+
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    public int getUndoCount() {
+        return undoStack.size();
+    }
+
+    public int getRedoCount() {
+        return redoStack.size();
+    }
+
+    public long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Set the number of bytes the history may keep alive, dropping the oldest commands if it is over the limit.
+     * @param memoryLimit
+     */
+    public final void setMemoryLimit(long memoryLimit) {
+        if (memoryLimit < 0) {
+            throw new IllegalArgumentException("The memory limit cannot be negative.");
+        }
+        this.memoryLimit = memoryLimit;
+        trim();
+    }
+
+    // Forget every command, e.g. once the automaton has been replaced
+    public void clear() {
+        undoStack.clear();
+        redoStack.clear();
+        memoryUsed = 0;
+    }
+
+    // Drop redo commands first, as they are the least likely to be needed, then the oldest undo commands
+    private void trim() {
+        while (memoryUsed > memoryLimit && !redoStack.isEmpty()) {
+            memoryUsed -= redoStack.removeLast().getSize();
+        }
+        while (memoryUsed > memoryLimit && undoStack.size() > 1) {
+            memoryUsed -= undoStack.removeLast().getSize();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package controller.commands;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import components.serialization.EditJournal;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+/*
+ * DeleteStateCommand: Removes a state and every transition into it. The state keeps its own transitions,
+ * so undoing only has to put the state back and restore the transitions that led into it.
+ */
+public class DeleteStateCommand implements Command {
+    private final Automata automata;
+    private final State state;
+    private SerializablePoint2D position;
+    private List<Transition> incoming = new ArrayList<>();
+
+    // Constructor
+    public DeleteStateCommand(Automata automata, State state) {
+        this.automata = automata;
+        this.state = state;
+    }
+
+    @Override
+    public void execute() {
+        incoming = automata.removeTransitionsTo(state);
+        position = automata.removeState(state);
+    }
+
+    @Override
+    public void undo() {
+        automata.addState(state, position);
+        for (Transition transition : incoming) {
+            automata.addTransition(transition);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return Sizes.OBJECT + 4 * Sizes.REFERENCE + Sizes.POINT + Sizes.OBJECT + Sizes.of(state.getName())
+            + Sizes.TRANSITION * (incoming.size() + state.getTransitions().size());
+    }
+
+    @Override
+    public void journal(EditJournal journal, boolean undone) throws IOException {
+        if (!undone) {
+            journal.deleteState(state);
+            return;
+        }
+        // Replaying the deletion dropped the state with its transitions, so all of it is recorded again
+        journal.addState(state, position);
+        journal.updateAcceptingState(state);
+        journal.updateStartingState(state);
+        for (Transition transition : state.getTransitions()) {
+            journal.addTransition(state, transition.getTargetState(), transition.getTransitionSymbol());
+        }
+        for (Transition transition : incoming) {
+            journal.addTransition(transition.getSourceState(), state, transition.getTransitionSymbol());
+        }
+    }
+}
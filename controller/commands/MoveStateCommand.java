@@ -0,0 +1,45 @@
+package controller.commands;
+
+import java.io.IOException;
+import components.serialization.EditJournal;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+
+/*
+ * MoveStateCommand: Moves a state from one position to another, e.g. the start and end of a drag.
+ */
+public class MoveStateCommand implements Command {
+    private final Automata automata;
+    private final State state;
+    private final SerializablePoint2D from;
+    private final SerializablePoint2D to;
+
+    // Constructor
+    public MoveStateCommand(Automata automata, State state, SerializablePoint2D from, SerializablePoint2D to) {
+        this.automata = automata;
+        this.state = state;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public void execute() {
+        automata.moveState(state, to);
+    }
+
+    @Override
+    public void undo() {
+        automata.moveState(state, from);
+    }
+
+    @Override
+    public long getSize() {
+        return Sizes.OBJECT + 4 * Sizes.REFERENCE + 2 * Sizes.POINT;
+    }
+
+    @Override
+    public void journal(EditJournal journal, boolean undone) throws IOException {
+        journal.moveState(state, undone ? from : to);
+    }
+}
@@ -0,0 +1,45 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import components.serialization.EditJournal;
+import model.Automata;
+import model.Transition;
+
+/*
+ * RemoveTransitionCommand: Removes a transition from its source state.
+ */
+public class RemoveTransitionCommand implements Command {
+    private final Automata automata;
+    private final Transition transition;
+
+    // Constructor
+    public RemoveTransitionCommand(Automata automata, Transition transition) {
+        this.automata = automata;
+        this.transition = transition;
+    }
+
+    @Override
+    public void execute() {
+        automata.removeTransition(transition);
+    }
+
+    @Override
+    public void undo() {
+        automata.addTransition(transition);
+    }
+
+    @Override
+    public long getSize() {
+        return Sizes.OBJECT + 2 * Sizes.REFERENCE + Sizes.TRANSITION;
+    }
+
+    @Override
+    public void journal(EditJournal journal, boolean undone) throws IOException {
+        if (undone) {
+            journal.addTransition(transition.getSourceState(), transition.getTargetState(), transition.getTransitionSymbol());
+        } else {
+            journal.removeTransition(transition);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import components.serialization.EditJournal;
+import model.Automata;
+import model.State;
+
+/*
+ * RenameStateCommand: Changes the name of a state.
+ */
+public class RenameStateCommand implements Command {
+    private final Automata automata;
+    private final State state;
+    private final String oldName;
+    private final String newName;
+
+    // Constructor
+    public RenameStateCommand(Automata automata, State state, String newName) {
+        this.automata = automata;
+        this.state = state;
+        this.oldName = state.getName();
+        this.newName = newName;
+    }
+
+    @Override
+    public void execute() {
+        automata.renameState(state, newName);
+    }
+
+    @Override
+    public void undo() {
+        automata.renameState(state, oldName);
+    }
+
+    @Override
+    public long getSize() {
+        return Sizes.OBJECT + 4 * Sizes.REFERENCE + Sizes.of(oldName) + Sizes.of(newName);
+    }
+
+    @Override
+    public void journal(EditJournal journal, boolean undone) throws IOException {
+        journal.updateStateName(state);
+    }
+}
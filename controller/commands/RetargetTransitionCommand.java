@@ -0,0 +1,65 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import components.serialization.EditJournal;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+/*
+ * RetargetTransitionCommand: Moves a transition to another source state, another target state or both.
+ */
+public class RetargetTransitionCommand implements Command {
+    private final Automata automata;
+    private final Transition transition;
+    private final State oldSource;
+    private final State oldTarget;
+    private final State newSource;
+    private final State newTarget;
+
+    // Constructor
+    public RetargetTransitionCommand(Automata automata, Transition transition, State newSource, State newTarget) {
+        this.automata = automata;
+        this.transition = transition;
+        this.oldSource = transition.getSourceState();
+        this.oldTarget = transition.getTargetState();
+        this.newSource = newSource;
+        this.newTarget = newTarget;
+    }
+
+    @Override
+    public void execute() {
+        retarget(newSource, newTarget);
+    }
+
+    @Override
+    public void undo() {
+        retarget(oldSource, oldTarget);
+    }
+
+    @Override
+    public long getSize() {
+        return Sizes.OBJECT + 6 * Sizes.REFERENCE;
+    }
+
+    @Override
+    public void journal(EditJournal journal, boolean undone) throws IOException {
+        State fromSource = undone ? newSource : oldSource;
+        State fromTarget = undone ? newTarget : oldTarget;
+        journal.removeTransition(fromSource, fromTarget, transition.getTransitionSymbol());
+        journal.addTransition(transition.getSourceState(), transition.getTargetState(), transition.getTransitionSymbol());
+    }
+
+    private void retarget(State source, State target) {
+        if (source == transition.getSourceState()) {
+            automata.setTransitionTarget(transition, target);
+            return;
+        }
+        // The transition belongs to its source state, so it has to move between states
+        automata.removeTransition(transition);
+        transition.setSourceState(source);
+        transition.setTargetState(target);
+        automata.addTransition(transition);
+    }
+}
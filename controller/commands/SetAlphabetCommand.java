@@ -0,0 +1,63 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import components.SpecialSymbols;
+import components.serialization.EditJournal;
+import model.Automata;
+
+/*
+ * SetAlphabetCommand: Replaces the alphabet of an automaton.
+ */
+public class SetAlphabetCommand implements Command {
+    private final Automata automata;
+    private final String oldAlphabet;
+    private final String newAlphabet;
+
+    // Constructor
+    public SetAlphabetCommand(Automata automata, String newAlphabet) {
+        this.automata = automata;
+        this.oldAlphabet = alphabetOf(automata);
+        this.newAlphabet = newAlphabet;
+    }
+
+    @Override
+    public void execute() {
+        automata.setAlphabet(newAlphabet);
+    }
+
+    @Override
+    public void undo() {
+        automata.setAlphabet(oldAlphabet);
+    }
+
+    @Override
+    public long getSize() {
+        return Sizes.OBJECT + 3 * Sizes.REFERENCE + Sizes.of(oldAlphabet) + Sizes.of(newAlphabet);
+    }
+
+    @Override
+    public void journal(EditJournal journal, boolean undone) throws IOException {
+        journal.setAlphabet(getAlphabet(undone));
+    }
+
+    /**
+     * Get the alphabet the automaton has after the command was executed or undone.
+     * @param undone
+     * @return String
+     */
+    public String getAlphabet(boolean undone) {
+        return undone ? oldAlphabet : newAlphabet;
+    }
+
+    // The alphabet as setAlphabet takes it, without the ε that NFAs add themselves
+    private static String alphabetOf(Automata automata) {
+        StringBuilder alphabet = new StringBuilder();
+        for (String symbol : automata.getAlphabet()) {
+            if (!symbol.equals(SpecialSymbols.EPSILON.toString())) {
+                alphabet.append(symbol);
+            }
+        }
+        return alphabet.toString();
+    }
+}
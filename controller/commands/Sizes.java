@@ -0,0 +1,19 @@
+package controller.commands;
+
+/*
+ * Sizes: Rough heap sizes used by the commands to estimate what they keep alive.
+ */
+final class Sizes {
+    static final long OBJECT = 16;
+    static final long REFERENCE = 8;
+    // A transition object and its slot in the list that holds it
+    static final long TRANSITION = 40 + REFERENCE;
+    static final long POINT = OBJECT + 16;
+
+    private Sizes() {
+    }
+
+    static long of(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+}
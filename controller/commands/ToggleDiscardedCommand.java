@@ -0,0 +1,89 @@
+package controller.commands;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+/*
+ * ToggleDiscardedCommand: Discards or restores a state of a DFA being built by hand. Discarding moves the state
+ * out of the way and strips its flags and every transition to and from it, which undoing puts back.
+ */
+public class ToggleDiscardedCommand implements Command {
+    private static final SerializablePoint2D DISCARDED_POSITION = new SerializablePoint2D(800, 600);
+
+    private final Automata automata;
+    private final State state;
+    private final Map<State, SerializablePoint2D> oldPositions = new HashMap<>();
+    private List<Transition> outgoing = new ArrayList<>();
+    private List<Transition> incoming = new ArrayList<>();
+    private boolean wasAccepting;
+    private boolean wasStarting;
+
+    // Constructor
+    public ToggleDiscardedCommand(Automata automata, State state) {
+        this.automata = automata;
+        this.state = state;
+    }
+
+    @Override
+    public void execute() {
+        automata.toggleDiscarded(state);
+        if (!state.isDiscarded()) {
+            return;
+        }
+
+        oldPositions.clear();
+        for (Map.Entry<State, SerializablePoint2D> item : automata.getStates().entrySet()) {
+            if (item.getKey().getName().equals(state.getName())) {
+                oldPositions.put(item.getKey(), item.getValue());
+            }
+        }
+        for (State moved : oldPositions.keySet()) {
+            automata.moveState(moved, DISCARDED_POSITION);
+        }
+
+        wasAccepting = state.isAcceptingState();
+        wasStarting = state.isStartingState();
+        automata.setAcceptingState(state, false);
+        automata.setStartingState(state, false);
+        outgoing = new ArrayList<>(state.getTransitions());
+        for (Transition transition : outgoing) {
+            automata.removeTransition(transition);
+        }
+        incoming = automata.removeTransitionsTo(state);
+    }
+
+    @Override
+    public void undo() {
+        boolean wasDiscarded = state.isDiscarded();
+        automata.toggleDiscarded(state);
+        if (!wasDiscarded) {
+            // Restoring a state does not change anything else
+            return;
+        }
+
+        for (Map.Entry<State, SerializablePoint2D> item : oldPositions.entrySet()) {
+            automata.moveState(item.getKey(), item.getValue());
+        }
+        automata.setAcceptingState(state, wasAccepting);
+        automata.setStartingState(state, wasStarting);
+        for (Transition transition : outgoing) {
+            automata.addTransition(transition);
+        }
+        for (Transition transition : incoming) {
+            automata.addTransition(transition);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return Sizes.OBJECT + 6 * Sizes.REFERENCE + (Sizes.OBJECT + Sizes.POINT) * oldPositions.size()
+            + Sizes.TRANSITION * (outgoing.size() + incoming.size());
+    }
+}
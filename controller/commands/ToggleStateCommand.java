@@ -0,0 +1,56 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import components.serialization.EditJournal;
+import model.Automata;
+import model.State;
+
+/*
+ * ToggleStateCommand: Toggles whether a state is accepting or starting. Toggling is its own inverse.
+ */
+public class ToggleStateCommand implements Command {
+    public enum Flag {
+        ACCEPTING,
+        STARTING
+    }
+
+    private final Automata automata;
+    private final State state;
+    private final Flag flag;
+
+    // Constructor
+    public ToggleStateCommand(Automata automata, State state, Flag flag) {
+        this.automata = automata;
+        this.state = state;
+        this.flag = flag;
+    }
+
+    @Override
+    public void execute() {
+        if (flag == Flag.ACCEPTING) {
+            automata.setAcceptingState(state, !state.isAcceptingState());
+        } else {
+            automata.setStartingState(state, !state.isStartingState());
+        }
+    }
+
+    @Override
+    public void undo() {
+        execute();
+    }
+
+    @Override
+    public long getSize() {
+        return Sizes.OBJECT + 3 * Sizes.REFERENCE;
+    }
+
+    @Override
+    public void journal(EditJournal journal, boolean undone) throws IOException {
+        if (flag == Flag.ACCEPTING) {
+            journal.updateAcceptingState(state);
+        } else {
+            journal.updateStartingState(state);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import components.serialization.EditJournal;
+import model.Automata;
+import model.Transition;
+
+/*
+ * UpdateTransitionSymbolCommand: Changes the symbol of a transition.
+ */
+public class UpdateTransitionSymbolCommand implements Command {
+    private final Automata automata;
+    private final Transition transition;
+    private final String oldSymbol;
+    private final String newSymbol;
+
+    // Constructor
+    public UpdateTransitionSymbolCommand(Automata automata, Transition transition, String newSymbol) {
+        this.automata = automata;
+        this.transition = transition;
+        this.oldSymbol = transition.getTransitionSymbol();
+        this.newSymbol = newSymbol;
+    }
+
+    @Override
+    public void execute() {
+        automata.updateTransitionSymbol(transition, newSymbol);
+    }
+
+    @Override
+    public void undo() {
+        automata.updateTransitionSymbol(transition, oldSymbol);
+    }
+
+    @Override
+    public long getSize() {
+        return Sizes.OBJECT + 4 * Sizes.REFERENCE + Sizes.of(oldSymbol) + Sizes.of(newSymbol);
+    }
+
+    @Override
+    public void journal(EditJournal journal, boolean undone) throws IOException {
+        String from = undone ? newSymbol : oldSymbol;
+        journal.removeTransition(transition.getSourceState(), transition.getTargetState(), from);
+        journal.addTransition(transition.getSourceState(), transition.getTargetState(), transition.getTransitionSymbol());
+    }
+}
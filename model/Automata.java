@@ -1,13 +1,17 @@
 package model;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import components.SpecialSymbols;
 import components.serialization.SerializablePoint2D;
+import model.engine.EpsilonClosure;
 
 /*
  * Automata class: The model class that represents the automata
@@ -21,6 +25,16 @@ public class Automata {
     protected boolean isValid = false;
     protected boolean isDFA;
     
+    private volatile EpsilonClosure epsilonClosure;
+    
+    // Bumped on every change made through this class, except moves, and on every change found on the states,
+    // so cached analyses know when they are out of date. Guarded by this.
+    private long version = 0;
+    private int seenSize = -1;
+    private long seenStamps = 0;
+    
+    private final List<AutomataListener> listeners = new CopyOnWriteArrayList<>();
+    
     // Constructor
     public Automata(Map<State, SerializablePoint2D> states) {
         this.states = states;
@@ -100,6 +114,7 @@ public class Automata {
         isDFA = true;
         alphabet.remove(SpecialSymbols.EPSILON.toString());
         isValid();  
+        fire(AutomataEvent.Type.ALPHABET_CHANGED, null, null, null);
     }
 
     // Set the automata as a NFA and add epsilon to the alphabet
@@ -107,6 +122,7 @@ public class Automata {
         isDFA = false;
         alphabet.add(SpecialSymbols.EPSILON.toString());
         isValid();
+        fire(AutomataEvent.Type.ALPHABET_CHANGED, null, null, null);
     }
 
     public Map<State, SerializablePoint2D> getStates() {
@@ -116,6 +132,118 @@ public class Automata {
     public void setStates(Map<State, SerializablePoint2D> states) {
         this.states = states;
         isValid();
+        fire(AutomataEvent.Type.RESET, null, null, null);
+    }
+    
+    public void addAutomataListener(AutomataListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeAutomataListener(AutomataListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Add a state at a position. Any transitions the state already has come with it.
+     * @param state
+     * @param position
+     */
+    public void addState(State state, SerializablePoint2D position) {
+        state.markModified(); // Newer than the stamp of any state removed before, see getVersion()
+        states.put(state, position);
+        fire(AutomataEvent.Type.STATE_ADDED, state, null, position);
+    }
+    
+    /**
+     * Remove a state and the transitions of the other states that lead into it. The state keeps its own transitions.
+     * @param state
+     * @return SerializablePoint2D the position the state had
+     */
+    public SerializablePoint2D removeState(State state) {
+        removeTransitionsTo(state);
+        SerializablePoint2D position = states.remove(state);
+        fire(AutomataEvent.Type.STATE_REMOVED, state, null, position);
+        return position;
+    }
+    
+    /**
+     * Remove the transitions of the other states that lead into the state.
+     * @param target
+     * @return List<Transition> the transitions removed
+     */
+    public List<Transition> removeTransitionsTo(State target) {
+        List<Transition> removed = new ArrayList<>();
+        for (State state : states.keySet()) {
+            if (state != target) {
+                removed.addAll(state.getTransitionsTo(target));
+            }
+        }
+        for (Transition transition : removed) {
+            removeTransition(transition);
+        }
+        return removed;
+    }
+    
+    public void moveState(State state, SerializablePoint2D position) {
+        states.put(state, position);
+        fire(AutomataEvent.Type.STATE_MOVED, state, null, position);
+    }
+    
+    public void renameState(State state, String name) {
+        state.updateName(name);
+        fire(AutomataEvent.Type.STATE_CHANGED, state, null, null);
+    }
+    
+    public void setAcceptingState(State state, boolean isAccepting) {
+        state.setAcceptingState(isAccepting);
+        fire(AutomataEvent.Type.STATE_CHANGED, state, null, null);
+    }
+    
+    public void setStartingState(State state, boolean isStarting) {
+        state.setStartingState(isStarting);
+        fire(AutomataEvent.Type.STATE_CHANGED, state, null, null);
+    }
+    
+    public void toggleDiscarded(State state) {
+        state.toggleDiscarded();
+        fire(AutomataEvent.Type.STATE_CHANGED, state, null, null);
+    }
+    
+    /**
+     * Add a transition to its source state.
+     * @param transition
+     */
+    public void addTransition(Transition transition) {
+        transition.getSourceState().addTransition(transition);
+        fire(AutomataEvent.Type.TRANSITION_ADDED, null, transition, null);
+    }
+    
+    public void removeTransition(Transition transition) {
+        transition.getSourceState().removeTransition(transition);
+        fire(AutomataEvent.Type.TRANSITION_REMOVED, null, transition, null);
+    }
+    
+    public void updateTransitionSymbol(Transition transition, String symbol) {
+        transition.updateTransitionSymbol(symbol);
+        fire(AutomataEvent.Type.TRANSITION_CHANGED, null, transition, null);
+    }
+    
+    public void setTransitionTarget(Transition transition, State target) {
+        transition.setTargetState(target);
+        fire(AutomataEvent.Type.TRANSITION_CHANGED, null, transition, null);
+    }
+    
+    private void fire(AutomataEvent.Type type, State state, Transition transition, SerializablePoint2D position) {
+        if (type != AutomataEvent.Type.STATE_MOVED) {
+            bumpVersion();
+        }
+        if (listeners.isEmpty()) {
+            return;
+        }
+        AutomataEvent event = new AutomataEvent(this, type, state, transition, position);
+        for (AutomataListener listener : listeners) {
+            listener.automataChanged(event);
+        }
     }
 
     public Set<String> getAlphabet() {
@@ -135,6 +263,7 @@ public class Automata {
         }
         
         isValid();
+        fire(AutomataEvent.Type.ALPHABET_CHANGED, null, null, null);
     }
 
     public State getStartingState() {
@@ -143,9 +272,70 @@ public class Automata {
 
     public void setStartingState(State startingState) {
         this.startingState = startingState;
+        bumpVersion();
         isValid();
     }
 
+    /**
+     * Find the starting state by its flag, falling back to the explicitly set starting state.
+     * The controllers toggle the flag on the state itself, so this is the one to use outside the UI.
+     * @return State or null if there is no starting state
+     */
+    public State findStartingState() {
+        for (State state : states.keySet()) {
+            if (state.isStartingState()) {
+                return state;
+            }
+        }
+        return startingState;
+    }
+
+    /**
+     * Get the version of the automaton. It changes whenever states, transitions, flags or the alphabet are changed,
+     * but not when a state is moved. Changes made on the states themselves, or through another Automata sharing
+     * the same states, are found from the stamps of the states: with the same number of states, any change since
+     * the last call raises their sum, as added states are stamped after every state removed.
+     * @return long
+     */
+    public synchronized long getVersion() {
+        long stampSum = 0;
+        for (State state : states.keySet()) {
+            stampSum += state.getStamp();
+        }
+        if (states.size() != seenSize || stampSum != seenStamps) {
+            seenSize = states.size();
+            seenStamps = stampSum;
+            version++;
+        }
+        return version;
+    }
+    
+    /**
+     * Note a change made to the states through another Automata sharing them, so analyses cached for this one
+     * are worked out again.
+     */
+    public void markChanged() {
+        bumpVersion();
+    }
+    
+    private synchronized void bumpVersion() {
+        version++;
+    }
+
+    /**
+     * Get the ε-closures of all states. The result is cached and only recomputed
+     * once the version of the automaton has changed.
+     * @return EpsilonClosure
+     */
+    public EpsilonClosure getEpsilonClosure() {
+        EpsilonClosure closure = epsilonClosure;
+        if (closure == null || !closure.isCurrent(this)) {
+            closure = EpsilonClosure.compute(this);
+            epsilonClosure = closure;
+        }
+        return closure;
+    }
+
     public Set<State> getAcceptingStates() {
         acceptingStates.clear();
         
@@ -193,6 +383,8 @@ public class Automata {
         alphabet.clear();
         acceptingStates.clear();
         startingState = null;
+        epsilonClosure = null;
         isValid = false;
+        fire(AutomataEvent.Type.RESET, null, null, null);
     }
 }
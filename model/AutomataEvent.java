@@ -0,0 +1,60 @@
+package model;
+
+import components.serialization.SerializablePoint2D;
+
+/*
+ * AutomataEvent: One change to an automaton. Which of the state, transition and position are set depends on the type.
+ */
+public final class AutomataEvent {
+    public enum Type {
+        STATE_ADDED,        // state and position; the state may already have outgoing transitions
+        STATE_REMOVED,      // state; the transitions into it have been removed first, each with its own event
+        STATE_CHANGED,      // state; its name or one of its flags changed
+        STATE_MOVED,        // state and position
+        TRANSITION_ADDED,   // transition
+        TRANSITION_REMOVED, // transition
+        TRANSITION_CHANGED, // transition; its symbol or target changed
+        ALPHABET_CHANGED,
+        RESET               // the states were replaced or cleared, anything derived from them must be rebuilt
+    }
+
+    private final Automata automata;
+    private final Type type;
+    private final State state;
+    private final Transition transition;
+    private final SerializablePoint2D position;
+
+    // Constructor
+    AutomataEvent(Automata automata, Type type, State state, Transition transition, SerializablePoint2D position) {
+        this.automata = automata;
+        this.type = type;
+        this.state = state;
+        this.transition = transition;
+        this.position = position;
+    }
+
+    public Automata getAutomata() {
+        return automata;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Transition getTransition() {
+        return transition;
+    }
+
+    public SerializablePoint2D getPosition() {
+        return position;
+    }
+
+    @Override
+    public String toString() {
+        return type + (state != null ? " " + state : "") + (transition != null ? " " + transition : "");
+    }
+}
@@ -0,0 +1,13 @@
+package model;
+
+/*
+ * AutomataListener: Told about every change made through the methods of an Automata, so views can update
+ * only what changed instead of rebuilding everything.
+ */
+public interface AutomataListener {
+    /**
+     * Called after the change has been made.
+     * @param event
+     */
+    void automataChanged(AutomataEvent event);
+}
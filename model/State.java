@@ -1,9 +1,19 @@
 package model;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 import java.util.Set;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import components.SpecialSymbols;
@@ -14,22 +24,55 @@ import components.SpecialSymbols;
 public class State implements Serializable {
     private static final long serialVersionUID = 1L; // Required for serializable objects
     
+    // Next free id, shared by all states so ids never collide within an automaton
+    private static int nextId = 1;
+    
+    // Source of change stamps. A stamp is newer than every stamp handed out before it, see Automata.getVersion().
+    private static final AtomicLong stamps = new AtomicLong();
+    
+    private int id;
     private String name;
     private boolean isAcceptingState;
     private boolean isStartingState;
     private Set<Transition> transitions;
     
+    // Outgoing transitions indexed by symbol and by target state, rebuilt lazily after loading
+    private transient Map<String, List<Transition>> transitionsBySymbol;
+    private transient Map<State, List<Transition>> transitionsByTarget;
+    
     private boolean isDiscarded;
     
+    // Set on every change to the state or its outgoing transitions
+    private transient volatile long stamp = stamps.incrementAndGet();
+    
     // Constructor
     public State(String name) {
+        this(nextId(), name);
+    }
+    
+    /**
+     * Create a state with a known id, e.g. when loading a saved automaton.
+     * Later states are given ids above it.
+     * @param id
+     * @param name
+     */
+    public State(int id, String name) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("State ids must be positive.");
+        }
+        reserveId(id);
+        this.id = id;
         this.name = name;
         isAcceptingState = false;
         isStartingState = false;
-        transitions = new HashSet<>();
+        transitions = new LinkedHashSet<>();
         isDiscarded = false;
     }
     
+    public int getId() {
+        return id;
+    }
+    
     public String getName() {
         return name;
     }
@@ -40,10 +83,12 @@ public class State implements Serializable {
     
     public void setAcceptingState(boolean acceptingState) {
         isAcceptingState = acceptingState;
+        markModified();
     }
     
     public void setStartingState(boolean startingState) {
         isStartingState = startingState;
+        markModified();
     }
     
     public boolean isStartingState() {
@@ -52,18 +97,43 @@ public class State implements Serializable {
     
     public void updateName(String name) {
         this.name = name;
+        markModified();
     }
     
     public void toggleAcceptingState() {
         isAcceptingState = !isAcceptingState;
+        markModified();
     }
     
     public void toggleStartingState() {
         isStartingState = !isStartingState;
+        markModified();
     }
     
+    /**
+     * Get a read-only view of the outgoing transitions. Use addTransition and removeTransition to change them.
+     * @return Set<Transition>
+     */
     public Set<Transition> getTransitions() {
-        return transitions;
+        return Collections.unmodifiableSet(transitions);
+    }
+    
+    /**
+     * Get the outgoing transitions with the given symbol, in the order they were added.
+     * @param symbol
+     * @return List<Transition>
+     */
+    public List<Transition> getTransitionsBySymbol(String symbol) {
+        return Collections.unmodifiableList(indexBySymbol().getOrDefault(symbol, Collections.emptyList()));
+    }
+    
+    /**
+     * Get the outgoing transitions to the given target state, in the order they were added.
+     * @param targetState
+     * @return List<Transition>
+     */
+    public List<Transition> getTransitionsTo(State targetState) {
+        return Collections.unmodifiableList(indexByTarget().getOrDefault(targetState, Collections.emptyList()));
     }
     
     /**
@@ -72,12 +142,8 @@ public class State implements Serializable {
      * @return Transition
      */
     public Transition getTransitionBySymbol(String symbol) {
-        for (Transition transition : transitions) {
-            if (transition.getTransitionSymbol().equals(symbol)) {
-                return transition;
-            }
-        }
-        return null;
+        List<Transition> matches = indexBySymbol().get(symbol);
+        return matches == null ? null : matches.get(0);
     }
     
     /**
@@ -86,12 +152,8 @@ public class State implements Serializable {
      * @return String
      */
     public String getTransitionSymbolToTargetState(State targetState) {
-        for (Transition transition : transitions) {
-            if (transition.getTargetState().equals(targetState)) {
-                return transition.getTransitionSymbol();
-            }
-        }
-        return null;
+        List<Transition> matches = indexByTarget().get(targetState);
+        return matches == null ? null : matches.get(0).getTransitionSymbol();
     }
     
     /**
@@ -102,35 +164,41 @@ public class State implements Serializable {
      */
     public Map<Set<Transition>, String> getMultipleTransitionsToTarget(State targetState) {
         Set<Transition> multipleTransitions = new HashSet<>();
-        String mergedSymbols = "";
-        for (Transition transition : transitions) {
-            if (transition.getTargetState().equals(targetState)) {
-                multipleTransitions.add(transition);
-                mergedSymbols += transition.getTransitionSymbol();
-            }
+        StringBuilder mergedSymbols = new StringBuilder();
+        for (Transition transition : getTransitionsTo(targetState)) {
+            multipleTransitions.add(transition);
+            mergedSymbols.append(transition.getTransitionSymbol());
         }
         
         Map<Set<Transition>, String> result = new HashMap<>();
-        result.put(multipleTransitions, mergedSymbols);
+        result.put(multipleTransitions, mergedSymbols.toString());
         return result;
     }
     
     /**
      * For a given state, find its epsilon closure. I.e. the set of states that can be reached from the state using epsilon transitions.
+     * States already in visited are skipped. The traversal is iterative so long epsilon chains cannot overflow the stack.
+     * For repeated queries on a whole automaton use Automata.getEpsilonClosure() instead.
      * @param state
+     * @param visited
      * @return Set<State>
      */
     public static Set<State> epsilonClosure(State state, Set<State> visited) {
         Set<State> closure = new HashSet<>();
-        if (visited.contains(state)) {
-            return closure;
+        Deque<State> worklist = new ArrayDeque<>();
+        
+        if (visited.add(state)) {
+            worklist.push(state);
         }
-        visited.add(state); 
-        closure.add(state);
         
-        for (Transition transition : state.getTransitions()) {
-            if (transition.getTransitionSymbol().equals(SpecialSymbols.EPSILON.toString())) {
-                closure.addAll(epsilonClosure(transition.getTargetState(), visited));
+        while (!worklist.isEmpty()) {
+            State current = worklist.pop();
+            closure.add(current);
+            
+            for (Transition transition : current.getTransitionsBySymbol(SpecialSymbols.EPSILON.toString())) {
+                if (visited.add(transition.getTargetState())) {
+                    worklist.push(transition.getTargetState());
+                }
             }
         }
         return closure;
@@ -142,15 +210,11 @@ public class State implements Serializable {
      * @return Set<State>
      */
     public Set<State> getNextStatesFromSymbol(String symbol) {
-        Set<State> nextStates = new HashSet<>();
-        for (Transition transition : transitions) {
-            if (transition.getTransitionSymbol().equals(symbol)) {
-                nextStates.add(transition.getTargetState());
-            }
-            else if (transition.getTransitionSymbol().equals(SpecialSymbols.EPSILON.toString())) {
-                nextStates.add(transition.getTargetState());
-                nextStates.addAll(epsilonClosure(transition.getTargetState(), new HashSet<>()));
-            }
+        Set<State> nextStates = getNonEpsilonNextStatesFromSymbol(symbol);
+        Set<State> visited = new HashSet<>();
+        for (Transition transition : getTransitionsBySymbol(SpecialSymbols.EPSILON.toString())) {
+            nextStates.add(transition.getTargetState());
+            nextStates.addAll(epsilonClosure(transition.getTargetState(), visited));
         }
         return nextStates;
     }
@@ -163,10 +227,8 @@ public class State implements Serializable {
      */
     public Set<State> getNonEpsilonNextStatesFromSymbol(String symbol) {
         Set<State> nextStates = new HashSet<>();
-        for (Transition transition : transitions) {
-            if (transition.getTransitionSymbol().equals(symbol)) {
-                nextStates.add(transition.getTargetState());
-            }
+        for (Transition transition : getTransitionsBySymbol(symbol)) {
+            nextStates.add(transition.getTargetState());
         }
         return nextStates;
     }
@@ -177,24 +239,26 @@ public class State implements Serializable {
      * @return State
      */
     public State getNextStateFromSymbol(String symbol) {
-        for (Transition transition : transitions) {
-            if (transition.getTransitionSymbol().equals(symbol)) {
-                return transition.getTargetState();
-            }
-        }
-        return null;
+        Transition transition = getTransitionBySymbol(symbol);
+        return transition == null ? null : transition.getTargetState();
     }
     
     public void addTransition(State toState, String symbol) {
-        transitions.add(new Transition(this, toState, symbol));
+        addTransition(new Transition(this, toState, symbol));
     }
     
     public void addTransition(Transition transition) {
-        transitions.add(transition);
+        if (transitions.add(transition) && transitionsBySymbol != null) {
+            index(transition, transition.getTransitionSymbol(), transition.getTargetState());
+        }
+        markModified();
     }
     
     public void removeTransition(Transition transition) {
-        transitions.remove(transition);
+        if (transitions.remove(transition) && transitionsBySymbol != null) {
+            unindex(transition, transition.getTransitionSymbol(), transition.getTargetState());
+        }
+        markModified();
     }
     
     public void updateTransition(Transition transition, String newSymbol) {
@@ -203,6 +267,62 @@ public class State implements Serializable {
     
     public void clearTransitions() {
         transitions.clear();
+        transitionsBySymbol = null;
+        transitionsByTarget = null;
+        markModified();
+    }
+    
+    /**
+     * Move a transition of this state to its new place in the index after its symbol or target changed.
+     * Called by the Transition setters.
+     * @param transition
+     * @param oldSymbol
+     * @param oldTarget
+     */
+    void reindexTransition(Transition transition, String oldSymbol, State oldTarget) {
+        if (transitionsBySymbol != null && transitions.contains(transition)) {
+            unindex(transition, oldSymbol, oldTarget);
+            index(transition, transition.getTransitionSymbol(), transition.getTargetState());
+        }
+    }
+    
+    private Map<String, List<Transition>> indexBySymbol() {
+        if (transitionsBySymbol == null) {
+            buildIndex();
+        }
+        return transitionsBySymbol;
+    }
+    
+    private Map<State, List<Transition>> indexByTarget() {
+        if (transitionsByTarget == null) {
+            buildIndex();
+        }
+        return transitionsByTarget;
+    }
+    
+    private void buildIndex() {
+        transitionsBySymbol = new LinkedHashMap<>();
+        transitionsByTarget = new LinkedHashMap<>();
+        for (Transition transition : transitions) {
+            index(transition, transition.getTransitionSymbol(), transition.getTargetState());
+        }
+    }
+    
+    private void index(Transition transition, String symbol, State target) {
+        transitionsBySymbol.computeIfAbsent(symbol, key -> new ArrayList<>(1)).add(transition);
+        transitionsByTarget.computeIfAbsent(target, key -> new ArrayList<>(1)).add(transition);
+    }
+    
+    private void unindex(Transition transition, String symbol, State target) {
+        removeFromIndex(transitionsBySymbol, symbol, transition);
+        removeFromIndex(transitionsByTarget, target, transition);
+    }
+    
+    private static <K> void removeFromIndex(Map<K, List<Transition>> index, K key, Transition transition) {
+        List<Transition> matches = index.get(key);
+        if (matches != null && matches.remove(transition) && matches.isEmpty()) {
+            index.remove(key);
+        }
     }
     
     @Override
@@ -216,48 +336,83 @@ public class State implements Serializable {
     
     public void toggleDiscarded() {
         isDiscarded = !isDiscarded;
+        markModified();
     }
     
     /**
-     * Check if the current state object is equal to another state object.
-     * @param state
+     * Get the stamp of the last change to the state or its outgoing transitions.
+     * @return long
+     */
+    long getStamp() {
+        return stamp;
+    }
+    
+    void markModified() {
+        stamp = stamps.incrementAndGet();
+    }
+    
+    /**
+     * Two states are equal only if they are the same object. Use structurallyEquals to compare their contents.
+     * @param obj
      * @return boolean
      */
     @Override
     public boolean equals(Object obj) {
-        State state = (State) obj;
+        return this == obj;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(id);
+    }
+    
+    /**
+     * Check if another state has the same name and flags, and has every transition of this state,
+     * where transitions are compared by their symbol and the names of their source and target states.
+     * Used to grade a user's conversion against the expected one.
+     * @param state
+     * @return boolean
+     */
+    public boolean structurallyEquals(State state) {
+        if (state == null || !name.equals(state.getName())) {
+            return false;
+        }
         
-        if (!this.name.equals(state.getName())) {
+        if (isAcceptingState != state.isAcceptingState() || isStartingState != state.isStartingState() || isDiscarded != state.isDiscarded()) {
             return false;
         }
         
-        // Compare transitions
+        Set<List<String>> otherTransitions = new HashSet<>();
+        for (Transition otherTransition : state.transitions) {
+            otherTransitions.add(otherTransition.structuralKey());
+        }
         for (Transition transition : transitions) {
-            boolean found = false;
-            for (Transition otherTransition : state.getTransitions()) {
-                if (transition.equals(otherTransition)) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
+            if (!otherTransitions.contains(transition.structuralKey())) {
                 return false;
             }
         }
-        
-        if (isAcceptingState != state.isAcceptingState()) {
-            return false;
-        }
-        
-        if (isStartingState != state.isStartingState()) {
-            return false;
+        return true;
+    }
+    
+    private static synchronized int nextId() {
+        return nextId++;
+    }
+    
+    private static synchronized void reserveId(int id) {
+        if (id >= nextId) {
+            nextId = id + 1;
         }
-        
-        if (isDiscarded != state.isDiscarded()) {
-            return false;
+    }
+    
+    // Files saved before states had ids load with an id of 0, so give them a fresh one
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        stamp = stamps.incrementAndGet();
+        if (id <= 0) {
+            id = nextId();
+        } else {
+            reserveId(id);
         }
-        
-        return true;
     }
 
     private void setDiscarded(boolean isDiscarded) {
@@ -274,7 +429,8 @@ public class State implements Serializable {
         copy.setStartingState(isStartingState);
         copy.setDiscarded(isDiscarded);
         for (Transition transition : transitions) {
-            copy.addTransition(transition.copy());
+            State target = transition.getTargetState() == this ? copy : transition.getTargetState();
+            copy.addTransition(new Transition(copy, target, transition.getTransitionSymbol()));
         }
         return copy;
     }
@@ -1,23 +1,51 @@
 package model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.List;
 /*
  * Transition: Represents a transition between two states in an automaton.
  */
 public class Transition implements Serializable {
     private static final long serialVersionUID = 1L;
     
+    // Next free id, shared by all transitions so ids never collide within an automaton
+    private static int nextId = 1;
+    
+    private int id;
     private State sourceState;
     private String transitionSymbol;
     private State nextState;
 
     // Constructor
     public Transition(State sourceState, State targetState, String transitionSymbol) {
+        this(nextId(), sourceState, targetState, transitionSymbol);
+    }
+    
+    /**
+     * Create a transition with a known id, e.g. when loading a saved automaton.
+     * Later transitions are given ids above it.
+     * @param id
+     * @param sourceState
+     * @param targetState
+     * @param transitionSymbol
+     */
+    public Transition(int id, State sourceState, State targetState, String transitionSymbol) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Transition ids must be positive.");
+        }
+        reserveId(id);
+        this.id = id;
         this.sourceState = sourceState;
         this.transitionSymbol = transitionSymbol;
         this.nextState = targetState;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public State getSourceState() {
         return sourceState;
     }
@@ -31,15 +59,31 @@ public class Transition implements Serializable {
     }
 
     public void updateTransitionSymbol(String symbol) {
+        String oldSymbol = transitionSymbol;
         this.transitionSymbol = symbol;
+        if (sourceState != null) {
+            sourceState.reindexTransition(this, oldSymbol, nextState);
+            sourceState.markModified();
+        }
     }
 
     public void setTargetState(State targetState) {
+        State oldTarget = nextState;
         this.nextState = targetState;
+        if (sourceState != null) {
+            sourceState.reindexTransition(this, transitionSymbol, oldTarget);
+            sourceState.markModified();
+        }
     }
 
     public void setSourceState(State sourceState) {
+        if (this.sourceState != null) {
+            this.sourceState.markModified();
+        }
         this.sourceState = sourceState;
+        if (sourceState != null) {
+            sourceState.markModified();
+        }
     }
 
     public Transition copy() {
@@ -51,9 +95,51 @@ public class Transition implements Serializable {
         return sourceState.getName() + " -> " + transitionSymbol + " -> " + nextState.getName();
     }
 
+    /**
+     * Two transitions are equal only if they are the same object. Use structurallyEquals to compare their contents.
+     * @param obj
+     * @return boolean
+     */
     @Override
     public boolean equals(Object obj) {
-        Transition transition = (Transition) obj;
-        return this.sourceState.getName().equals(transition.getSourceState().getName()) && this.transitionSymbol.equals(transition.getTransitionSymbol()) && this.nextState.getName().equals(transition.getTargetState().getName());
+        return this == obj;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(id);
+    }
+
+    /**
+     * Check if another transition has the same symbol and connects states with the same names.
+     * @param transition
+     * @return boolean
+     */
+    public boolean structurallyEquals(Transition transition) {
+        return transition != null && structuralKey().equals(transition.structuralKey());
+    }
+
+    List<String> structuralKey() {
+        return List.of(sourceState.getName(), transitionSymbol, nextState.getName());
+    }
+
+    private static synchronized int nextId() {
+        return nextId++;
+    }
+
+    private static synchronized void reserveId(int id) {
+        if (id >= nextId) {
+            nextId = id + 1;
+        }
+    }
+
+    // Files saved before transitions had ids load with an id of 0, so give them a fresh one
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (id <= 0) {
+            id = nextId();
+        } else {
+            reserveId(id);
+        }
     }
 }
@@ -0,0 +1,195 @@
+package model.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import components.SpecialSymbols;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+/*
+ * AcceptanceEngine: Answers membership queries on an automaton without any UI. A deterministic automaton is
+ * compiled to a CompiledDFA; anything else runs on a LazyDFA over its BitParallelNFA, one per thread,
+ * so an engine can be shared between threads. An engine is a snapshot of the automaton it was compiled from.
+ */
+public final class AcceptanceEngine {
+    private final Automata automata;
+    private final long version;
+
+    private final CompiledDFA dfa;
+    private final BitParallelNFA nfa;
+    private final ThreadLocal<LazyDFA> lazyDFA;
+
+    // Constructor
+    private AcceptanceEngine(Automata automata) {
+        this.automata = automata;
+        this.version = automata.getVersion();
+
+        if (automata.findStartingState() == null) {
+            throw new IllegalArgumentException("The automaton has no starting state.");
+        }
+
+        if (isDeterministic(automata)) {
+            this.dfa = CompiledDFA.compile(automata);
+            this.nfa = null;
+            this.lazyDFA = null;
+        } else {
+            this.dfa = null;
+            this.nfa = BitParallelNFA.compile(automata);
+            this.lazyDFA = ThreadLocal.withInitial(() -> new LazyDFA(nfa, LazyDFA.DEFAULT_MEMORY_LIMIT));
+        }
+    }
+
+    /**
+     * Compile the automaton with the fastest matcher that supports it.
+     * @param automata
+     * @return AcceptanceEngine
+     * @throws IllegalArgumentException if the automaton has no starting state
+     */
+    public static AcceptanceEngine compile(Automata automata) {
+        return new AcceptanceEngine(automata);
+    }
+
+    /**
+     * Check whether the word is accepted. Characters outside the alphabet reject the word.
+     * @param word
+     * @return boolean
+     */
+    public boolean accepts(CharSequence word) {
+        return dfa != null ? dfa.accepts(word) : lazyDFA.get().accepts(word);
+    }
+
+    /**
+     * Run the word and describe the outcome.
+     * @param word
+     * @return Result
+     */
+    public Result evaluate(String word) {
+        if (dfa != null) {
+            int state = dfa.getStartState();
+            int steps = 0;
+            for (; steps < word.length(); steps++) {
+                int symbol = dfa.getSymbols().idOf(word.charAt(steps));
+                int next = symbol == SymbolTable.NO_SYMBOL ? DFAMatcher.DEAD_STATE : dfa.step(state, symbol);
+                if (next == DFAMatcher.DEAD_STATE) {
+                    return new Result(word, false, Collections.emptySet(), steps);
+                }
+                state = next;
+            }
+            return new Result(word, dfa.isAccepting(state), Collections.singleton(dfa.stateAt(state)), steps);
+        }
+
+        LazyDFA lazy = lazyDFA.get();
+        int state = lazy.getStartState();
+        int steps = 0;
+        for (; steps < word.length(); steps++) {
+            int symbol = nfa.getSymbols().idOf(word.charAt(steps));
+            int next = symbol == SymbolTable.NO_SYMBOL ? DFAMatcher.DEAD_STATE : lazy.step(state, symbol);
+            if (next == DFAMatcher.DEAD_STATE) {
+                return new Result(word, false, Collections.emptySet(), steps);
+            }
+            state = next;
+        }
+        return new Result(word, lazy.isAccepting(state), Collections.unmodifiableSet(lazy.toStates(state)), steps);
+    }
+
+    /**
+     * Run every word in turn.
+     * @param words
+     * @return List<Result> in the order of the words
+     */
+    public List<Result> acceptsAll(Iterable<String> words) {
+        List<Result> results = new ArrayList<>();
+        for (String word : words) {
+            results.add(evaluate(word));
+        }
+        return results;
+    }
+
+    /**
+     * Check if this engine still describes the automaton, i.e. its version has not changed since it was compiled.
+     * @param automata
+     * @return boolean
+     */
+    public boolean isCurrent(Automata automata) {
+        return automata == this.automata && automata.getVersion() == version;
+    }
+
+    /**
+     * Check if the automaton was compiled to a DFA table rather than run as an NFA.
+     * @return boolean
+     */
+    public boolean isDeterministic() {
+        return dfa != null;
+    }
+
+    public SymbolTable getSymbols() {
+        return dfa != null ? dfa.getSymbols() : nfa.getSymbols();
+    }
+
+    // Deterministic means no ε-transitions and at most one transition per symbol out of each state
+    static boolean isDeterministic(Automata automata) {
+        String epsilon = SpecialSymbols.EPSILON.toString();
+        for (State state : automata.getStates().keySet()) {
+            Set<String> symbols = new HashSet<>();
+            for (Transition transition : state.getTransitions()) {
+                if (transition.getTransitionSymbol().equals(epsilon) || !symbols.add(transition.getTransitionSymbol())
+                    || !automata.getStates().containsKey(transition.getTargetState())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Result: The outcome of running one word.
+     */
+    public static final class Result {
+        private final String word;
+        private final boolean isAccepted;
+        private final Set<State> finalStates;
+        private final int steps;
+
+        // Constructor
+        private Result(String word, boolean isAccepted, Set<State> finalStates, int steps) {
+            this.word = word;
+            this.isAccepted = isAccepted;
+            this.finalStates = finalStates;
+            this.steps = steps;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public boolean isAccepted() {
+            return isAccepted;
+        }
+
+        /**
+         * Get the states active once the run ended. The set is empty if the run got stuck before the end of the word.
+         * @return Set<State>
+         */
+        public Set<State> getFinalStates() {
+            return finalStates;
+        }
+
+        /**
+         * Get the number of input symbols read, which is less than the word length if the run got stuck.
+         * @return int
+         */
+        public int getSteps() {
+            return steps;
+        }
+
+        @Override
+        public String toString() {
+            return word + ": " + (isAccepted ? "Accepted" : "Rejected") + " after " + steps + " steps in " + finalStates;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package model.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import components.SpecialSymbols;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+/*
+ * AcceptingPathFinder: Finds accepting paths for a word through an NFA by searching the graph of
+ * (state, input position) pairs. ε-transitions stay at the same position and symbol transitions move one on,
+ * so the graph has (|w| + 1)·n nodes and every search over it is O(|w|·|E|).
+ * A path ends at the first accepting state reached once the whole word has been read.
+ */
+public final class AcceptingPathFinder {
+    private static final int NONE = -1;
+
+    private final SymbolTable symbols;
+    private final State[] states;
+    private final int start;
+    private final boolean[] accepting;
+    private final int[][] epsilonTargets;
+    private final int[][] epsilonSources;
+    // Targets of state q on symbol a are symbolTargets[q * numSymbols + a]
+    private final int[][] symbolTargets;
+    private final int numSymbols;
+
+    // Constructor
+    private AcceptingPathFinder(Automata automata) {
+        State startingState = automata.findStartingState();
+        if (startingState == null) {
+            throw new IllegalArgumentException("The automaton has no starting state.");
+        }
+
+        this.symbols = SymbolTable.fromAutomata(automata);
+        this.numSymbols = symbols.size();
+        this.states = automata.getStates().keySet().toArray(new State[0]);
+        Map<State, Integer> stateIds = new HashMap<>();
+        for (int i = 0; i < states.length; i++) {
+            stateIds.put(states[i], i);
+        }
+        Integer startId = stateIds.get(startingState);
+        if (startId == null) {
+            throw new IllegalArgumentException("The starting state '" + startingState + "' is not part of the automaton.");
+        }
+        this.start = startId;
+
+        String epsilon = SpecialSymbols.EPSILON.toString();
+        List<List<Integer>> epsilonOut = new ArrayList<>();
+        List<List<Integer>> epsilonIn = new ArrayList<>();
+        List<List<Integer>> symbolOut = new ArrayList<>();
+        for (int i = 0; i < states.length; i++) {
+            epsilonOut.add(new ArrayList<>());
+            epsilonIn.add(new ArrayList<>());
+        }
+        for (int i = 0; i < states.length * numSymbols; i++) {
+            symbolOut.add(new ArrayList<>());
+        }
+
+        this.accepting = new boolean[states.length];
+        for (int source = 0; source < states.length; source++) {
+            accepting[source] = states[source].isAcceptingState();
+            for (Transition transition : states[source].getTransitions()) {
+                Integer target = stateIds.get(transition.getTargetState());
+                if (target == null) {
+                    continue;
+                }
+                if (transition.getTransitionSymbol().equals(epsilon)) {
+                    epsilonOut.get(source).add(target);
+                    epsilonIn.get(target).add(source);
+                } else {
+                    int symbol = symbols.idOf(transition.getTransitionSymbol());
+                    if (symbol != SymbolTable.NO_SYMBOL) {
+                        symbolOut.get(source * numSymbols + symbol).add(target);
+                    }
+                }
+            }
+        }
+
+        this.epsilonTargets = toArrays(epsilonOut);
+        this.epsilonSources = toArrays(epsilonIn);
+        this.symbolTargets = toArrays(symbolOut);
+    }
+
+    /**
+     * Index the states and transitions of the automaton for path searches.
+     * @param automata
+     * @return AcceptingPathFinder
+     * @throws IllegalArgumentException if the automaton has no starting state
+     */
+    public static AcceptingPathFinder compile(Automata automata) {
+        return new AcceptingPathFinder(automata);
+    }
+
+    /**
+     * Find a path with the fewest transitions that reads the whole word and ends in an accepting state.
+     * @param word
+     * @return List<State> the states along the path, or null if the word is not accepted
+     */
+    public List<State> findShortestPath(String word) {
+        int[] symbolIds = toSymbolIds(word);
+        if (symbolIds == null) {
+            return null;
+        }
+
+        int n = states.length;
+        int[] parent = new int[(symbolIds.length + 1) * n];
+        Arrays.fill(parent, NONE);
+        int[] queue = new int[parent.length];
+        int head = 0;
+        int tail = 0;
+
+        int startNode = start;
+        parent[startNode] = startNode;
+        queue[tail++] = startNode;
+
+        while (head < tail) {
+            int node = queue[head++];
+            int state = node % n;
+            int position = node / n;
+
+            if (position == symbolIds.length && accepting[state]) {
+                return toPath(parent, node);
+            }
+
+            for (int target : epsilonTargets[state]) {
+                int next = position * n + target;
+                if (parent[next] == NONE) {
+                    parent[next] = node;
+                    queue[tail++] = next;
+                }
+            }
+            if (position < symbolIds.length) {
+                for (int target : symbolTargets[state * numSymbols + symbolIds[position]]) {
+                    int next = (position + 1) * n + target;
+                    if (parent[next] == NONE) {
+                        parent[next] = node;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the states from which an accepting state can still be reached by reading the rest of the word,
+     * from the position on. A run that moves into any other state at that position cannot accept the word.
+     * @param word
+     * @param position
+     * @return Set<State>, empty if the rest of the word has a symbol outside the alphabet
+     */
+    public Set<State> findLiveStates(String word, int position) {
+        Set<State> live = new HashSet<>();
+        int[] symbolIds = toSymbolIds(word.substring(Math.min(position, word.length())));
+        if (symbolIds == null) {
+            return live;
+        }
+        boolean[] canFinish = findCoReachable(symbolIds);
+        for (int state = 0; state < states.length; state++) {
+            if (canFinish[state]) {
+                live.add(states[state]);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Find up to limit distinct accepting paths for the word, shortest first. Paths never visit the same
+     * (state, position) pair twice, so ε-cycles cannot make them infinite. The search only enters pairs from
+     * which the end of an accepting path is still reachable, so it does not wander into dead ends.
+     * @param word
+     * @param limit
+     * @return List<List<State>>
+     */
+    public List<List<State>> findPaths(String word, int limit) {
+        List<List<State>> paths = new ArrayList<>();
+        int[] symbolIds = toSymbolIds(word);
+        if (symbolIds == null || limit <= 0) {
+            return paths;
+        }
+
+        int n = states.length;
+        boolean[] canFinish = findCoReachable(symbolIds);
+        if (!canFinish[start]) {
+            return paths;
+        }
+
+        // Depth first over the pruned graph with an explicit stack; cursor counts the edges tried from a node
+        boolean[] onPath = new boolean[canFinish.length];
+        int[] pathNodes = new int[canFinish.length];
+        int[] cursor = new int[canFinish.length];
+        int depth = 0;
+        pathNodes[depth++] = start;
+        onPath[start] = true;
+
+        while (depth > 0 && paths.size() < limit) {
+            int node = pathNodes[depth - 1];
+            int state = node % n;
+            int position = node / n;
+
+            if (position == symbolIds.length && accepting[state] && cursor[node] == 0) {
+                List<State> path = new ArrayList<>(depth);
+                for (int i = 0; i < depth; i++) {
+                    path.add(states[pathNodes[i] % n]);
+                }
+                paths.add(path);
+                cursor[node] = Integer.MAX_VALUE; // A path ends at its first accepting end state
+            }
+
+            int next = nextEdge(node, state, position, symbolIds, canFinish, onPath, cursor);
+            if (next == NONE) {
+                onPath[node] = false;
+                cursor[node] = 0;
+                depth--;
+            } else {
+                onPath[next] = true;
+                pathNodes[depth++] = next;
+            }
+        }
+
+        paths.sort(Comparator.comparingInt(List::size));
+        return paths;
+    }
+
+    // Advance the cursor of the node to its next usable edge and return the target node
+    private int nextEdge(int node, int state, int position, int[] symbolIds, boolean[] canFinish, boolean[] onPath, int[] cursor) {
+        int n = states.length;
+        int[] epsilon = epsilonTargets[state];
+        int[] moves = position < symbolIds.length ? symbolTargets[state * numSymbols + symbolIds[position]] : new int[0];
+
+        while (cursor[node] < epsilon.length + moves.length) {
+            int edge = cursor[node]++;
+            int next = edge < epsilon.length
+                ? position * n + epsilon[edge]
+                : (position + 1) * n + moves[edge - epsilon.length];
+            if (canFinish[next] && !onPath[next]) {
+                return next;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Mark the (state, position) pairs from which an accepting state can be reached after reading the rest of the word.
+     * Positions are handled from the end backwards; within a position ε-transitions are followed in reverse.
+     * @param symbolIds
+     * @return boolean[]
+     */
+    private boolean[] findCoReachable(int[] symbolIds) {
+        int n = states.length;
+        boolean[] canFinish = new boolean[(symbolIds.length + 1) * n];
+        int[] worklist = new int[n];
+
+        for (int position = symbolIds.length; position >= 0; position--) {
+            int offset = position * n;
+            int size = 0;
+            for (int state = 0; state < n; state++) {
+                boolean finishes = position == symbolIds.length
+                    ? accepting[state]
+                    : anyMarked(symbolTargets[state * numSymbols + symbolIds[position]], canFinish, offset + n);
+                if (finishes) {
+                    canFinish[offset + state] = true;
+                    worklist[size++] = state;
+                }
+            }
+
+            while (size > 0) {
+                int state = worklist[--size];
+                for (int source : epsilonSources[state]) {
+                    if (!canFinish[offset + source]) {
+                        canFinish[offset + source] = true;
+                        worklist[size++] = source;
+                    }
+                }
+            }
+        }
+        return canFinish;
+    }
+
+    private static boolean anyMarked(int[] targets, boolean[] marks, int offset) {
+        for (int target : targets) {
+            if (marks[offset + target]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Map the word to symbol ids, or null if it has a character outside the alphabet
+    private int[] toSymbolIds(String word) {
+        int[] symbolIds = new int[word.length()];
+        for (int i = 0; i < word.length(); i++) {
+            symbolIds[i] = symbols.idOf(word.charAt(i));
+            if (symbolIds[i] == SymbolTable.NO_SYMBOL) {
+                return null;
+            }
+        }
+        return symbolIds;
+    }
+
+    private List<State> toPath(int[] parent, int node) {
+        List<State> path = new ArrayList<>();
+        while (true) {
+            path.add(states[node % states.length]);
+            if (parent[node] == node) {
+                break;
+            }
+            node = parent[node];
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private static int[][] toArrays(List<List<Integer>> lists) {
+        int[][] arrays = new int[lists.size()][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return arrays;
+    }
+}
@@ -0,0 +1,175 @@
+package model.engine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * BatchRunner: Tests a list of words against one AcceptanceEngine on all cores. The list is split into shards
+ * by a fork-join task, every worker reads the same compiled engine, and each verdict is written to the slot
+ * of its word, so the results come back in input order without any merging.
+ */
+public final class BatchRunner {
+    // Words handled by a single task before it stops splitting
+    private static final int SHARD_SIZE = 2048;
+
+    private final AcceptanceEngine engine;
+    private final ForkJoinPool pool;
+
+    // Constructor
+    public BatchRunner(AcceptanceEngine engine) {
+        this(engine, ForkJoinPool.commonPool());
+    }
+
+    // Constructor
+    public BatchRunner(AcceptanceEngine engine, ForkJoinPool pool) {
+        this.engine = engine;
+        this.pool = pool;
+    }
+
+    /**
+     * Test every word.
+     * @param words
+     * @return BatchResult
+     */
+    public BatchResult run(List<String> words) {
+        boolean[] accepted = new boolean[words.size()];
+        long start = System.nanoTime();
+        long symbols = pool.invoke(new ShardTask(words, accepted, 0, words.size()));
+        return new BatchResult(words, accepted, symbols, System.nanoTime() - start);
+    }
+
+    /**
+     * Test every word of the stream. The stream is read in full before the words are shared out.
+     * @param words
+     * @return BatchResult
+     */
+    public BatchResult run(Stream<String> words) {
+        return run(words.collect(Collectors.toList()));
+    }
+
+    /**
+     * Test every line of a UTF-8 text file as a word. An empty line is the empty word.
+     * @param file
+     * @return BatchResult
+     * @throws IOException
+     */
+    public BatchResult run(Path file) throws IOException {
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return run(lines);
+        }
+    }
+
+    public AcceptanceEngine getEngine() {
+        return engine;
+    }
+
+    /*
+     * ShardTask: Tests words[from, to), splitting in half while the range is larger than a shard.
+     * Returns the number of symbols in the range.
+     */
+    private final class ShardTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<String> words;
+        private final boolean[] accepted;
+        private final int from;
+        private final int to;
+
+        // Constructor
+        private ShardTask(List<String> words, boolean[] accepted, int from, int to) {
+            this.words = words;
+            this.accepted = accepted;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= SHARD_SIZE) {
+                long symbols = 0;
+                for (int i = from; i < to; i++) {
+                    String word = words.get(i);
+                    accepted[i] = engine.accepts(word);
+                    symbols += word.length();
+                }
+                return symbols;
+            }
+
+            int middle = (from + to) >>> 1;
+            ShardTask left = new ShardTask(words, accepted, from, middle);
+            left.fork();
+            long right = new ShardTask(words, accepted, middle, to).compute();
+            return right + left.join();
+        }
+    }
+
+    /*
+     * BatchResult: The verdicts of a batch in input order, with the throughput of the run.
+     */
+    public static final class BatchResult {
+        private final List<String> words;
+        private final boolean[] accepted;
+        private final long symbols;
+        private final long elapsedNanos;
+        private final int acceptedCount;
+
+        // Constructor
+        private BatchResult(List<String> words, boolean[] accepted, long symbols, long elapsedNanos) {
+            this.words = words;
+            this.accepted = accepted;
+            this.symbols = symbols;
+            this.elapsedNanos = Math.max(elapsedNanos, 1);
+
+            int count = 0;
+            for (boolean isAccepted : accepted) {
+                count += isAccepted ? 1 : 0;
+            }
+            this.acceptedCount = count;
+        }
+
+        public int size() {
+            return accepted.length;
+        }
+
+        public String getWord(int index) {
+            return words.get(index);
+        }
+
+        public boolean isAccepted(int index) {
+            return accepted[index];
+        }
+
+        public int getAcceptedCount() {
+            return acceptedCount;
+        }
+
+        public long getSymbolCount() {
+            return symbols;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getWordsPerSecond() {
+            return accepted.length * 1e9 / elapsedNanos;
+        }
+
+        public double getSymbolsPerSecond() {
+            return symbols * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d of %d words accepted in %.3f s (%.0f words/s, %.0f symbols/s)",
+                acceptedCount, accepted.length, elapsedNanos / 1e9, getWordsPerSecond(), getSymbolsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package model.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import model.Automata;
+import model.State;
+import model.Transition;
+
+/*
+ * BitParallelNFA: Simulates an NFA with the set of active states held in a long[] bitset.
+ * For every (state, symbol) pair the successor set, with the ε-closure already applied, is precomputed,
+ * so a step is a word-at-a-time OR over the active states.
+ */
+public final class BitParallelNFA {
+    private final SymbolTable symbols;
+    private final State[] states;
+    private final Map<State, Integer> stateIds;
+    private final int numSymbols;
+    private final int words;
+    private final long[][] successors;
+    private final long[] startSet;
+    private final long[] accepting;
+
+    // Constructor
+    private BitParallelNFA(SymbolTable symbols, State[] states, Map<State, Integer> stateIds, long[][] successors, long[] startSet, long[] accepting) {
+        this.symbols = symbols;
+        this.states = states;
+        this.stateIds = stateIds;
+        this.numSymbols = symbols.size();
+        this.words = (states.length + 63) >>> 6;
+        this.successors = successors;
+        this.startSet = startSet;
+        this.accepting = accepting;
+    }
+
+    /**
+     * Compile the automaton into per (state, symbol) successor bitsets.
+     * @param automata
+     * @return BitParallelNFA
+     * @throws IllegalArgumentException if the automaton has no starting state
+     */
+    public static BitParallelNFA compile(Automata automata) {
+        State start = automata.findStartingState();
+        if (start == null) {
+            throw new IllegalArgumentException("The automaton has no starting state.");
+        }
+
+        SymbolTable symbols = SymbolTable.fromAutomata(automata);
+        EpsilonClosure closures = automata.getEpsilonClosure();
+        State[] states = new State[closures.getNumStates()];
+        Map<State, Integer> stateIds = new HashMap<>();
+        for (int i = 0; i < states.length; i++) {
+            states[i] = closures.stateAt(i);
+            stateIds.put(states[i], i);
+        }
+
+        Integer startId = stateIds.get(start);
+        if (startId == null) {
+            throw new IllegalArgumentException("The starting state '" + start + "' is not part of the automaton.");
+        }
+
+        int words = closures.getWords();
+        int numSymbols = symbols.size();
+        long[][] successors = new long[states.length * numSymbols][];
+        boolean[] isShared = new boolean[successors.length];
+        long[] accepting = new long[words];
+
+        for (int stateId = 0; stateId < states.length; stateId++) {
+            if (states[stateId].isAcceptingState()) {
+                accepting[stateId >>> 6] |= 1L << stateId;
+            }
+
+            for (Transition transition : states[stateId].getTransitions()) {
+                int symbol = symbols.idOf(transition.getTransitionSymbol());
+                Integer targetId = stateIds.get(transition.getTargetState());
+                if (symbol == SymbolTable.NO_SYMBOL || targetId == null) {
+                    continue;
+                }
+
+                int index = stateId * numSymbols + symbol;
+                if (successors[index] == null) {
+                    // Closure bitsets are never written to, so a single target can share its closure
+                    successors[index] = closures.closureBits(targetId);
+                    isShared[index] = true;
+                } else {
+                    if (isShared[index]) {
+                        successors[index] = successors[index].clone();
+                        isShared[index] = false;
+                    }
+                    or(successors[index], closures.closureBits(targetId));
+                }
+            }
+        }
+
+        return new BitParallelNFA(symbols, states, stateIds, successors, closures.closureBits(startId).clone(), accepting);
+    }
+
+    /**
+     * Check whether the word is accepted. Characters outside the alphabet reject the word.
+     * @param word
+     * @return boolean
+     */
+    public boolean accepts(CharSequence word) {
+        long[] finalStates = run(word);
+        return finalStates != null && isAccepting(finalStates);
+    }
+
+    /**
+     * Run the word from the start set and return the set of active states at the end,
+     * or null if the set became empty or a character is outside the alphabet.
+     * @param word
+     * @return long[]
+     */
+    public long[] run(CharSequence word) {
+        long[] current = startSet.clone();
+        long[] next = new long[words];
+
+        for (int i = 0; i < word.length(); i++) {
+            int symbol = symbols.idOf(word.charAt(i));
+            if (symbol == SymbolTable.NO_SYMBOL || !step(current, symbol, next)) {
+                return null;
+            }
+            long[] swap = current;
+            current = next;
+            next = swap;
+        }
+        return current;
+    }
+
+    /**
+     * Compute the successors of a set of states on a symbol into the given bitset.
+     * @param from
+     * @param symbolId
+     * @param into
+     * @return boolean true if the resulting set is not empty
+     */
+    public boolean step(long[] from, int symbolId, long[] into) {
+        Arrays.fill(into, 0L);
+        boolean isNonEmpty = false;
+
+        for (int word = 0; word < words; word++) {
+            long bits = from[word];
+            while (bits != 0) {
+                int state = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                long[] successor = successors[state * numSymbols + symbolId];
+                if (successor != null) {
+                    or(into, successor);
+                    isNonEmpty = true;
+                }
+            }
+        }
+        return isNonEmpty;
+    }
+
+    /**
+     * Compute the successors of the listed states on a symbol into the given bitset.
+     * @param members
+     * @param symbolId
+     * @param into
+     * @return boolean true if the resulting set is not empty
+     */
+    public boolean step(int[] members, int symbolId, long[] into) {
+        Arrays.fill(into, 0L);
+        boolean isNonEmpty = false;
+
+        for (int state : members) {
+            long[] successor = successors[state * numSymbols + symbolId];
+            if (successor != null) {
+                or(into, successor);
+                isNonEmpty = true;
+            }
+        }
+        return isNonEmpty;
+    }
+
+    public boolean isAccepting(long[] set) {
+        for (int word = 0; word < words; word++) {
+            if ((set[word] & accepting[word]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isAccepting(int state) {
+        return (accepting[state >>> 6] & (1L << state)) != 0;
+    }
+
+    /**
+     * Convert a bitset of state ids back to the model states.
+     * @param set
+     * @return Set<State>
+     */
+    public Set<State> toStates(long[] set) {
+        Set<State> result = new LinkedHashSet<>();
+        if (set == null) {
+            return result;
+        }
+        for (int word = 0; word < words; word++) {
+            long bits = set[word];
+            while (bits != 0) {
+                result.add(states[(word << 6) + Long.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+
+    private static void or(long[] into, long[] bits) {
+        for (int word = 0; word < into.length; word++) {
+            into[word] |= bits[word];
+        }
+    }
+
+    public long[] getStartSet() {
+        return startSet.clone();
+    }
+
+    public int indexOf(State state) {
+        Integer id = stateIds.get(state);
+        return id == null ? -1 : id;
+    }
+
+    public State stateAt(int state) {
+        return states[state];
+    }
+
+    public int getNumStates() {
+        return states.length;
+    }
+
+    public int getNumSymbols() {
+        return numSymbols;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+}
@@ -0,0 +1,163 @@
+package model.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import components.SpecialSymbols;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+/*
+ * CompiledDFA: An immutable, table driven matcher compiled from a deterministic automaton.
+ * States and symbols are dense integer ids and every step is a single array read.
+ */
+public final class CompiledDFA implements DFAMatcher {
+
+    private final SymbolTable symbols;
+    private final State[] states;
+    private final int numSymbols;
+    private final int startState;
+    private final int[] transitions;
+    private final long[] accepting;
+
+    // Constructor
+    private CompiledDFA(SymbolTable symbols, State[] states, int startState, int[] transitions, long[] accepting) {
+        this.symbols = symbols;
+        this.states = states;
+        this.numSymbols = symbols.size();
+        this.startState = startState;
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    /**
+     * Compile a deterministic automaton into a transition table. Missing transitions lead to the dead state,
+     * so automata that are deterministic but not complete are accepted as well.
+     * @param automata
+     * @return CompiledDFA
+     * @throws IllegalArgumentException if the automaton has no starting state or is not deterministic
+     */
+    public static CompiledDFA compile(Automata automata) {
+        State start = automata.findStartingState();
+        if (start == null) {
+            throw new IllegalArgumentException("The automaton has no starting state.");
+        }
+
+        SymbolTable symbols = SymbolTable.fromAutomata(automata);
+        State[] states = automata.getStates().keySet().toArray(new State[0]);
+        Map<State, Integer> stateIds = new HashMap<>();
+        for (int i = 0; i < states.length; i++) {
+            stateIds.put(states[i], i);
+        }
+
+        if (!stateIds.containsKey(start)) {
+            throw new IllegalArgumentException("The starting state '" + start + "' is not part of the automaton.");
+        }
+
+        int numSymbols = symbols.size();
+        int[] transitions = new int[states.length * numSymbols];
+        Arrays.fill(transitions, DEAD_STATE);
+        long[] accepting = new long[(states.length + 63) >>> 6];
+
+        for (int stateId = 0; stateId < states.length; stateId++) {
+            State state = states[stateId];
+            if (state.isAcceptingState()) {
+                accepting[stateId >>> 6] |= 1L << stateId;
+            }
+
+            for (Transition transition : state.getTransitions()) {
+                String symbol = transition.getTransitionSymbol();
+                if (symbol.equals(SpecialSymbols.EPSILON.toString())) {
+                    throw new IllegalArgumentException("The automaton is not deterministic: " + transition + " is an ε-transition.");
+                }
+
+                Integer targetId = stateIds.get(transition.getTargetState());
+                if (targetId == null) {
+                    throw new IllegalArgumentException("The transition " + transition + " leads to a state outside the automaton.");
+                }
+
+                int index = stateId * numSymbols + symbols.idOf(symbol);
+                if (transitions[index] != DEAD_STATE && transitions[index] != targetId) {
+                    throw new IllegalArgumentException("The automaton is not deterministic: " + state + " has more than one transition on '" + symbol + "'.");
+                }
+                transitions[index] = targetId;
+            }
+        }
+
+        return new CompiledDFA(symbols, states, stateIds.get(start), transitions, accepting);
+    }
+
+    /**
+     * Check whether the word is accepted. Characters outside the alphabet reject the word.
+     * @param word
+     * @return boolean
+     */
+    @Override
+    public boolean accepts(CharSequence word) {
+        int state = run(startState, word, 0, word.length());
+        return state != DEAD_STATE && isAccepting(state);
+    }
+
+    /**
+     * Run the table from the given state over word[from, to) and return the state reached,
+     * or DEAD_STATE as soon as there is no transition.
+     * @param state
+     * @param word
+     * @param from
+     * @param to
+     * @return int
+     */
+    @Override
+    public int run(int state, CharSequence word, int from, int to) {
+        for (int i = from; i < to && state != DEAD_STATE; i++) {
+            int symbol = symbols.idOf(word.charAt(i));
+            if (symbol == SymbolTable.NO_SYMBOL) {
+                return DEAD_STATE;
+            }
+            state = transitions[state * numSymbols + symbol];
+        }
+        return state;
+    }
+
+    /**
+     * Perform a single step of the table.
+     * @param state
+     * @param symbolId
+     * @return int the next state or DEAD_STATE
+     */
+    @Override
+    public int step(int state, int symbolId) {
+        return transitions[state * numSymbols + symbolId];
+    }
+
+    @Override
+    public boolean isAccepting(int state) {
+        return (accepting[state >>> 6] & (1L << state)) != 0;
+    }
+
+    @Override
+    public int getStartState() {
+        return startState;
+    }
+
+    @Override
+    public int getNumStates() {
+        return states.length;
+    }
+
+    @Override
+    public int getNumSymbols() {
+        return numSymbols;
+    }
+
+    @Override
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public State stateAt(int state) {
+        return states[state];
+    }
+}
@@ -0,0 +1,196 @@
+package model.engine;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import components.serialization.AutomataIO;
+import model.Automata;
+
+/*
+ * CorpusScanner: Runs every line of a newline delimited file through an automaton, like grep -x.
+ * The file is memory-mapped in chunks and the automaton is stepped directly on the bytes, so no String or
+ * InputTape is built per line. A line may span two chunks, as the automaton state simply carries over.
+ * Bytes are read as single-byte characters: symbols outside Latin-1 never match, and a line ending in
+ * "\r\n" is read without the '\r'. Instances are not thread-safe.
+ */
+public final class CorpusScanner {
+    // Bytes mapped at a time; a single mapping cannot exceed 2 GB
+    private static final long CHUNK_SIZE = 1L << 28;
+
+    private final CompiledDFA dfa;
+    private final LazyDFA lazyDFA;
+    private final int[] byteSymbols = new int[256];
+    private final int startState;
+
+    /*
+     * MatchListener: Told the byte offset of the start of every matching line.
+     */
+    public interface MatchListener {
+        void onMatch(long offset) throws IOException;
+    }
+
+    // Constructor
+    private CorpusScanner(Automata automata) {
+        SymbolTable symbols;
+        if (AcceptanceEngine.isDeterministic(automata)) {
+            this.dfa = CompiledDFA.compile(automata);
+            this.lazyDFA = null;
+            this.startState = dfa.getStartState();
+            symbols = dfa.getSymbols();
+        } else {
+            this.dfa = null;
+            this.lazyDFA = LazyDFA.compile(automata);
+            this.startState = lazyDFA.getStartState();
+            symbols = lazyDFA.getNFA().getSymbols();
+        }
+
+        Arrays.fill(byteSymbols, SymbolTable.NO_SYMBOL);
+        for (int b = 0; b < byteSymbols.length; b++) {
+            if (b != '\n') {
+                byteSymbols[b] = symbols.idOf((char) b);
+            }
+        }
+    }
+
+    /**
+     * Compile the automaton for scanning. Deterministic automata use a CompiledDFA, others a LazyDFA.
+     * @param automata
+     * @return CorpusScanner
+     * @throws IllegalArgumentException if the automaton has no starting state
+     */
+    public static CorpusScanner compile(Automata automata) {
+        return new CorpusScanner(automata);
+    }
+
+    /**
+     * Count the lines of the file that are accepted.
+     * @param file
+     * @return long
+     * @throws IOException
+     */
+    public long count(Path file) throws IOException {
+        return scan(file, (MatchListener) null);
+    }
+
+    /**
+     * Write the byte offset of every accepted line to the writer, one per line.
+     * @param file
+     * @param out
+     * @return long the number of accepted lines
+     * @throws IOException
+     */
+    public long scan(Path file, Writer out) throws IOException {
+        return scan(file, offset -> {
+            out.write(Long.toString(offset));
+            out.write('\n');
+        });
+    }
+
+    /**
+     * Scan the file, telling the listener about every accepted line.
+     * @param file
+     * @param listener may be null to only count
+     * @return long the number of accepted lines
+     * @throws IOException
+     */
+    public long scan(Path file, MatchListener listener) throws IOException {
+        long matches = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long lineStart = 0;
+            int state = startState;
+            boolean pendingReturn = false;
+
+            for (long chunkStart = 0; chunkStart < size; chunkStart += CHUNK_SIZE) {
+                int length = (int) Math.min(CHUNK_SIZE, size - chunkStart);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, length);
+
+                for (int i = 0; i < length; i++) {
+                    int b = buffer.get(i) & 0xFF;
+                    if (b == '\n') {
+                        // A '\r' held back just before the newline belongs to the line ending
+                        if (isAccepting(state)) {
+                            matches++;
+                            if (listener != null) {
+                                listener.onMatch(lineStart);
+                            }
+                        }
+                        lineStart = chunkStart + i + 1;
+                        state = startState;
+                        pendingReturn = false;
+                        continue;
+                    }
+
+                    if (pendingReturn) {
+                        state = step(state, byteSymbols['\r']);
+                    }
+                    pendingReturn = b == '\r';
+                    if (!pendingReturn) {
+                        state = step(state, byteSymbols[b]);
+                    }
+                }
+            }
+
+            // The last line has no newline after it
+            if (lineStart < size) {
+                if (pendingReturn) {
+                    state = step(state, byteSymbols['\r']);
+                }
+                if (isAccepting(state)) {
+                    matches++;
+                    if (listener != null) {
+                        listener.onMatch(lineStart);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    private int step(int state, int symbol) {
+        if (state == DFAMatcher.DEAD_STATE || symbol == SymbolTable.NO_SYMBOL) {
+            return DFAMatcher.DEAD_STATE;
+        }
+        return dfa != null ? dfa.step(state, symbol) : lazyDFA.step(state, symbol);
+    }
+
+    private boolean isAccepting(int state) {
+        if (state == DFAMatcher.DEAD_STATE) {
+            return false;
+        }
+        return dfa != null ? dfa.isAccepting(state) : lazyDFA.isAccepting(state);
+    }
+
+    /**
+     * Scan a corpus from the command line: CorpusScanner <automaton file> <corpus file> [--count]
+     * Prints the offsets of the accepted lines, or only their number with --count.
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: CorpusScanner <automaton file> <corpus file> [--count]");
+            System.exit(2);
+        }
+
+        CorpusScanner scanner = compile(new Automata(AutomataIO.loadAutomata(new File(args[0]))));
+        Path corpus = Path.of(args[1]);
+        if (args.length > 2 && args[2].equals("--count")) {
+            System.out.println(scanner.count(corpus));
+            return;
+        }
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        scanner.scan(corpus, out);
+        out.flush();
+    }
+}
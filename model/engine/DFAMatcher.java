@@ -0,0 +1,58 @@
+package model.engine;
+
+/*
+ * DFAMatcher: A deterministic transition table over dense state and symbol ids, wherever the table lives.
+ * Implemented by CompiledDFA on the heap and by MappedDFA over a memory-mapped file.
+ */
+public interface DFAMatcher {
+    int DEAD_STATE = -1;
+
+    /**
+     * Perform a single step of the table.
+     * @param state
+     * @param symbolId
+     * @return int the next state or DEAD_STATE
+     */
+    int step(int state, int symbolId);
+
+    boolean isAccepting(int state);
+
+    int getStartState();
+
+    int getNumStates();
+
+    int getNumSymbols();
+
+    SymbolTable getSymbols();
+
+    /**
+     * Run the table from the given state over word[from, to) and return the state reached,
+     * or DEAD_STATE as soon as there is no transition.
+     * @param state
+     * @param word
+     * @param from
+     * @param to
+     * @return int
+     */
+    default int run(int state, CharSequence word, int from, int to) {
+        SymbolTable symbols = getSymbols();
+        for (int i = from; i < to && state != DEAD_STATE; i++) {
+            int symbol = symbols.idOf(word.charAt(i));
+            if (symbol == SymbolTable.NO_SYMBOL) {
+                return DEAD_STATE;
+            }
+            state = step(state, symbol);
+        }
+        return state;
+    }
+
+    /**
+     * Check whether the word is accepted. Characters outside the alphabet reject the word.
+     * @param word
+     * @return boolean
+     */
+    default boolean accepts(CharSequence word) {
+        int state = run(getStartState(), word, 0, word.length());
+        return state != DEAD_STATE && isAccepting(state);
+    }
+}
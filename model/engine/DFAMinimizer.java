@@ -0,0 +1,274 @@
+package model.engine;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+
+/*
+ * DFAMinimizer: Minimizes a deterministic automaton with Hopcroft's partition refinement in O(n·|Σ|·log n).
+ * Unreachable states are dropped first. An incomplete DFA is completed with a synthetic sink state,
+ * which is left out of the result again so missing transitions stay missing.
+ */
+public final class DFAMinimizer {
+    private final CompiledDFA dfa;
+    private final int numSymbols;
+    private final int numStates;
+    private final int sink;
+
+    // Partition refinement: the members of block b are elements[blockStart[b] .. blockEnd[b])
+    private final int[] elements;
+    private final int[] location;
+    private final int[] blockOf;
+    private final int[] blockStart;
+    private final int[] blockEnd;
+    private final int[] markedEnd;
+    private int numBlocks;
+
+    // Predecessors of state q on symbol a are predecessors[predecessorStart[a * (n + 1) + q] .. next)
+    private int[] predecessorStart;
+    private int[] predecessors;
+
+    // Constructor
+    private DFAMinimizer(CompiledDFA dfa, int[] reachable, boolean needsSink) {
+        this.dfa = dfa;
+        this.numSymbols = dfa.getNumSymbols();
+        this.numStates = reachable.length + (needsSink ? 1 : 0);
+        this.sink = needsSink ? reachable.length : -1;
+
+        this.elements = new int[numStates];
+        this.location = new int[numStates];
+        this.blockOf = new int[numStates];
+        // There are never more blocks than states
+        this.blockStart = new int[numStates];
+        this.blockEnd = new int[numStates];
+        this.markedEnd = new int[numStates];
+    }
+
+    /**
+     * Build the minimal DFA equivalent to the given one. Each new state is named and placed after the
+     * representative of its block, which is the starting state if the block contains it.
+     * @param automata
+     * @return Map<State, SerializablePoint2D> the states of the minimal DFA with their positions
+     * @throws IllegalArgumentException if the automaton has no starting state or is not deterministic
+     */
+    public static Map<State, SerializablePoint2D> minimize(Automata automata) {
+        CompiledDFA dfa = CompiledDFA.compile(automata);
+
+        // Number the reachable states in BFS order, the start state is 0
+        int[] renumber = new int[dfa.getNumStates()];
+        Arrays.fill(renumber, -1);
+        int[] order = new int[dfa.getNumStates()];
+        int count = 0;
+        boolean needsSink = false;
+        renumber[dfa.getStartState()] = count;
+        order[count++] = dfa.getStartState();
+
+        for (int i = 0; i < count; i++) {
+            for (int symbol = 0; symbol < dfa.getNumSymbols(); symbol++) {
+                int target = dfa.step(order[i], symbol);
+                if (target == CompiledDFA.DEAD_STATE) {
+                    needsSink = true;
+                } else if (renumber[target] == -1) {
+                    renumber[target] = count;
+                    order[count++] = target;
+                }
+            }
+        }
+
+        int[] reachable = Arrays.copyOf(order, count);
+        DFAMinimizer minimizer = new DFAMinimizer(dfa, reachable, needsSink);
+        minimizer.buildPredecessors(reachable, renumber);
+        minimizer.refine(reachable);
+        return minimizer.buildStates(automata, reachable, renumber);
+    }
+
+    private int targetOf(int[] reachable, int[] renumber, int state, int symbol) {
+        if (state == sink) {
+            return sink;
+        }
+        int target = dfa.step(reachable[state], symbol);
+        return target == CompiledDFA.DEAD_STATE ? sink : renumber[target];
+    }
+
+    private void buildPredecessors(int[] reachable, int[] renumber) {
+        int stride = numStates + 1;
+        predecessorStart = new int[numSymbols * stride + 1];
+        predecessors = new int[numSymbols * numStates];
+
+        for (int state = 0; state < numStates; state++) {
+            for (int symbol = 0; symbol < numSymbols; symbol++) {
+                predecessorStart[symbol * stride + targetOf(reachable, renumber, state, symbol) + 1]++;
+            }
+        }
+        for (int i = 1; i < predecessorStart.length; i++) {
+            predecessorStart[i] += predecessorStart[i - 1];
+        }
+
+        int[] fill = predecessorStart.clone();
+        for (int state = 0; state < numStates; state++) {
+            for (int symbol = 0; symbol < numSymbols; symbol++) {
+                predecessors[fill[symbol * stride + targetOf(reachable, renumber, state, symbol)]++] = state;
+            }
+        }
+    }
+
+    // Hopcroft's algorithm with a worklist of splitter blocks, each tried against every symbol
+    private void refine(int[] reachable) {
+        // Initial partition: accepting states first, then the rest
+        int accepting = 0;
+        for (int state = 0; state < numStates; state++) {
+            if (state != sink && dfa.isAccepting(reachable[state])) {
+                place(state, accepting++);
+            }
+        }
+        int position = accepting;
+        for (int state = 0; state < numStates; state++) {
+            if (state == sink || !dfa.isAccepting(reachable[state])) {
+                place(state, position++);
+            }
+        }
+
+        ArrayDeque<Integer> worklist = new ArrayDeque<>();
+        boolean[] inWorklist = new boolean[blockStart.length];
+        if (accepting > 0) {
+            addBlock(0, accepting);
+        }
+        if (accepting < numStates) {
+            addBlock(accepting, numStates);
+        }
+        for (int block = 0; block < numBlocks; block++) {
+            worklist.add(block);
+            inWorklist[block] = true;
+        }
+
+        int[] splitter = new int[numStates];
+        int[] touched = new int[numStates];
+        int stride = numStates + 1;
+
+        while (!worklist.isEmpty()) {
+            int splitterBlock = worklist.poll();
+            inWorklist[splitterBlock] = false;
+
+            // Copy the members, the block itself may be split while it is used
+            int splitterSize = blockEnd[splitterBlock] - blockStart[splitterBlock];
+            System.arraycopy(elements, blockStart[splitterBlock], splitter, 0, splitterSize);
+
+            for (int symbol = 0; symbol < numSymbols; symbol++) {
+                int numTouched = 0;
+                for (int i = 0; i < splitterSize; i++) {
+                    int target = splitter[i];
+                    int end = predecessorStart[symbol * stride + target + 1];
+                    for (int p = predecessorStart[symbol * stride + target]; p < end; p++) {
+                        int block = blockOf[predecessors[p]];
+                        if (markedEnd[block] == blockStart[block]) {
+                            touched[numTouched++] = block;
+                        }
+                        mark(predecessors[p]);
+                    }
+                }
+
+                for (int i = 0; i < numTouched; i++) {
+                    int block = touched[i];
+                    int marked = markedEnd[block] - blockStart[block];
+                    int size = blockEnd[block] - blockStart[block];
+
+                    if (marked == size) {
+                        markedEnd[block] = blockStart[block];
+                        continue;
+                    }
+
+                    // The marked members move to a new block
+                    int newBlock = addBlock(blockStart[block], markedEnd[block]);
+                    blockStart[block] = markedEnd[block];
+                    markedEnd[block] = blockStart[block];
+
+                    if (inWorklist[block]) {
+                        worklist.add(newBlock);
+                        inWorklist[newBlock] = true;
+                    } else {
+                        int smaller = marked <= size - marked ? newBlock : block;
+                        worklist.add(smaller);
+                        inWorklist[smaller] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private void place(int state, int position) {
+        elements[position] = state;
+        location[state] = position;
+    }
+
+    private int addBlock(int start, int end) {
+        int block = numBlocks++;
+        blockStart[block] = start;
+        blockEnd[block] = end;
+        markedEnd[block] = start;
+        for (int i = start; i < end; i++) {
+            blockOf[elements[i]] = block;
+        }
+        return block;
+    }
+
+    // Swap the state into the marked prefix of its block
+    private void mark(int state) {
+        int block = blockOf[state];
+        int position = location[state];
+        if (position < markedEnd[block]) {
+            return;
+        }
+        int swapPosition = markedEnd[block]++;
+        int swapState = elements[swapPosition];
+        place(swapState, position);
+        place(state, swapPosition);
+    }
+
+    private Map<State, SerializablePoint2D> buildStates(Automata automata, int[] reachable, int[] renumber) {
+        // The representative of a block is its lowest numbered real state. BFS numbering puts the
+        // start state at 0, so it always represents its own block.
+        int[] representatives = new int[numBlocks];
+        State[] blockStates = new State[numBlocks];
+        for (int block = 0; block < numBlocks; block++) {
+            int representative = -1;
+            for (int i = blockStart[block]; i < blockEnd[block]; i++) {
+                int state = elements[i];
+                if (state != sink && (representative == -1 || state < representative)) {
+                    representative = state;
+                }
+            }
+            representatives[block] = representative;
+            if (representative == -1) {
+                continue; // Only the synthetic sink
+            }
+
+            State original = dfa.stateAt(reachable[representative]);
+            blockStates[block] = new State(original.getName());
+            blockStates[block].setAcceptingState(original.isAcceptingState());
+            blockStates[block].setStartingState(representative == 0);
+        }
+
+        Map<State, SerializablePoint2D> minimized = new HashMap<>();
+        for (int block = 0; block < numBlocks; block++) {
+            if (blockStates[block] == null) {
+                continue;
+            }
+            int representative = representatives[block];
+            SerializablePoint2D position = automata.getStates().get(dfa.stateAt(reachable[representative]));
+            minimized.put(blockStates[block], position == null ? new SerializablePoint2D() : new SerializablePoint2D(position.getX(), position.getY()));
+
+            for (int symbol = 0; symbol < numSymbols; symbol++) {
+                State targetState = blockStates[blockOf[targetOf(reachable, renumber, representative, symbol)]];
+                if (targetState != null) {
+                    blockStates[block].addTransition(targetState, dfa.getSymbols().symbolAt(symbol));
+                }
+            }
+        }
+        return minimized;
+    }
+}
@@ -0,0 +1,331 @@
+package model.engine;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import components.SpecialSymbols;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+/*
+ * EpsilonClosure: Computes the ε-closure of every state of an automaton at once.
+ * ε-cycles are collapsed with Tarjan's SCC algorithm, and closures are gathered over the resulting acyclic
+ * condensation without recursion. Closure bitsets are built on first request and shared by every member of a component.
+ * An instance is a snapshot; Automata.getEpsilonClosure() recomputes it once the version of the automaton changes.
+ * An instance is thread-safe. Closure bitsets built on demand are published through an AtomicReferenceArray,
+ * and two threads building the same one get the same bits.
+ */
+public final class EpsilonClosure {
+    private final Automata automata;
+    private final long version;
+
+    private final State[] states;
+    private final Map<State, Integer> stateIds;
+    private final int words;
+    private final int[] componentOf;
+    private int[][] componentMembers;
+    private int[][] componentSuccessors;
+    private AtomicReferenceArray<long[]> componentClosures;
+
+    // Constructor
+    private EpsilonClosure(Automata automata) {
+        this.automata = automata;
+        this.version = automata.getVersion();
+
+        this.states = automata.getStates().keySet().toArray(new State[0]);
+        this.stateIds = new HashMap<>();
+        for (int i = 0; i < states.length; i++) {
+            stateIds.put(states[i], i);
+        }
+        this.words = (states.length + 63) >>> 6;
+        this.componentOf = new int[states.length];
+
+        condense(collectEpsilonEdges());
+    }
+
+    /**
+     * Compute the closures of all states of the automaton.
+     * @param automata
+     * @return EpsilonClosure
+     */
+    public static EpsilonClosure compute(Automata automata) {
+        return new EpsilonClosure(automata);
+    }
+
+    /**
+     * Check if this snapshot still describes the automaton, i.e. it was computed from it at its current version.
+     * @param automata
+     * @return boolean
+     */
+    public boolean isCurrent(Automata automata) {
+        return automata == this.automata && automata.getVersion() == version;
+    }
+
+    // Build the ε-successor lists of every state as arrays of state ids
+    private int[][] collectEpsilonEdges() {
+        String epsilon = SpecialSymbols.EPSILON.toString();
+        int[][] edges = new int[states.length][];
+        int[] buffer = new int[8];
+
+        for (int stateId = 0; stateId < states.length; stateId++) {
+            int count = 0;
+            for (Transition transition : states[stateId].getTransitions()) {
+                Integer targetId = stateIds.get(transition.getTargetState());
+                if (targetId != null && transition.getTransitionSymbol().equals(epsilon)) {
+                    if (count == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, count * 2);
+                    }
+                    buffer[count++] = targetId;
+                }
+            }
+            edges[stateId] = Arrays.copyOf(buffer, count);
+        }
+        return edges;
+    }
+
+    /**
+     * Iterative Tarjan SCC over the ε-edges. Tarjan emits a component only after every component
+     * reachable from it, so successor components always have a lower id than their predecessors.
+     * @param edges
+     */
+    private void condense(int[][] edges) {
+        int n = states.length;
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+
+        int[] sccStack = new int[n];
+        int sccTop = 0;
+        int[] callStack = new int[n];
+        int[] edgeCursor = new int[n];
+        int callTop = 0;
+
+        int[][] members = new int[n][];
+        int[][] successors = new int[n][];
+        int[] successorBuffer = new int[8];
+        int components = 0;
+        int counter = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+
+            index[root] = lowLink[root] = counter++;
+            sccStack[sccTop++] = root;
+            onStack[root] = true;
+            callStack[callTop++] = root;
+            edgeCursor[root] = 0;
+
+            while (callTop > 0) {
+                int node = callStack[callTop - 1];
+
+                if (edgeCursor[node] < edges[node].length) {
+                    int target = edges[node][edgeCursor[node]++];
+                    if (index[target] == -1) {
+                        index[target] = lowLink[target] = counter++;
+                        sccStack[sccTop++] = target;
+                        onStack[target] = true;
+                        callStack[callTop++] = target;
+                        edgeCursor[target] = 0;
+                    } else if (onStack[target]) {
+                        lowLink[node] = Math.min(lowLink[node], index[target]);
+                    }
+                    continue;
+                }
+
+                callTop--;
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+
+                if (lowLink[node] == index[node]) {
+                    // Pop the component and record the distinct components its ε-edges lead to
+                    int component = components++;
+                    int member;
+                    int first = sccTop;
+                    do {
+                        member = sccStack[--sccTop];
+                        onStack[member] = false;
+                        componentOf[member] = component;
+                    } while (member != node);
+                    members[component] = Arrays.copyOfRange(sccStack, sccTop, first);
+
+                    int count = 0;
+                    for (int i = sccTop; i < first; i++) {
+                        for (int target : edges[sccStack[i]]) {
+                            int targetComponent = componentOf[target];
+                            if (targetComponent != component && !contains(successorBuffer, count, targetComponent)) {
+                                if (count == successorBuffer.length) {
+                                    successorBuffer = Arrays.copyOf(successorBuffer, count * 2);
+                                }
+                                successorBuffer[count++] = targetComponent;
+                            }
+                        }
+                    }
+                    successors[component] = Arrays.copyOf(successorBuffer, count);
+                }
+            }
+        }
+        this.componentMembers = Arrays.copyOf(members, components);
+        this.componentSuccessors = Arrays.copyOf(successors, components);
+        this.componentClosures = new AtomicReferenceArray<>(components);
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the closure of a state as a bitset over the state ids of this snapshot.
+     * The array is shared and must not be modified.
+     * @param stateId
+     * @return long[]
+     */
+    public long[] closureBits(int stateId) {
+        int component = componentOf[stateId];
+        if (componentClosures.get(component) == null) {
+            buildClosureBits(component);
+        }
+        return componentClosures.get(component);
+    }
+
+    // Post-order walk over the condensation so every successor closure is built before the components that use it
+    private void buildClosureBits(int root) {
+        int[] stack = new int[componentMembers.length];
+        int[] cursor = new int[componentMembers.length];
+        int top = 0;
+        stack[top++] = root;
+
+        while (top > 0) {
+            int component = stack[top - 1];
+            int[] next = componentSuccessors[component];
+
+            if (cursor[component] < next.length) {
+                int successor = next[cursor[component]++];
+                if (componentClosures.get(successor) == null) {
+                    stack[top++] = successor;
+                }
+                continue;
+            }
+
+            top--;
+            long[] closure = new long[words];
+            for (int member : componentMembers[component]) {
+                closure[member >>> 6] |= 1L << member;
+            }
+            for (int successor : next) {
+                long[] successorClosure = componentClosures.get(successor);
+                for (int word = 0; word < words; word++) {
+                    closure[word] |= successorClosure[word];
+                }
+            }
+            componentClosures.set(component, closure);
+        }
+    }
+
+    /**
+     * Get the ε-closure of a state, i.e. the set of states reachable from it using ε-transitions.
+     * @param state
+     * @return Set<State>
+     */
+    public Set<State> closureOf(State state) {
+        Set<State> closure = new LinkedHashSet<>();
+        addClosureTo(state, closure);
+        return closure;
+    }
+
+    /**
+     * Get the union of the ε-closures of the given states.
+     * @param sourceStates
+     * @return Set<State>
+     */
+    public Set<State> closureOf(Collection<State> sourceStates) {
+        Set<State> closure = new LinkedHashSet<>();
+        for (State state : sourceStates) {
+            addClosureTo(state, closure);
+        }
+        return closure;
+    }
+
+    /**
+     * Add the ε-closure of a state to the given collection.
+     * States that are not part of this snapshot fall back to a direct traversal.
+     * @param state
+     * @param into
+     */
+    public void addClosureTo(State state, Collection<State> into) {
+        Integer stateId = stateIds.get(state);
+        if (stateId == null) {
+            into.addAll(State.epsilonClosure(state, new HashSet<>()));
+            return;
+        }
+
+        long[] closure = componentClosures.get(componentOf[stateId]);
+        if (closure != null) {
+            for (int word = 0; word < words; word++) {
+                long bits = closure[word];
+                while (bits != 0) {
+                    into.add(states[(word << 6) + Long.numberOfTrailingZeros(bits)]);
+                    bits &= bits - 1;
+                }
+            }
+            return;
+        }
+
+        // Walk the condensation directly rather than building a bitset for a single query
+        boolean[] visited = new boolean[componentMembers.length];
+        int[] stack = new int[componentMembers.length];
+        int top = 0;
+        stack[top++] = componentOf[stateId];
+        visited[componentOf[stateId]] = true;
+
+        while (top > 0) {
+            int component = stack[--top];
+            for (int member : componentMembers[component]) {
+                into.add(states[member]);
+            }
+            for (int successor : componentSuccessors[component]) {
+                if (!visited[successor]) {
+                    visited[successor] = true;
+                    stack[top++] = successor;
+                }
+            }
+        }
+    }
+
+    public int indexOf(State state) {
+        Integer stateId = stateIds.get(state);
+        return stateId == null ? -1 : stateId;
+    }
+
+    public State stateAt(int stateId) {
+        return states[stateId];
+    }
+
+    public int getNumStates() {
+        return states.length;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    public int getComponentCount() {
+        return componentMembers.length;
+    }
+}
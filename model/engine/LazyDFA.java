@@ -0,0 +1,195 @@
+package model.engine;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import model.Automata;
+import model.State;
+
+/*
+ * LazyDFA: Determinizes an NFA on the fly while words are run. A DFA state (a set of NFA states) and its
+ * transition on a symbol are only built the first time a run needs them, and are kept for later runs,
+ * so repeated runs over the same NFA approach the speed of a compiled DFA without the exponential cost of a
+ * full subset construction. When the cache grows past its memory limit it is flushed and rebuilt as needed.
+ * Instances are not thread-safe; give each thread its own.
+ */
+public final class LazyDFA {
+    public static final long DEFAULT_MEMORY_LIMIT = 16L * 1024 * 1024;
+
+    private static final int UNKNOWN = -2;
+    private static final int INITIAL_STATES = 64;
+    // Rough cost of a cached state besides its members and transitions: the array headers and table slots
+    private static final int STATE_OVERHEAD_BYTES = 48;
+
+    private final BitParallelNFA nfa;
+    private final int numSymbols;
+    private final long memoryLimit;
+    private final long[] buffer;
+
+    private StateSetTable table;
+    private int[] transitions;
+    private boolean[] accepting;
+    private long cacheBytes;
+    private int flushCount;
+
+    // Constructor
+    public LazyDFA(BitParallelNFA nfa, long memoryLimit) {
+        this.nfa = nfa;
+        this.numSymbols = nfa.getNumSymbols();
+        this.memoryLimit = memoryLimit;
+        this.buffer = new long[nfa.getWords()];
+        reset();
+    }
+
+    /**
+     * Compile the automaton and wrap it with the default memory limit.
+     * @param automata
+     * @return LazyDFA
+     * @throws IllegalArgumentException if the automaton has no starting state
+     */
+    public static LazyDFA compile(Automata automata) {
+        return new LazyDFA(BitParallelNFA.compile(automata), DEFAULT_MEMORY_LIMIT);
+    }
+
+    /**
+     * Check whether the word is accepted. Characters outside the alphabet reject the word.
+     * @param word
+     * @return boolean
+     */
+    public boolean accepts(CharSequence word) {
+        int state = run(word);
+        return state != DFAMatcher.DEAD_STATE && accepting[state];
+    }
+
+    /**
+     * Run the word from the start state. The id is only valid until the next call, as a flush renumbers the cache.
+     * @param word
+     * @return int the DFA state reached, or DEAD_STATE
+     */
+    public int run(CharSequence word) {
+        int state = getStartState();
+        for (int i = 0; i < word.length() && state != DFAMatcher.DEAD_STATE; i++) {
+            int symbol = nfa.getSymbols().idOf(word.charAt(i));
+            state = symbol == SymbolTable.NO_SYMBOL ? DFAMatcher.DEAD_STATE : step(state, symbol);
+        }
+        return state;
+    }
+
+    /**
+     * Get the NFA states that are active at the end of the word.
+     * @param word
+     * @return Set<State> empty if the word is rejected on the way
+     */
+    public Set<State> finalStates(CharSequence word) {
+        return toStates(run(word));
+    }
+
+    /**
+     * Get the NFA states that make up a DFA state.
+     * @param state
+     * @return Set<State> empty for DEAD_STATE
+     */
+    public Set<State> toStates(int state) {
+        Set<State> states = new LinkedHashSet<>();
+        if (state != DFAMatcher.DEAD_STATE) {
+            for (int member : table.get(state)) {
+                states.add(nfa.stateAt(member));
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Follow a symbol from a DFA state, building the transition if it is not cached yet.
+     * If building it flushes the cache, the returned id is already valid in the new cache.
+     * @param state
+     * @param symbolId
+     * @return int the next DFA state or DEAD_STATE
+     */
+    public int step(int state, int symbolId) {
+        int index = state * numSymbols + symbolId;
+        int next = transitions[index];
+        if (next != UNKNOWN) {
+            return next;
+        }
+
+        if (!nfa.step(table.get(state), symbolId, buffer)) {
+            transitions[index] = DFAMatcher.DEAD_STATE;
+            return DFAMatcher.DEAD_STATE;
+        }
+
+        int[] subset = SubsetConstruction.toMembers(buffer);
+        next = addState(subset);
+        if (cacheBytes > memoryLimit) {
+            // Start over with only the start state and the state the run is in
+            flushCount++;
+            reset();
+            return addState(subset);
+        }
+        transitions[index] = next;
+        return next;
+    }
+
+    public int getStartState() {
+        return 0;
+    }
+
+    public boolean isAccepting(int state) {
+        return accepting[state];
+    }
+
+    public int getCachedStates() {
+        return table.size();
+    }
+
+    public long getCacheBytes() {
+        return cacheBytes;
+    }
+
+    public int getFlushCount() {
+        return flushCount;
+    }
+
+    public BitParallelNFA getNFA() {
+        return nfa;
+    }
+
+    // Intern a subset and, if it is new, size its transition row and account for its memory
+    private int addState(int[] subset) {
+        int size = table.size();
+        int state = table.intern(subset);
+        if (table.size() == size) {
+            return state;
+        }
+
+        if (state == accepting.length) {
+            int oldLength = transitions.length;
+            transitions = Arrays.copyOf(transitions, accepting.length * 2 * numSymbols);
+            Arrays.fill(transitions, oldLength, transitions.length, UNKNOWN);
+            accepting = Arrays.copyOf(accepting, accepting.length * 2);
+        }
+        accepting[state] = isAccepting(subset);
+        cacheBytes += subset.length * 4L + numSymbols * 4L + STATE_OVERHEAD_BYTES;
+        return state;
+    }
+
+    // Empty the cache down to the start state, which is always state 0
+    private void reset() {
+        table = new StateSetTable();
+        transitions = new int[INITIAL_STATES * numSymbols];
+        Arrays.fill(transitions, UNKNOWN);
+        accepting = new boolean[INITIAL_STATES];
+        cacheBytes = 0;
+        addState(SubsetConstruction.toMembers(nfa.getStartSet()));
+    }
+
+    private boolean isAccepting(int[] subset) {
+        for (int member : subset) {
+            if (nfa.isAccepting(member)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
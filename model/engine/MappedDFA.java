@@ -0,0 +1,227 @@
+package model.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * MappedDFA: A DFA transition table read straight from a memory-mapped file. Opening one only maps the file and
+ * reads the symbols, the table itself stays in the page cache and is shared by every process that maps it.
+ *
+ * File layout, all little-endian ints: magic, version, number of states, number of symbols, start state,
+ * then the symbols (length-prefixed UTF-8, padded to a multiple of four bytes), the accepting states as a bitset
+ * of int words and the transition table, numStates * numSymbols entries with DEAD_STATE for missing transitions.
+ * The whole file must fit in a single 2 GB mapping.
+ */
+public final class MappedDFA implements DFAMatcher {
+    public static final int MAGIC = 0x41444641; // "ADFA"
+    public static final int VERSION = 1;
+
+    private static final int HEADER_INTS = 5;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final SymbolTable symbols;
+    private final int numStates;
+    private final int numSymbols;
+    private final int startState;
+    private final IntBuffer accepting;
+    private final IntBuffer transitions;
+
+    // Constructor
+    private MappedDFA(SymbolTable symbols, int numStates, int startState, IntBuffer accepting, IntBuffer transitions) {
+        this.symbols = symbols;
+        this.numStates = numStates;
+        this.numSymbols = symbols.size();
+        this.startState = startState;
+        this.accepting = accepting;
+        this.transitions = transitions;
+    }
+
+    /**
+     * Write the table of a DFA to a file that MappedDFA can open.
+     * @param dfa
+     * @param file
+     * @throws IOException
+     */
+    public static void export(DFAMatcher dfa, Path file) throws IOException {
+        ByteBuffer symbolBytes = encodeSymbols(dfa.getSymbols());
+        int acceptingInts = (dfa.getNumStates() + 31) >>> 5;
+        long tableInts = (long) dfa.getNumStates() * dfa.getNumSymbols();
+        long size = (HEADER_INTS + acceptingInts + tableInts) * 4 + symbolBytes.limit();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The DFA is too large to be mapped: " + size + " bytes.");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(dfa.getNumStates()).putInt(dfa.getNumSymbols()).putInt(dfa.getStartState());
+            write(channel, buffer);
+            write(channel, symbolBytes);
+
+            int word = 0;
+            for (int state = 0; state < dfa.getNumStates(); state++) {
+                if (dfa.isAccepting(state)) {
+                    word |= 1 << (state & 31);
+                }
+                if ((state & 31) == 31 || state == dfa.getNumStates() - 1) {
+                    putInt(channel, buffer, word);
+                    word = 0;
+                }
+            }
+            for (int state = 0; state < dfa.getNumStates(); state++) {
+                for (int symbol = 0; symbol < dfa.getNumSymbols(); symbol++) {
+                    putInt(channel, buffer, dfa.step(state, symbol));
+                }
+            }
+            write(channel, buffer);
+        }
+    }
+
+    /**
+     * Map an exported DFA. The table is not copied; it is read from the mapping on every step.
+     * @param file
+     * @return MappedDFA
+     * @throws IOException if the file is not an exported DFA, is cut short or points outside its states
+     */
+    public static MappedDFA open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The DFA file is too large to be mapped.");
+            }
+            // The mapping stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_INTS * 4 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an exported DFA file.");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported DFA file version " + version + ".");
+        }
+        int numStates = buffer.getInt();
+        int numSymbols = buffer.getInt();
+        int startState = buffer.getInt();
+        SymbolTable symbols = decodeSymbols(buffer, numSymbols);
+
+        int acceptingInts = (numStates + 31) >>> 5;
+        long tableInts = (long) numStates * numSymbols;
+        if (numStates <= 0 || startState < 0 || startState >= numStates || buffer.remaining() != (acceptingInts + tableInts) * 4) {
+            throw new IOException("Corrupt DFA file.");
+        }
+
+        IntBuffer accepting = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        accepting.limit(acceptingInts);
+        buffer.position(buffer.position() + acceptingInts * 4);
+        IntBuffer transitions = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        // Check every entry once here, so step() can trust the table
+        for (int i = 0; i < tableInts; i++) {
+            int target = transitions.get(i);
+            if (target != DEAD_STATE && (target < 0 || target >= numStates)) {
+                throw new IOException("Corrupt DFA file.");
+            }
+        }
+        return new MappedDFA(symbols, numStates, startState, accepting, transitions);
+    }
+
+    /**
+     * Perform a single step of the table.
+     * @param state
+     * @param symbolId
+     * @return int the next state or DEAD_STATE
+     */
+    @Override
+    public int step(int state, int symbolId) {
+        return transitions.get(state * numSymbols + symbolId);
+    }
+
+    @Override
+    public boolean isAccepting(int state) {
+        return (accepting.get(state >>> 5) & (1 << (state & 31))) != 0;
+    }
+
+    @Override
+    public int getStartState() {
+        return startState;
+    }
+
+    @Override
+    public int getNumStates() {
+        return numStates;
+    }
+
+    @Override
+    public int getNumSymbols() {
+        return numSymbols;
+    }
+
+    @Override
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            write(channel, buffer);
+        }
+        buffer.putInt(value);
+    }
+
+    // Write out what has been put in the buffer and clear it
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static ByteBuffer encodeSymbols(SymbolTable symbols) {
+        List<byte[]> encoded = new ArrayList<>();
+        int size = 0;
+        for (String symbol : symbols.getSymbols()) {
+            byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            size += 4 + bytes.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((size + 3) & ~3).order(ByteOrder.LITTLE_ENDIAN);
+        for (byte[] bytes : encoded) {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+        buffer.position(buffer.capacity());
+        return buffer;
+    }
+
+    private static SymbolTable decodeSymbols(ByteBuffer buffer, int numSymbols) throws IOException {
+        List<String> symbols = new ArrayList<>();
+        int start = buffer.position();
+        for (int i = 0; i < numSymbols; i++) {
+            int length = buffer.remaining() >= 4 ? buffer.getInt() : -1;
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Corrupt DFA file.");
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            symbols.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        // Skip the padding that keeps the tables int aligned
+        int padded = start + ((buffer.position() - start + 3) & ~3);
+        if (padded > buffer.limit()) {
+            throw new IOException("Corrupt DFA file.");
+        }
+        buffer.position(padded);
+        return SymbolTable.of(symbols);
+    }
+}
@@ -0,0 +1,272 @@
+package model.engine;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import model.Automata;
+
+/*
+ * ParallelWordMatcher: Runs a single very long word through a DFA on all cores. The word is cut into chunks
+ * and each worker computes its chunk's transition function, the state reached from every possible start
+ * state. The functions are then composed left to right, which only costs one lookup per chunk.
+ * Runs from different start states soon fall into the same state, and merged runs are only stepped once,
+ * so a chunk usually costs little more than a single sequential run.
+ * Any DFAMatcher can be used, including a MappedDFA whose table is never copied onto the heap.
+ */
+public final class ParallelWordMatcher {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    // Symbols decoded at a time before they are stepped
+    private static final int BLOCK_SIZE = 4096;
+
+    private final DFAMatcher dfa;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int[] byteSymbols = new int[256];
+
+    /*
+     * SymbolReader: Decodes part of the input into symbol ids, NO_SYMBOL for characters outside the alphabet.
+     */
+    private interface SymbolReader {
+        void read(long position, int[] into, int count);
+    }
+
+    // Constructor
+    public ParallelWordMatcher(DFAMatcher dfa, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size must be positive.");
+        }
+        this.dfa = dfa;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        for (int b = 0; b < byteSymbols.length; b++) {
+            byteSymbols[b] = dfa.getSymbols().idOf((char) b);
+        }
+    }
+
+    /**
+     * Compile a deterministic automaton, such as the one built by the subset construction.
+     * @param automata
+     * @return ParallelWordMatcher
+     * @throws IllegalArgumentException if the automaton has no starting state or is not deterministic
+     */
+    public static ParallelWordMatcher compile(Automata automata) {
+        return new ParallelWordMatcher(CompiledDFA.compile(automata), ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Check whether the word is accepted. Characters outside the alphabet reject the word.
+     * @param word
+     * @return boolean
+     */
+    public boolean accepts(CharSequence word) {
+        int state = run(word);
+        return state != DFAMatcher.DEAD_STATE && dfa.isAccepting(state);
+    }
+
+    /**
+     * Run the word from the start state.
+     * @param word
+     * @return int the state reached or DEAD_STATE
+     */
+    public int run(CharSequence word) {
+        return run(charReader(word), word.length());
+    }
+
+    /**
+     * Check whether the whole file, read as one word of single-byte characters, is accepted.
+     * @param file
+     * @return boolean
+     * @throws IOException
+     */
+    public boolean accepts(Path file) throws IOException {
+        int state = run(file);
+        return state != DFAMatcher.DEAD_STATE && dfa.isAccepting(state);
+    }
+
+    /**
+     * Run the whole file, read as one word of single-byte characters, from the start state.
+     * Every chunk is mapped up front; its pages are only read in by the worker that handles it.
+     * @param file
+     * @return int the state reached or DEAD_STATE
+     * @throws IOException
+     */
+    public int run(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer[] mapped = new MappedByteBuffer[chunkCount(channel.size())];
+            SymbolReader reader = (position, into, count) -> {
+                int chunk = (int) (position / chunkSize);
+                MappedByteBuffer buffer = mapped[chunk];
+                int offset = (int) (position - (long) chunk * chunkSize);
+                for (int i = 0; i < count; i++) {
+                    into[i] = byteSymbols[buffer.get(offset + i) & 0xFF];
+                }
+            };
+
+            long size = channel.size();
+            for (int chunk = 0; chunk < mapped.length; chunk++) {
+                long start = (long) chunk * chunkSize;
+                mapped[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, size - start));
+            }
+            return run(reader, size);
+        }
+    }
+
+    /**
+     * Compute the transition function of word[from, to): the state reached from each state, or DEAD_STATE.
+     * @param word
+     * @param from
+     * @param to
+     * @return int[] indexed by start state
+     */
+    public int[] transitionFunction(CharSequence word, int from, int to) {
+        return transitionFunction(charReader(word), from, to);
+    }
+
+    private SymbolReader charReader(CharSequence word) {
+        SymbolTable symbols = dfa.getSymbols();
+        return (position, into, count) -> {
+            int start = (int) position;
+            for (int i = 0; i < count; i++) {
+                into[i] = symbols.idOf(word.charAt(start + i));
+            }
+        };
+    }
+
+    private int run(SymbolReader reader, long length) {
+        int chunks = chunkCount(length);
+        if (chunks <= 1) {
+            return transitionFunction(reader, 0, length)[dfa.getStartState()];
+        }
+
+        List<Callable<int[]>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            long from = (long) chunk * chunkSize;
+            long to = Math.min(from + chunkSize, length);
+            tasks.add(() -> transitionFunction(reader, from, to));
+        }
+
+        int state = dfa.getStartState();
+        for (Future<int[]> function : pool.invokeAll(tasks)) {
+            int[] table = get(function);
+            if (state != DFAMatcher.DEAD_STATE) {
+                state = table[state];
+            }
+        }
+        return state;
+    }
+
+    private int chunkCount(long length) {
+        return (int) Math.max(1, (length + chunkSize - 1) / chunkSize);
+    }
+
+    // Step a run from every state in lockstep, merging runs as soon as they reach the same state
+    private int[] transitionFunction(SymbolReader reader, long from, long to) {
+        int numStates = dfa.getNumStates();
+        int[] current = new int[numStates];
+        int[] slotOf = new int[numStates];
+        for (int state = 0; state < numStates; state++) {
+            current[state] = state;
+            slotOf[state] = state;
+        }
+        int count = numStates;
+
+        int[] slotOfState = new int[numStates];
+        Arrays.fill(slotOfState, -1);
+        int[] remap = new int[numStates];
+        int[] block = new int[BLOCK_SIZE];
+
+        for (long position = from; position < to; position += BLOCK_SIZE) {
+            int length = (int) Math.min(BLOCK_SIZE, to - position);
+            reader.read(position, block, length);
+
+            for (int i = 0; i < length; i++) {
+                int symbol = block[i];
+                if (count == 1) {
+                    // Every run has merged, step the one left without bookkeeping
+                    int state = current[0];
+                    for (; i < length && state != DFAMatcher.DEAD_STATE; i++) {
+                        state = block[i] == SymbolTable.NO_SYMBOL ? DFAMatcher.DEAD_STATE : dfa.step(state, block[i]);
+                    }
+                    current[0] = state;
+                    break;
+                }
+
+                for (int slot = 0; slot < count; slot++) {
+                    int state = current[slot];
+                    current[slot] = state == DFAMatcher.DEAD_STATE || symbol == SymbolTable.NO_SYMBOL
+                        ? DFAMatcher.DEAD_STATE
+                        : dfa.step(state, symbol);
+                }
+                count = merge(current, count, slotOf, slotOfState, remap);
+            }
+
+            if (count == 1 && current[0] == DFAMatcher.DEAD_STATE) {
+                break;
+            }
+        }
+
+        int[] function = new int[numStates];
+        for (int state = 0; state < numStates; state++) {
+            function[state] = current[slotOf[state]];
+        }
+        return function;
+    }
+
+    // Compact runs that are in the same state into one slot, returning the new number of slots
+    private static int merge(int[] current, int count, int[] slotOf, int[] slotOfState, int[] remap) {
+        int merged = 0;
+        int deadSlot = -1;
+        for (int slot = 0; slot < count; slot++) {
+            int state = current[slot];
+            int target;
+            if (state == DFAMatcher.DEAD_STATE) {
+                if (deadSlot == -1) {
+                    deadSlot = merged++;
+                }
+                target = deadSlot;
+            } else {
+                if (slotOfState[state] == -1) {
+                    slotOfState[state] = merged++;
+                }
+                target = slotOfState[state];
+            }
+            // Slots only move down, so the state is written over a slot that has already been read
+            current[target] = state;
+            remap[slot] = target;
+        }
+
+        for (int slot = 0; slot < merged; slot++) {
+            if (current[slot] != DFAMatcher.DEAD_STATE) {
+                slotOfState[current[slot]] = -1;
+            }
+        }
+        if (merged < count) {
+            for (int state = 0; state < slotOf.length; state++) {
+                slotOf[state] = remap[slotOf[state]];
+            }
+        }
+        return merged;
+    }
+
+    private static int[] get(Future<int[]> function) {
+        try {
+            return function.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while matching.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A chunk could not be matched.", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package model.engine;
+
+import java.util.Arrays;
+
+/*
+ * StateSetTable: Interns sets of NFA state ids, given as sorted int[] arrays, as dense integer ids.
+ * The table uses open addressing with linear probing and keeps the hash of every set,
+ * so a lookup costs one hash of the probe key and compares full arrays only on a hash match.
+ */
+public final class StateSetTable {
+    public static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[][] sets;
+    private int[] hashes;
+    private int size;
+
+    // Slots hold id + 1 so that 0 marks an empty slot
+    private int[] slots;
+    private int mask;
+
+    // Constructor
+    public StateSetTable() {
+        sets = new int[INITIAL_CAPACITY][];
+        hashes = new int[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY * 2];
+        mask = slots.length - 1;
+    }
+
+    /**
+     * Get the id of the set, adding it if it is not in the table yet.
+     * The array is kept by the table and must not be modified afterwards.
+     * @param set sorted state ids
+     * @return int
+     */
+    public int intern(int[] set) {
+        int hash = hash(set);
+        int slot = hash & mask;
+
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && Arrays.equals(sets[id], set)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == sets.length) {
+            sets = Arrays.copyOf(sets, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        sets[id] = set;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+
+        // Keep the load factor at or below one half
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Get the id of the set without adding it.
+     * @param set sorted state ids
+     * @return int or NOT_FOUND
+     */
+    public int find(int[] set) {
+        int hash = hash(set);
+        int slot = hash & mask;
+
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && Arrays.equals(sets[id], set)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    public int[] get(int id) {
+        return sets[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int hash(int[] set) {
+        int hash = Arrays.hashCode(set);
+        // Spread the bits so that sets differing only in high ids still land in different slots
+        return hash ^ (hash >>> 16);
+    }
+}
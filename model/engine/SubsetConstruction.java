@@ -0,0 +1,201 @@
+package model.engine;
+
+import java.util.Arrays;
+
+/*
+ * SubsetConstruction: Determinizes a BitParallelNFA. DFA states are the ε-closed sets of NFA states,
+ * held as sorted int[] arrays and interned in a StateSetTable, so checking whether a subset was seen before
+ * is a single hash lookup. DFA states are numbered in breadth first order from the start set, which is state 0.
+ * The construction can be stopped early by a state budget or by its progress listener, leaving a partial DFA.
+ */
+public final class SubsetConstruction {
+    public static final int EMPTY_SET = -1;
+    public static final int UNEXPLORED = -2;
+
+    private static final int INITIAL_STATES = 16;
+    private static final int REPORT_INTERVAL = 512;
+
+    /*
+     * ProgressListener: Told how far the construction has got every few hundred states.
+     */
+    public interface ProgressListener {
+        /**
+         * @param discovered the number of DFA states found so far
+         * @param pending the number of found states whose transitions are not built yet
+         * @return boolean false to stop the construction
+         */
+        boolean onProgress(int discovered, int pending);
+    }
+
+    private SubsetConstruction() {
+    }
+
+    /**
+     * Run the subset construction over the given input symbols.
+     * @param nfa
+     * @param symbolIds the NFA symbol ids to build transitions for, in column order
+     * @return Result
+     */
+    public static Result determinize(BitParallelNFA nfa, int[] symbolIds) {
+        return determinize(nfa, symbolIds, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Run the subset construction, finding at most maxStates DFA states.
+     * Transitions to subsets beyond the budget, and those of states left unprocessed when the listener
+     * stops the construction, are UNEXPLORED and the result is marked incomplete.
+     * @param nfa
+     * @param symbolIds the NFA symbol ids to build transitions for, in column order
+     * @param maxStates
+     * @param listener may be null
+     * @return Result
+     */
+    public static Result determinize(BitParallelNFA nfa, int[] symbolIds, int maxStates, ProgressListener listener) {
+        if (maxStates < 1) {
+            throw new IllegalArgumentException("The state budget must allow at least the start state.");
+        }
+
+        StateSetTable table = new StateSetTable();
+        int numSymbols = symbolIds.length;
+        int[] transitions = new int[INITIAL_STATES * numSymbols];
+        long[] next = new long[nfa.getWords()];
+
+        table.intern(toMembers(nfa.getStartSet()));
+
+        boolean isComplete = true;
+        int current = 0;
+
+        // The table hands out ids in discovery order, so it doubles as the BFS queue
+        for (; current < table.size(); current++) {
+            if (listener != null && current % REPORT_INTERVAL == 0 && !listener.onProgress(table.size(), table.size() - current)) {
+                isComplete = false;
+                break;
+            }
+
+            int[] members = table.get(current);
+            if ((current + 1) * numSymbols > transitions.length) {
+                transitions = Arrays.copyOf(transitions, transitions.length * 2);
+            }
+
+            for (int column = 0; column < numSymbols; column++) {
+                int target = EMPTY_SET;
+                if (nfa.step(members, symbolIds[column], next)) {
+                    int[] subset = toMembers(next);
+                    if (table.size() < maxStates) {
+                        target = table.intern(subset);
+                    } else {
+                        target = table.find(subset);
+                        if (target == StateSetTable.NOT_FOUND) {
+                            target = UNEXPLORED;
+                            isComplete = false;
+                        }
+                    }
+                }
+                transitions[current * numSymbols + column] = target;
+            }
+        }
+
+        int numStates = table.size();
+        transitions = Arrays.copyOf(transitions, numStates * numSymbols);
+        Arrays.fill(transitions, current * numSymbols, transitions.length, UNEXPLORED);
+
+        int[][] subsets = new int[numStates][];
+        boolean[] accepting = new boolean[numStates];
+        for (int state = 0; state < numStates; state++) {
+            subsets[state] = table.get(state);
+            for (int member : subsets[state]) {
+                if (nfa.isAccepting(member)) {
+                    accepting[state] = true;
+                    break;
+                }
+            }
+        }
+        if (listener != null && isComplete) {
+            listener.onProgress(numStates, 0);
+        }
+        return new Result(subsets, transitions, accepting, numSymbols, isComplete);
+    }
+
+    /**
+     * Convert a bitset of NFA state ids to a sorted array of ids.
+     * @param set
+     * @return int[]
+     */
+    static int[] toMembers(long[] set) {
+        int count = 0;
+        for (long word : set) {
+            count += Long.bitCount(word);
+        }
+
+        int[] members = new int[count];
+        int index = 0;
+        for (int word = 0; word < set.length; word++) {
+            long bits = set[word];
+            while (bits != 0) {
+                members[index++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return members;
+    }
+
+    /*
+     * Result: The DFA as a transition table over subset ids. A missing transition is EMPTY_SET,
+     * and one the construction did not get to is UNEXPLORED.
+     */
+    public static final class Result {
+        private final int[][] subsets;
+        private final int[] transitions;
+        private final boolean[] accepting;
+        private final int numSymbols;
+        private final boolean isComplete;
+
+        // Constructor
+        private Result(int[][] subsets, int[] transitions, boolean[] accepting, int numSymbols, boolean isComplete) {
+            this.subsets = subsets;
+            this.transitions = transitions;
+            this.accepting = accepting;
+            this.numSymbols = numSymbols;
+            this.isComplete = isComplete;
+        }
+
+        /**
+         * Check if every reachable subset was found and all transitions were built.
+         * @return boolean
+         */
+        public boolean isComplete() {
+            return isComplete;
+        }
+
+        public int getNumStates() {
+            return subsets.length;
+        }
+
+        public int getNumSymbols() {
+            return numSymbols;
+        }
+
+        /**
+         * Get the NFA state ids that make up a DFA state. The array must not be modified.
+         * @param state
+         * @return int[]
+         */
+        public int[] getSubset(int state) {
+            return subsets[state];
+        }
+
+        /**
+         * Get the DFA state reached from a state on the symbol in the given column.
+         * @param state
+         * @param column
+         * @return int, EMPTY_SET or UNEXPLORED
+         */
+        public int next(int state, int column) {
+            return transitions[state * numSymbols + column];
+        }
+
+        public boolean isAccepting(int state) {
+            return accepting[state];
+        }
+    }
+}
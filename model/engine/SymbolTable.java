@@ -0,0 +1,96 @@
+package model.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import components.SpecialSymbols;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+/*
+ * SymbolTable: Interns the input symbols of an automaton as dense integer ids.
+ * Single character symbols can be looked up by char without allocating a String.
+ */
+public final class SymbolTable {
+    public static final int NO_SYMBOL = -1;
+
+    private final String[] symbols;
+    private final Map<String, Integer> ids;
+    private final int[] charIds;
+
+    // Constructor
+    private SymbolTable(List<String> symbols) {
+        this.symbols = symbols.toArray(new String[0]);
+        this.ids = new HashMap<>();
+
+        int maxChar = -1;
+        for (int i = 0; i < this.symbols.length; i++) {
+            ids.put(this.symbols[i], i);
+            if (this.symbols[i].length() == 1) {
+                maxChar = Math.max(maxChar, this.symbols[i].charAt(0));
+            }
+        }
+
+        charIds = new int[maxChar + 1];
+        Arrays.fill(charIds, NO_SYMBOL);
+        for (int i = 0; i < this.symbols.length; i++) {
+            if (this.symbols[i].length() == 1) {
+                charIds[this.symbols[i].charAt(0)] = i;
+            }
+        }
+    }
+
+    /**
+     * Build the symbol table from the alphabet and the transition symbols of the automaton.
+     * Epsilon is never interned, it is not an input symbol.
+     * @param automata
+     * @return SymbolTable
+     */
+    public static SymbolTable fromAutomata(Automata automata) {
+        TreeSet<String> symbols = new TreeSet<>(automata.getAlphabet());
+        for (State state : automata.getStates().keySet()) {
+            for (Transition transition : state.getTransitions()) {
+                symbols.add(transition.getTransitionSymbol());
+            }
+        }
+        symbols.remove(SpecialSymbols.EPSILON.toString());
+        symbols.remove("");
+        return new SymbolTable(new ArrayList<>(symbols));
+    }
+
+    /**
+     * Build a symbol table from an explicit list of symbols, keeping their order as ids.
+     * @param symbols
+     * @return SymbolTable
+     */
+    public static SymbolTable of(List<String> symbols) {
+        return new SymbolTable(symbols);
+    }
+
+    public int idOf(char symbol) {
+        return symbol < charIds.length ? charIds[symbol] : NO_SYMBOL;
+    }
+
+    public int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? NO_SYMBOL : id;
+    }
+
+    public String symbolAt(int id) {
+        return symbols[id];
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    public List<String> getSymbols() {
+        return Collections.unmodifiableList(Arrays.asList(symbols));
+    }
+}
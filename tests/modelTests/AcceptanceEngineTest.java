@@ -0,0 +1,134 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import components.SpecialSymbols;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.Transition;
+import model.engine.AcceptanceEngine;
+
+public class AcceptanceEngineTest {
+    private static final String EPSILON = SpecialSymbols.EPSILON.toString();
+
+    @Test
+    public void testDeterministicAutomaton() {
+        // Words over {a, b} with an even number of a's
+        List<State> states = states(2);
+        states.get(0).setAcceptingState(true);
+        states.get(0).addTransition(states.get(1), "a");
+        states.get(1).addTransition(states.get(0), "a");
+        states.get(0).addTransition(states.get(0), "b");
+        states.get(1).addTransition(states.get(1), "b");
+
+        AcceptanceEngine engine = AcceptanceEngine.compile(automata(states));
+        assertTrue(engine.isDeterministic());
+        assertTrue(engine.accepts(""));
+        assertTrue(engine.accepts("abba"));
+        assertFalse(engine.accepts("ab"));
+        assertFalse(engine.accepts("aca"));
+
+        AcceptanceEngine.Result result = engine.evaluate("bab");
+        assertFalse(result.isAccepted());
+        assertEquals(3, result.getSteps());
+        assertEquals(Set.of(states.get(1)), result.getFinalStates());
+
+        result = engine.evaluate("aacb");
+        assertFalse(result.isAccepted());
+        assertEquals(2, result.getSteps());
+        assertTrue(result.getFinalStates().isEmpty());
+    }
+
+    @Test
+    public void testNondeterministicAutomaton() {
+        // Words ending in "ab", with an ε-transition in the way
+        List<State> states = states(4);
+        states.get(3).setAcceptingState(true);
+        states.get(0).addTransition(states.get(0), "a");
+        states.get(0).addTransition(states.get(0), "b");
+        states.get(0).addTransition(states.get(1), EPSILON);
+        states.get(1).addTransition(states.get(2), "a");
+        states.get(2).addTransition(states.get(3), "b");
+
+        AcceptanceEngine engine = AcceptanceEngine.compile(automata(states));
+        assertFalse(engine.isDeterministic());
+
+        List<AcceptanceEngine.Result> results = engine.acceptsAll(List.of("ab", "ba", "bbab", ""));
+        assertEquals(4, results.size());
+        assertEquals("ba", results.get(1).getWord());
+        assertTrue(results.get(0).isAccepted());
+        assertFalse(results.get(1).isAccepted());
+        assertTrue(results.get(2).isAccepted());
+        assertFalse(results.get(3).isAccepted());
+        assertEquals(Set.of(states.get(0), states.get(1), states.get(3)), results.get(2).getFinalStates());
+        assertEquals(Set.of(states.get(0), states.get(1)), results.get(3).getFinalStates());
+    }
+
+    @Test
+    public void testIsCurrent() {
+        List<State> states = states(2);
+        states.get(0).addTransition(states.get(1), "a");
+        states.get(1).setAcceptingState(true);
+        Automata automata = automata(states);
+
+        AcceptanceEngine engine = AcceptanceEngine.compile(automata);
+        assertTrue(engine.isCurrent(automata));
+        assertTrue(engine.accepts("a"));
+
+        automata.addTransition(new Transition(states.get(1), states.get(1), "a"));
+        assertFalse(engine.isCurrent(automata));
+        assertTrue(AcceptanceEngine.compile(automata).accepts("aaa"));
+    }
+
+    @Test
+    public void testMirrorIsNotCurrentAfterEdit() {
+        List<State> states = states(2);
+        states.get(0).addTransition(states.get(1), "a");
+        states.get(1).setAcceptingState(true);
+        Automata automata = automata(states);
+        Automata mirror = new Automata(automata.getStates());
+
+        AcceptanceEngine engine = AcceptanceEngine.compile(mirror);
+        automata.setAlphabet("a");
+        mirror.markChanged();
+        assertFalse(engine.isCurrent(mirror));
+
+        engine = AcceptanceEngine.compile(mirror);
+        automata.renameState(states.get(1), "end");
+        assertFalse(engine.isCurrent(mirror));
+    }
+
+    @Test
+    public void testNoStartingState() {
+        State state = new State("q0");
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        states.put(state, new SerializablePoint2D());
+        assertThrows(IllegalArgumentException.class, () -> AcceptanceEngine.compile(new Automata(states)));
+    }
+
+    private static List<State> states(int size) {
+        List<State> states = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            states.add(new State("q" + i));
+        }
+        states.get(0).setStartingState(true);
+        return states;
+    }
+
+    private static Automata automata(List<State> list) {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        for (State state : list) {
+            states.put(state, new SerializablePoint2D());
+        }
+        return new Automata(states);
+    }
+}
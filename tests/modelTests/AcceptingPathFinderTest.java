@@ -0,0 +1,144 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import components.SpecialSymbols;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.engine.AcceptingPathFinder;
+
+public class AcceptingPathFinderTest {
+    private static final String EPSILON = SpecialSymbols.EPSILON.toString();
+
+    @Test
+    public void testShortestPath() {
+        List<State> chain = chain(3);
+        chain.get(0).addTransition(chain.get(1), "a");
+        chain.get(1).addTransition(chain.get(2), "b");
+        // A longer way round for "ab" through an ε-transition
+        chain.get(0).addTransition(chain.get(0), EPSILON);
+        chain.get(2).setAcceptingState(true);
+
+        AcceptingPathFinder finder = AcceptingPathFinder.compile(automata(chain));
+        assertEquals(List.of(chain.get(0), chain.get(1), chain.get(2)), finder.findShortestPath("ab"));
+        assertNull(finder.findShortestPath("a"));
+        assertNull(finder.findShortestPath("ac"));
+    }
+
+    @Test
+    public void testLiveStates() {
+        // q0 branches on "a" into q1, which can finish with "b", and into the dead end q2
+        List<State> chain = chain(4);
+        chain.get(0).addTransition(chain.get(1), "a");
+        chain.get(0).addTransition(chain.get(2), "a");
+        chain.get(1).addTransition(chain.get(3), "b");
+        chain.get(2).addTransition(chain.get(2), "b");
+        chain.get(1).addTransition(chain.get(3), EPSILON);
+        chain.get(3).setAcceptingState(true);
+
+        AcceptingPathFinder finder = AcceptingPathFinder.compile(automata(chain));
+        assertEquals(Set.of(chain.get(0)), finder.findLiveStates("ab", 0));
+        assertEquals(Set.of(chain.get(1)), finder.findLiveStates("ab", 1));
+        assertEquals(Set.of(chain.get(1), chain.get(3)), finder.findLiveStates("ab", 2));
+        assertTrue(finder.findLiveStates("ac", 1).isEmpty());
+    }
+
+    @Test
+    public void testPathEndsAtFirstAcceptingState() {
+        List<State> chain = chain(3);
+        chain.get(0).addTransition(chain.get(1), "a");
+        chain.get(1).addTransition(chain.get(2), EPSILON);
+        chain.get(1).setAcceptingState(true);
+        chain.get(2).setAcceptingState(true);
+
+        List<List<State>> paths = AcceptingPathFinder.compile(automata(chain)).findPaths("a", 10);
+        assertEquals(List.of(List.of(chain.get(0), chain.get(1))), paths);
+    }
+
+    @Test
+    public void testEpsilonCycle() {
+        List<State> chain = chain(3);
+        chain.get(0).addTransition(chain.get(1), "a");
+        chain.get(1).addTransition(chain.get(2), "b");
+        chain.get(2).addTransition(chain.get(0), EPSILON);
+        chain.get(0).addTransition(chain.get(2), EPSILON);
+        chain.get(0).setAcceptingState(true);
+
+        AcceptingPathFinder finder = AcceptingPathFinder.compile(automata(chain));
+        assertEquals(List.of(chain.get(0)), finder.findShortestPath(""));
+        assertEquals(List.of(chain.get(0), chain.get(1), chain.get(2), chain.get(0)), finder.findShortestPath("ab"));
+        assertEquals(1, finder.findPaths("ab", 10).size());
+        assertEquals(7, finder.findShortestPath("abab").size());
+    }
+
+    @Test
+    public void testAllPathsUpToLimit() {
+        // Two ways to read each symbol, so a word of length n has 2^n accepting paths
+        List<State> chain = chain(2);
+        chain.get(0).setAcceptingState(true);
+        chain.get(0).addTransition(chain.get(0), "a");
+        chain.get(0).addTransition(chain.get(1), EPSILON);
+        chain.get(1).addTransition(chain.get(0), "a");
+
+        AcceptingPathFinder finder = AcceptingPathFinder.compile(automata(chain));
+        List<List<State>> paths = finder.findPaths("aaa", 100);
+        assertEquals(8, paths.size());
+        assertEquals(paths.get(0), finder.findShortestPath("aaa"));
+        for (int i = 1; i < paths.size(); i++) {
+            assertTrue(paths.get(i - 1).size() <= paths.get(i).size());
+        }
+
+        assertEquals(5, finder.findPaths("aaaaaaaaaa", 5).size());
+        assertTrue(finder.findPaths("aaa", 0).isEmpty());
+    }
+
+    @Test
+    public void testLongWordOnEpsilonHeavyNFA() {
+        // A ring of states joined by ε-transitions, each also able to loop on a or b; only q0 accepts after a final c
+        int n = 30;
+        List<State> ring = chain(n + 1);
+        for (int i = 0; i < n; i++) {
+            ring.get(i).addTransition(ring.get((i + 1) % n), EPSILON);
+            ring.get(i).addTransition(ring.get(i), "a");
+            ring.get(i).addTransition(ring.get(i), "b");
+        }
+        ring.get(n - 1).addTransition(ring.get(n), "c");
+        ring.get(n).setAcceptingState(true);
+
+        AcceptingPathFinder finder = AcceptingPathFinder.compile(automata(ring));
+        String word = "ab".repeat(500) + "c";
+        List<State> path = finder.findShortestPath(word);
+        assertNotNull(path);
+        assertEquals(word.length() + n, path.size());
+        assertEquals(ring.get(n), path.get(path.size() - 1));
+
+        assertEquals(3, finder.findPaths(word, 3).size());
+        assertTrue(finder.findPaths("ab".repeat(500), 3).isEmpty());
+    }
+
+    private static List<State> chain(int size) {
+        List<State> chain = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            chain.add(new State("q" + i));
+        }
+        chain.get(0).setStartingState(true);
+        return chain;
+    }
+
+    private static Automata automata(List<State> list) {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        for (State state : list) {
+            states.put(state, new SerializablePoint2D());
+        }
+        return new Automata(states);
+    }
+}
@@ -0,0 +1,84 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.AutomataEvent;
+import model.AutomataListener;
+import model.State;
+import model.Transition;
+
+public class AutomataEventTest {
+    @Test
+    public void testEditsFireEvents() {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        List<AutomataEvent> events = new ArrayList<>();
+        automata.addAutomataListener(events::add);
+
+        State q0 = new State("q0");
+        State q1 = new State("q1");
+        automata.addState(q0, new SerializablePoint2D(1, 1));
+        automata.addState(q1, new SerializablePoint2D(2, 2));
+        Transition transition = new Transition(q0, q1, "a");
+        automata.addTransition(transition);
+        automata.updateTransitionSymbol(transition, "b");
+        automata.renameState(q1, "end");
+        automata.moveState(q0, new SerializablePoint2D(3, 3));
+
+        assertEquals(6, events.size());
+        assertEquals(AutomataEvent.Type.STATE_ADDED, events.get(0).getType());
+        assertSame(q0, events.get(0).getState());
+        assertEquals(AutomataEvent.Type.TRANSITION_ADDED, events.get(2).getType());
+        assertSame(transition, events.get(2).getTransition());
+        assertEquals(AutomataEvent.Type.TRANSITION_CHANGED, events.get(3).getType());
+        assertEquals(AutomataEvent.Type.STATE_CHANGED, events.get(4).getType());
+        assertEquals("end", events.get(4).getState().getName());
+        assertEquals(AutomataEvent.Type.STATE_MOVED, events.get(5).getType());
+        assertEquals(3, events.get(5).getPosition().getX());
+        assertTrue(q1.getTransitions().isEmpty());
+        assertSame(q1, q0.getNextStateFromSymbol("b"));
+    }
+
+    @Test
+    public void testRemovingStateRemovesIncomingTransitions() {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        State q0 = new State("q0");
+        State q1 = new State("q1");
+        automata.addState(q0, new SerializablePoint2D());
+        automata.addState(q1, new SerializablePoint2D());
+        automata.addTransition(new Transition(q0, q1, "a"));
+        automata.addTransition(new Transition(q1, q0, "b"));
+
+        List<AutomataEvent> events = new ArrayList<>();
+        automata.addAutomataListener(events::add);
+        automata.removeState(q1);
+
+        assertEquals(2, events.size());
+        assertEquals(AutomataEvent.Type.TRANSITION_REMOVED, events.get(0).getType());
+        assertSame(q0, events.get(0).getTransition().getSourceState());
+        assertEquals(AutomataEvent.Type.STATE_REMOVED, events.get(1).getType());
+        assertTrue(q0.getTransitions().isEmpty());
+        assertEquals(1, q1.getTransitions().size()); // The removed state keeps its own transitions
+    }
+
+    @Test
+    public void testRemovedListenerIsNotNotified() {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        List<AutomataEvent> events = new ArrayList<>();
+        AutomataListener listener = events::add;
+        automata.addAutomataListener(listener);
+        automata.setStates(new LinkedHashMap<>());
+        automata.removeAutomataListener(listener);
+        automata.clear();
+
+        assertEquals(1, events.size());
+        assertEquals(AutomataEvent.Type.RESET, events.get(0).getType());
+    }
+}
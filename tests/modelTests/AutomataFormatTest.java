@@ -0,0 +1,211 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import components.SpecialSymbols;
+import components.serialization.AutomataFormat;
+import components.serialization.AutomataIO;
+import components.serialization.SerializablePoint2D;
+import model.State;
+
+public class AutomataFormatTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Map<State, SerializablePoint2D> states = sample();
+        File file = tempDir.resolve("automata").toFile();
+        AutomataIO.saveAutomata(states, file);
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        assertTrue(AutomataFormat.isAutomataFormat(ByteBuffer.wrap(bytes)));
+
+        Map<State, SerializablePoint2D> loaded = AutomataIO.loadAutomata(file);
+        assertSameAutomata(states, loaded);
+    }
+
+    @Test
+    public void testLoadsLegacyFiles() throws Exception {
+        Map<State, SerializablePoint2D> states = sample();
+        File file = tempDir.resolve("legacy").toFile();
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+            out.writeObject(states);
+        }
+
+        assertSameAutomata(states, AutomataIO.loadAutomata(file));
+    }
+
+    @Test
+    public void testLargeAutomaton() throws Exception {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        State[] chain = new State[50000];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = new State("q" + i);
+            states.put(chain[i], new SerializablePoint2D(i, -i));
+        }
+        chain[0].setStartingState(true);
+        for (int i = 0; i < chain.length; i++) {
+            chain[i].addTransition(chain[(i + 1) % chain.length], "a");
+            chain[i].addTransition(chain[(i * 7) % chain.length], "b");
+        }
+
+        File file = tempDir.resolve("large").toFile();
+        AutomataIO.saveAutomata(states, file);
+        assertSameAutomata(states, AutomataIO.loadAutomata(file));
+    }
+
+    @Test
+    public void testRejectsTruncatedAndNewerFiles() throws IOException {
+        File file = tempDir.resolve("automata").toFile();
+        AutomataIO.saveAutomata(sample(), file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        byte[] truncated = java.util.Arrays.copyOf(bytes, bytes.length - 3);
+        assertThrows(IOException.class, () -> AutomataFormat.read(Channels.newChannel(new java.io.ByteArrayInputStream(truncated))));
+
+        bytes[5] = 99; // Version
+        assertThrows(IOException.class, () -> AutomataFormat.read(Channels.newChannel(new java.io.ByteArrayInputStream(bytes))));
+    }
+
+    @Test
+    public void testRejectsTruncatedFile() throws IOException {
+        File file = tempDir.resolve("automata").toFile();
+        AutomataIO.saveAutomata(sample(), file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        for (int length : new int[] {4, 10, bytes.length / 2, bytes.length - 1}) {
+            Files.write(file.toPath(), java.util.Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> AutomataIO.loadAutomata(file));
+        }
+    }
+
+    @Test
+    public void testRejectsOversizedCounts() throws IOException {
+        File file = tempDir.resolve("automata").toFile();
+        AutomataIO.saveAutomata(sample(), file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        // Number of symbols, then the length of the first symbol
+        for (int offset : new int[] {6, 10}) {
+            byte[] corrupt = bytes.clone();
+            ByteBuffer.wrap(corrupt).putInt(offset, Integer.MAX_VALUE);
+            Files.write(file.toPath(), corrupt);
+            IOException e = assertThrows(IOException.class, () -> AutomataIO.loadAutomata(file));
+            assertTrue(e.getMessage().contains(String.valueOf(Integer.MAX_VALUE)), e.getMessage());
+            // Without a known size the read has to run into the end of the data instead
+            assertThrows(IOException.class, () -> AutomataFormat.read(Channels.newChannel(new java.io.ByteArrayInputStream(corrupt))));
+        }
+    }
+
+    @Test
+    public void testProgressAndCancellation() throws Exception {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            states.put(new State("state" + i), new SerializablePoint2D(i, i));
+        }
+        File file = tempDir.resolve("automata").toFile();
+        long[] last = new long[2];
+        AutomataIO.saveAutomata(AutomataFormat.snapshot(states), file, (done, total) -> {
+            assertTrue(done >= last[0] && done <= total);
+            last[0] = done;
+            last[1] = total;
+            return true;
+        });
+        assertEquals(last[1], last[0]);
+
+        last[0] = 0;
+        assertEquals(states.size(), AutomataIO.loadAutomata(file, (done, total) -> {
+            assertTrue(done >= last[0] && done <= total);
+            last[0] = done;
+            return true;
+        }).size());
+        assertTrue(last[0] > 0);
+
+        assertThrows(InterruptedIOException.class, () -> AutomataIO.loadAutomata(file, (done, total) -> done == 0));
+    }
+
+    @Test
+    public void testCancelledSaveKeepsPreviousFile() throws Exception {
+        File file = tempDir.resolve("automata").toFile();
+        AutomataIO.saveAutomata(sample(), file);
+        byte[] previous = Files.readAllBytes(file.toPath());
+
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            states.put(new State("state" + i), new SerializablePoint2D(i, i));
+        }
+        assertThrows(InterruptedIOException.class, () -> AutomataIO.saveAutomata(AutomataFormat.snapshot(states), file, (done, total) -> false));
+
+        assertArrayEquals(previous, Files.readAllBytes(file.toPath()));
+        try (java.util.stream.Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testSaveKeepsPermissionsOfReplacedFile() throws Exception {
+        File file = tempDir.resolve("automata").toFile();
+        AutomataIO.saveAutomata(sample(), file);
+        assumeTrue(Files.getFileStore(file.toPath()).supportsFileAttributeView(PosixFileAttributeView.class));
+
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r--r--");
+        Files.setPosixFilePermissions(file.toPath(), permissions);
+        AutomataIO.saveAutomata(sample(), file);
+        assertEquals(permissions, Files.getPosixFilePermissions(file.toPath()));
+    }
+
+    private static Map<State, SerializablePoint2D> sample() {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        State state0 = new State("q0");
+        State state1 = new State("q1 ✓");
+        State state2 = new State("q2");
+        states.put(state0, new SerializablePoint2D(100.5, 200));
+        states.put(state1, new SerializablePoint2D(300, 400.25));
+        states.put(state2, new SerializablePoint2D(500, 100));
+        state0.setStartingState(true);
+        state1.setAcceptingState(true);
+        state2.toggleDiscarded();
+        state0.addTransition(state1, "a");
+        state0.addTransition(state0, "b");
+        state1.addTransition(state2, SpecialSymbols.EPSILON.toString());
+        state2.addTransition(state0, "a");
+        return states;
+    }
+
+    private static void assertSameAutomata(Map<State, SerializablePoint2D> expected, Map<State, SerializablePoint2D> actual) {
+        assertEquals(expected.size(), actual.size());
+        Map<String, State> byName = new HashMap<>();
+        for (State state : actual.keySet()) {
+            byName.put(state.getName(), state);
+        }
+        for (Map.Entry<State, SerializablePoint2D> entry : expected.entrySet()) {
+            State state = byName.get(entry.getKey().getName());
+            assertNotNull(state, entry.getKey().getName());
+            assertTrue(entry.getKey().structurallyEquals(state), state.getName());
+            assertEquals(entry.getKey().isDiscarded(), state.isDiscarded());
+            assertEquals(entry.getValue().getX(), actual.get(state).getX());
+            assertEquals(entry.getValue().getY(), actual.get(state).getY());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import components.SpecialSymbols;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.engine.AcceptanceEngine;
+import model.engine.BatchRunner;
+
+public class BatchRunnerTest {
+    private static final String EPSILON = SpecialSymbols.EPSILON.toString();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testResultsInInputOrder() {
+        AcceptanceEngine engine = AcceptanceEngine.compile(endsInAB());
+        Random random = new Random(7);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = random.nextInt(12); length > 0; length--) {
+                word.append(random.nextBoolean() ? 'a' : 'b');
+            }
+            words.add(word.toString());
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BatchRunner.BatchResult result = new BatchRunner(engine, pool).run(words);
+            assertEquals(words.size(), result.size());
+            int accepted = 0;
+            long symbols = 0;
+            for (int i = 0; i < words.size(); i++) {
+                assertEquals(words.get(i), result.getWord(i));
+                assertEquals(words.get(i).endsWith("ab"), result.isAccepted(i), words.get(i));
+                accepted += result.isAccepted(i) ? 1 : 0;
+                symbols += words.get(i).length();
+            }
+            assertEquals(accepted, result.getAcceptedCount());
+            assertEquals(symbols, result.getSymbolCount());
+            assertTrue(result.getWordsPerSecond() > 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreamAndFile() throws IOException {
+        BatchRunner runner = new BatchRunner(AcceptanceEngine.compile(endsInAB()));
+
+        BatchRunner.BatchResult result = runner.run(Stream.of("ab", "ba", "aab"));
+        assertEquals(2, result.getAcceptedCount());
+        assertFalse(result.isAccepted(1));
+
+        Path file = tempDir.resolve("words.txt");
+        Files.write(file, List.of("bab", "", "abc", "ab"), StandardCharsets.UTF_8);
+        result = runner.run(file);
+        assertEquals(4, result.size());
+        assertTrue(result.isAccepted(0));
+        assertFalse(result.isAccepted(1));
+        assertFalse(result.isAccepted(2));
+        assertTrue(result.isAccepted(3));
+        assertEquals(8, result.getSymbolCount());
+    }
+
+    // Words over {a, b} ending in "ab", through an ε-transition
+    private static Automata endsInAB() {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        State state0 = new State("q0");
+        State state1 = new State("q1");
+        State state2 = new State("q2");
+        State state3 = new State("q3");
+        states.put(state0, new SerializablePoint2D());
+        states.put(state1, new SerializablePoint2D());
+        states.put(state2, new SerializablePoint2D());
+        states.put(state3, new SerializablePoint2D());
+        state0.setStartingState(true);
+        state3.setAcceptingState(true);
+        state0.addTransition(state0, "a");
+        state0.addTransition(state0, "b");
+        state0.addTransition(state1, EPSILON);
+        state1.addTransition(state2, "a");
+        state2.addTransition(state3, "b");
+        return new Automata(states);
+    }
+}
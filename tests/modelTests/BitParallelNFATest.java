@@ -0,0 +1,96 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import components.SpecialSymbols;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.engine.BitParallelNFA;
+
+public class BitParallelNFATest {
+    private static final String EPSILON = SpecialSymbols.EPSILON.toString();
+
+    private Map<State, SerializablePoint2D> states;
+    private Automata automata;
+    private State state0;
+    private State state1;
+    private State state2;
+    private State state3;
+
+    @BeforeEach
+    public void setUp() {
+        // Accepts words over {a, b} that end in "ab", with an ε-cycle between q0 and q1
+        states = new HashMap<>();
+        state0 = new State("q0");
+        state1 = new State("q1");
+        state2 = new State("q2");
+        state3 = new State("q3");
+        states.put(state0, new SerializablePoint2D());
+        states.put(state1, new SerializablePoint2D());
+        states.put(state2, new SerializablePoint2D());
+        states.put(state3, new SerializablePoint2D());
+
+        state0.setStartingState(true);
+        state3.setAcceptingState(true);
+        state0.addTransition(state1, EPSILON);
+        state1.addTransition(state0, EPSILON);
+        state0.addTransition(state0, "a");
+        state0.addTransition(state0, "b");
+        state1.addTransition(state2, "a");
+        state2.addTransition(state3, "b");
+
+        automata = new Automata(states);
+    }
+
+    @Test
+    public void testAccepts() {
+        BitParallelNFA nfa = BitParallelNFA.compile(automata);
+
+        assertTrue(nfa.accepts("ab"));
+        assertTrue(nfa.accepts("babab"));
+        assertFalse(nfa.accepts(""));
+        assertFalse(nfa.accepts("aba"));
+        assertFalse(nfa.accepts("abc"));
+    }
+
+    @Test
+    public void testStartSetIncludesEpsilonClosure() {
+        BitParallelNFA nfa = BitParallelNFA.compile(automata);
+
+        Set<State> startStates = nfa.toStates(nfa.getStartSet());
+        assertEquals(Set.of(state0, state1), startStates);
+    }
+
+    @Test
+    public void testRunReturnsFinalStates() {
+        BitParallelNFA nfa = BitParallelNFA.compile(automata);
+
+        assertEquals(Set.of(state0, state1, state2), nfa.toStates(nfa.run("a")));
+        assertEquals(Set.of(state0, state1, state3), nfa.toStates(nfa.run("ab")));
+    }
+
+    @Test
+    public void testManyStatesAcrossWords() {
+        // A chain longer than one 64 bit word: q0 -ε-> c0 -a-> c1 -a-> ... -a-> c99
+        State previous = state0;
+        for (int i = 0; i < 100; i++) {
+            State chainState = new State("c" + i);
+            states.put(chainState, new SerializablePoint2D());
+            previous.addTransition(chainState, i == 0 ? EPSILON : "a");
+            previous = chainState;
+        }
+        previous.setAcceptingState(true);
+
+        BitParallelNFA nfa = BitParallelNFA.compile(automata);
+        assertTrue(nfa.accepts("a".repeat(99)));
+        assertTrue(nfa.getWords() > 1);
+    }
+}
@@ -0,0 +1,236 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import components.serialization.EditJournal;
+import components.serialization.SerializablePoint2D;
+import controller.commands.AddStateCommand;
+import controller.commands.AddTransitionCommand;
+import controller.commands.Command;
+import controller.commands.CommandHistory;
+import controller.commands.DeleteStateCommand;
+import controller.commands.MoveStateCommand;
+import controller.commands.RenameStateCommand;
+import controller.commands.RetargetTransitionCommand;
+import controller.commands.SetAlphabetCommand;
+import controller.commands.ToggleDiscardedCommand;
+import controller.commands.ToggleStateCommand;
+import controller.commands.UpdateTransitionSymbolCommand;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+public class CommandHistoryTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testUndoAndRedo() {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        Map<State, SerializablePoint2D> states = automata.getStates();
+        CommandHistory history = new CommandHistory();
+        State q0 = new State("q0");
+        State q1 = new State("q1");
+        history.execute(new AddStateCommand(automata, q0, new SerializablePoint2D(1, 1)));
+        history.execute(new AddStateCommand(automata, q1, new SerializablePoint2D(2, 2)));
+        Transition transition = new Transition(q0, q1, "a");
+        history.execute(new AddTransitionCommand(automata, transition));
+        history.execute(new UpdateTransitionSymbolCommand(automata, transition, "b"));
+        history.execute(new RenameStateCommand(automata, q1, "end"));
+        history.execute(new ToggleStateCommand(automata, q1, ToggleStateCommand.Flag.ACCEPTING));
+        history.execute(new MoveStateCommand(automata, q0, states.get(q0), new SerializablePoint2D(5, 5)));
+
+        assertEquals(7, history.getUndoCount());
+        assertEquals(5, states.get(q0).getX());
+        assertEquals("b", transition.getTransitionSymbol());
+        assertSame(q1, q0.getNextStateFromSymbol("b"));
+
+        while (history.canUndo()) {
+            history.undo();
+        }
+        assertTrue(states.isEmpty());
+        assertTrue(q0.getTransitions().isEmpty());
+        assertEquals("q1", q1.getName());
+        assertFalse(q1.isAcceptingState());
+
+        while (history.canRedo()) {
+            history.redo();
+        }
+        assertEquals(2, states.size());
+        assertEquals(5, states.get(q0).getX());
+        assertEquals("end", q1.getName());
+        assertTrue(q1.isAcceptingState());
+        assertSame(q1, q0.getNextStateFromSymbol("b"));
+
+        history.undo();
+        history.execute(new ToggleStateCommand(automata, q0, ToggleStateCommand.Flag.STARTING));
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    public void testRetargetTransition() {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        State q0 = new State("q0");
+        State q1 = new State("q1");
+        State q2 = new State("q2");
+        automata.addState(q0, new SerializablePoint2D(0, 0));
+        automata.addState(q1, new SerializablePoint2D(1, 0));
+        automata.addState(q2, new SerializablePoint2D(2, 0));
+        Transition transition = new Transition(q0, q1, "a");
+        automata.addTransition(transition);
+
+        CommandHistory history = new CommandHistory();
+        history.execute(new RetargetTransitionCommand(automata, transition, q0, q2));
+        assertSame(q2, q0.getNextStateFromSymbol("a"));
+        history.execute(new RetargetTransitionCommand(automata, transition, q1, q2));
+        assertTrue(q0.getTransitions().isEmpty());
+        assertSame(q2, q1.getNextStateFromSymbol("a"));
+        assertSame(q1, transition.getSourceState());
+
+        history.undo();
+        assertTrue(q1.getTransitions().isEmpty());
+        assertSame(q2, q0.getNextStateFromSymbol("a"));
+        history.undo();
+        assertSame(q1, q0.getNextStateFromSymbol("a"));
+        assertEquals(1, q0.getTransitions().size());
+
+        history.redo();
+        history.redo();
+        assertSame(transition, q1.getTransitionBySymbol("a"));
+        assertSame(q2, transition.getTargetState());
+    }
+
+    @Test
+    public void testDeleteStateRestoresTransitions() {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        Map<State, SerializablePoint2D> states = automata.getStates();
+        State q0 = new State("q0");
+        State q1 = new State("q1");
+        State q2 = new State("q2");
+        states.put(q0, new SerializablePoint2D(0, 0));
+        states.put(q1, new SerializablePoint2D(1, 0));
+        states.put(q2, new SerializablePoint2D(2, 0));
+        q0.addTransition(q1, "a");
+        q2.addTransition(q1, "b");
+        q1.addTransition(q1, "a");
+        q1.addTransition(q2, "a");
+
+        CommandHistory history = new CommandHistory();
+        history.execute(new DeleteStateCommand(automata, q1));
+        assertFalse(states.containsKey(q1));
+        assertTrue(q0.getTransitions().isEmpty());
+        assertTrue(q2.getTransitions().isEmpty());
+
+        history.undo();
+        assertEquals(1, states.get(q1).getX());
+        assertSame(q1, q0.getNextStateFromSymbol("a"));
+        assertSame(q1, q2.getNextStateFromSymbol("b"));
+        assertEquals(2, q1.getTransitions().size());
+    }
+
+    @Test
+    public void testToggleDiscarded() {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        Map<State, SerializablePoint2D> states = automata.getStates();
+        State q0 = new State("q0");
+        State q1 = new State("q1");
+        states.put(q0, new SerializablePoint2D(10, 10));
+        states.put(q1, new SerializablePoint2D(20, 20));
+        q0.setStartingState(true);
+        q0.setAcceptingState(true);
+        q0.addTransition(q1, "a");
+        q1.addTransition(q0, "b");
+
+        CommandHistory history = new CommandHistory();
+        history.execute(new ToggleDiscardedCommand(automata, q0));
+        assertTrue(q0.isDiscarded());
+        assertFalse(q0.isStartingState() || q0.isAcceptingState());
+        assertTrue(q0.getTransitions().isEmpty());
+        assertTrue(q1.getTransitions().isEmpty());
+
+        history.undo();
+        assertFalse(q0.isDiscarded());
+        assertTrue(q0.isStartingState() && q0.isAcceptingState());
+        assertEquals(10, states.get(q0).getX());
+        assertSame(q1, q0.getNextStateFromSymbol("a"));
+        assertSame(q0, q1.getNextStateFromSymbol("b"));
+    }
+
+    @Test
+    public void testMemoryLimit() {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        Map<State, SerializablePoint2D> states = automata.getStates();
+        State state = new State("q0");
+        states.put(state, new SerializablePoint2D());
+        CommandHistory history = new CommandHistory(Long.MAX_VALUE);
+        for (int i = 0; i < 100; i++) {
+            history.execute(new MoveStateCommand(automata, state, states.get(state), new SerializablePoint2D(i, i)));
+        }
+        long perCommand = history.getMemoryUsed() / 100;
+        assertTrue(perCommand > 0);
+
+        history.setMemoryLimit(perCommand * 10);
+        assertEquals(10, history.getUndoCount());
+        assertTrue(history.getMemoryUsed() <= history.getMemoryLimit());
+        while (history.canUndo()) {
+            history.undo();
+        }
+        assertEquals(89, states.get(state).getX());
+
+        // The most recent command survives even a limit it does not fit in
+        history.setMemoryLimit(0);
+        history.execute(new MoveStateCommand(automata, state, states.get(state), new SerializablePoint2D(-1, -1)));
+        assertEquals(1, history.getUndoCount());
+        assertEquals(0, history.getRedoCount());
+    }
+
+    @Test
+    public void testUndoneCommandsAreJournalled() throws IOException {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        State q0 = new State("q0");
+        State q1 = new State("q1");
+        automata.getStates().put(q0, new SerializablePoint2D(0, 0));
+        automata.getStates().put(q1, new SerializablePoint2D(1, 1));
+        q0.setAcceptingState(true);
+        q0.addTransition(q1, "a");
+        q1.addTransition(q0, "b");
+
+        CommandHistory history = new CommandHistory();
+        try (EditJournal journal = EditJournal.create(tempDir, automata)) {
+            Command[] commands = {
+                new DeleteStateCommand(automata, q0),
+                new SetAlphabetCommand(automata, "xyz"),
+            };
+            for (Command command : commands) {
+                history.execute(command);
+                command.journal(journal, false);
+            }
+            while (history.canUndo()) {
+                history.undo().journal(journal, true);
+            }
+        }
+
+        EditJournal.Recovered recovered = EditJournal.recover(tempDir);
+        assertEquals(2, recovered.getStates().size());
+        assertEquals("ab", sorted(recovered.getAlphabet()));
+        for (State state : recovered.getStates().keySet()) {
+            State original = state.getId() == q0.getId() ? q0 : q1;
+            assertTrue(original.structurallyEquals(state), original.getName());
+            assertEquals(original.getTransitions().size(), state.getTransitions().size());
+        }
+    }
+
+    private static String sorted(String value) {
+        char[] chars = value.toCharArray();
+        java.util.Arrays.sort(chars);
+        return new String(chars);
+    }
+}
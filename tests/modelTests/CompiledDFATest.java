@@ -0,0 +1,87 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import components.SpecialSymbols;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.engine.CompiledDFA;
+
+public class CompiledDFATest {
+    private Automata automata;
+    private State state1;
+    private State state2;
+
+    @BeforeEach
+    public void setUp() {
+        // Accepts words over {a, b} with an odd number of a's
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        state1 = new State("q1");
+        state2 = new State("q2");
+        states.put(state1, new SerializablePoint2D());
+        states.put(state2, new SerializablePoint2D());
+
+        state1.setStartingState(true);
+        state2.setAcceptingState(true);
+        state1.addTransition(state2, "a");
+        state1.addTransition(state1, "b");
+        state2.addTransition(state1, "a");
+        state2.addTransition(state2, "b");
+
+        automata = new Automata(states);
+        automata.setAsDFA();
+    }
+
+    @Test
+    public void testAccepts() {
+        CompiledDFA dfa = CompiledDFA.compile(automata);
+
+        assertTrue(dfa.accepts("a"));
+        assertTrue(dfa.accepts("bab"));
+        assertTrue(dfa.accepts("aaa"));
+        assertFalse(dfa.accepts(""));
+        assertFalse(dfa.accepts("aa"));
+        assertFalse(dfa.accepts("ac"));
+    }
+
+    @Test
+    public void testTableShape() {
+        CompiledDFA dfa = CompiledDFA.compile(automata);
+
+        assertEquals(2, dfa.getNumStates());
+        assertEquals(2, dfa.getNumSymbols());
+        assertEquals(state1, dfa.stateAt(dfa.getStartState()));
+
+        int next = dfa.step(dfa.getStartState(), dfa.getSymbols().idOf('a'));
+        assertEquals(state2, dfa.stateAt(next));
+        assertTrue(dfa.isAccepting(next));
+    }
+
+    @Test
+    public void testMissingTransitionRejects() {
+        state2.removeTransition(state2.getTransitionBySymbol("b"));
+        CompiledDFA dfa = CompiledDFA.compile(automata);
+
+        assertTrue(dfa.accepts("ba"));
+        assertFalse(dfa.accepts("ab"));
+    }
+
+    @Test
+    public void testRejectsNonDeterministicAutomata() {
+        state1.addTransition(state2, SpecialSymbols.EPSILON.toString());
+        assertThrows(IllegalArgumentException.class, () -> CompiledDFA.compile(automata));
+    }
+
+    @Test
+    public void testRequiresStartingState() {
+        state1.setStartingState(false);
+        assertThrows(IllegalArgumentException.class, () -> CompiledDFA.compile(automata));
+    }
+}
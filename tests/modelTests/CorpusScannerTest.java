@@ -0,0 +1,101 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import components.SpecialSymbols;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.engine.CorpusScanner;
+
+public class CorpusScannerTest {
+    private static final String EPSILON = SpecialSymbols.EPSILON.toString();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testOffsetsOfMatchingLines() throws IOException {
+        Path corpus = write("ab\nba\n\nbbab\r\nabc\nab");
+        StringWriter out = new StringWriter();
+
+        long matches = CorpusScanner.compile(endsInAB()).scan(corpus, out);
+        assertEquals(3, matches);
+        assertEquals("0\n7\n17\n", out.toString());
+    }
+
+    @Test
+    public void testDeterministicAutomaton() throws IOException {
+        // Words with an even number of a's, including the empty line
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        State even = new State("even");
+        State odd = new State("odd");
+        states.put(even, new SerializablePoint2D());
+        states.put(odd, new SerializablePoint2D());
+        even.setStartingState(true);
+        even.setAcceptingState(true);
+        even.addTransition(odd, "a");
+        odd.addTransition(even, "a");
+        even.addTransition(even, "b");
+        odd.addTransition(odd, "b");
+
+        Path corpus = write("aa\n\nab\nbaab\n");
+        List<Long> offsets = new ArrayList<>();
+        assertEquals(3, CorpusScanner.compile(new Automata(states)).scan(corpus, offsets::add));
+        assertEquals(List.of(0L, 3L, 7L), offsets);
+    }
+
+    @Test
+    public void testCountOnLargeCorpus() throws IOException {
+        StringBuilder text = new StringBuilder();
+        int expected = 0;
+        for (int i = 0; i < 100000; i++) {
+            String line = Integer.toBinaryString(i).replace('0', 'a').replace('1', 'b');
+            text.append(line).append('\n');
+            expected += line.endsWith("ab") ? 1 : 0;
+        }
+
+        assertEquals(expected, CorpusScanner.compile(endsInAB()).count(write(text.toString())));
+        assertEquals(0, CorpusScanner.compile(endsInAB()).count(write("")));
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = Files.createTempFile(tempDir, "corpus", ".txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    // Words over {a, b} ending in "ab", through an ε-transition
+    private static Automata endsInAB() {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        State state0 = new State("q0");
+        State state1 = new State("q1");
+        State state2 = new State("q2");
+        State state3 = new State("q3");
+        states.put(state0, new SerializablePoint2D());
+        states.put(state1, new SerializablePoint2D());
+        states.put(state2, new SerializablePoint2D());
+        states.put(state3, new SerializablePoint2D());
+        state0.setStartingState(true);
+        state3.setAcceptingState(true);
+        state0.addTransition(state0, "a");
+        state0.addTransition(state0, "b");
+        state0.addTransition(state1, EPSILON);
+        state1.addTransition(state2, "a");
+        state2.addTransition(state3, "b");
+        return new Automata(states);
+    }
+}
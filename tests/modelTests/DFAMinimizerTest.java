@@ -0,0 +1,125 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.engine.CompiledDFA;
+import model.engine.DFAMinimizer;
+
+public class DFAMinimizerTest {
+    private Map<State, SerializablePoint2D> states;
+    private Automata automata;
+    private State state1;
+    private State state2;
+    private State state3;
+    private State state4;
+
+    @BeforeEach
+    public void setUp() {
+        // Odd number of a's, with q3 a duplicate of q1 and q4 unreachable
+        states = new HashMap<>();
+        state1 = new State("q1");
+        state2 = new State("q2");
+        state3 = new State("q3");
+        state4 = new State("q4");
+        states.put(state1, new SerializablePoint2D(10, 20));
+        states.put(state2, new SerializablePoint2D());
+        states.put(state3, new SerializablePoint2D());
+        states.put(state4, new SerializablePoint2D());
+
+        state1.setStartingState(true);
+        state2.setAcceptingState(true);
+        state1.addTransition(state2, "a");
+        state1.addTransition(state1, "b");
+        state2.addTransition(state3, "a");
+        state2.addTransition(state2, "b");
+        state3.addTransition(state2, "a");
+        state3.addTransition(state3, "b");
+        state4.addTransition(state1, "a");
+        state4.addTransition(state4, "b");
+
+        automata = new Automata(states);
+        automata.setAsDFA();
+    }
+
+    @Test
+    public void testMergesEquivalentAndDropsUnreachableStates() {
+        Map<State, SerializablePoint2D> minimized = DFAMinimizer.minimize(automata);
+        assertEquals(2, minimized.size());
+
+        State start = null;
+        for (State state : minimized.keySet()) {
+            if (state.isStartingState()) {
+                start = state;
+            }
+        }
+        assertNotNull(start);
+        assertEquals("q1", start.getName());
+        assertEquals(10.0, minimized.get(start).getX());
+        assertEquals(start, start.getNextStateFromSymbol("a").getNextStateFromSymbol("a"));
+        assertTrue(start.getNextStateFromSymbol("a").isAcceptingState());
+    }
+
+    @Test
+    public void testKeepsMissingTransitionsMissing() {
+        state2.removeTransition(state2.getTransitionBySymbol("b"));
+        state3.removeTransition(state3.getTransitionBySymbol("b"));
+
+        Map<State, SerializablePoint2D> minimized = DFAMinimizer.minimize(automata);
+        assertEquals(3, minimized.size());
+
+        CompiledDFA dfa = CompiledDFA.compile(new Automata(minimized));
+        assertTrue(dfa.accepts("a"));
+        assertFalse(dfa.accepts("ab"));
+        assertFalse(dfa.accepts("aa"));
+    }
+
+    @Test
+    public void testRandomDFAsKeepTheirLanguage() {
+        Random random = new Random(7);
+        for (int round = 0; round < 30; round++) {
+            Map<State, SerializablePoint2D> randomStates = new HashMap<>();
+            List<State> list = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                State state = new State("s" + i);
+                state.setAcceptingState(random.nextInt(3) == 0);
+                randomStates.put(state, new SerializablePoint2D());
+                list.add(state);
+            }
+            list.get(0).setStartingState(true);
+            for (State state : list) {
+                for (String symbol : new String[] {"a", "b"}) {
+                    if (random.nextInt(8) != 0) {
+                        state.addTransition(list.get(random.nextInt(list.size())), symbol);
+                    }
+                }
+            }
+
+            Automata original = new Automata(randomStates);
+            CompiledDFA before = CompiledDFA.compile(original);
+            Map<State, SerializablePoint2D> minimized = DFAMinimizer.minimize(original);
+            CompiledDFA after = CompiledDFA.compile(new Automata(minimized));
+
+            assertTrue(minimized.size() <= list.size());
+            assertEquals(minimized.size(), DFAMinimizer.minimize(new Automata(minimized)).size());
+            for (int w = 0; w < 100; w++) {
+                StringBuilder word = new StringBuilder();
+                for (int length = random.nextInt(10); length > 0; length--) {
+                    word.append(random.nextBoolean() ? 'a' : 'b');
+                }
+                assertEquals(before.accepts(word), after.accepts(word), word.toString());
+            }
+        }
+    }
+}
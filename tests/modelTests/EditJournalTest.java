@@ -0,0 +1,195 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import components.serialization.EditJournal;
+import components.serialization.SerializablePoint2D;
+import controller.commands.Command;
+import controller.commands.RetargetTransitionCommand;
+import model.Automata;
+import model.State;
+import model.Transition;
+
+public class EditJournalTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReplaysEdits() throws IOException {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        automata.setAlphabet("ab");
+        State q0 = new State("q0");
+        automata.getStates().put(q0, new SerializablePoint2D(1, 2));
+
+        try (EditJournal journal = EditJournal.create(tempDir, automata)) {
+            State q1 = new State("q1");
+            State q2 = new State("q2");
+            automata.getStates().put(q1, new SerializablePoint2D(3, 4));
+            journal.addState(q1, new SerializablePoint2D(3, 4));
+            automata.getStates().put(q2, new SerializablePoint2D(5, 6));
+            journal.addState(q2, new SerializablePoint2D(5, 6));
+
+            q0.toggleStartingState();
+            journal.updateStartingState(q0);
+            q1.toggleAcceptingState();
+            journal.updateAcceptingState(q1);
+
+            q0.addTransition(q1, "a");
+            journal.addTransition(q0, q1, "a");
+            q0.addTransition(q2, "b");
+            journal.addTransition(q0, q2, "b");
+            q2.addTransition(q1, "a");
+            journal.addTransition(q2, q1, "a");
+
+            Transition removed = q0.getTransitionBySymbol("b");
+            q0.removeTransition(removed);
+            journal.removeTransition(removed);
+
+            q1.updateName("accept");
+            journal.updateStateName(q1);
+            automata.getStates().put(q1, new SerializablePoint2D(7, 8));
+            journal.moveState(q1, new SerializablePoint2D(7, 8));
+
+            automata.getStates().remove(q2);
+            journal.deleteState(q2);
+            journal.setAlphabet("abc");
+        }
+
+        EditJournal.Recovered recovered = EditJournal.recover(tempDir);
+        assertEquals(13, recovered.getRecordCount()); // The alphabet record and the twelve edits
+        assertEquals("abc", recovered.getAlphabet());
+        assertSameStates(automata.getStates(), recovered.getStates());
+    }
+
+    @Test
+    public void testReplaysRetargetedTransitions() throws IOException {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        automata.setAlphabet("ab");
+        State q0 = new State("q0");
+        State q1 = new State("q1");
+        State q2 = new State("q2");
+        automata.getStates().put(q0, new SerializablePoint2D(0, 0));
+        automata.getStates().put(q1, new SerializablePoint2D(1, 0));
+        automata.getStates().put(q2, new SerializablePoint2D(2, 0));
+        Transition moved = new Transition(q0, q1, "a");
+        automata.addTransition(moved);
+        Transition undone = new Transition(q1, q2, "b");
+        automata.addTransition(undone);
+
+        try (EditJournal journal = EditJournal.create(tempDir, automata)) {
+            Command target = new RetargetTransitionCommand(automata, moved, q0, q2);
+            target.execute();
+            target.journal(journal, false);
+            Command source = new RetargetTransitionCommand(automata, moved, q1, q2);
+            source.execute();
+            source.journal(journal, false);
+
+            Command reverted = new RetargetTransitionCommand(automata, undone, q0, q0);
+            reverted.execute();
+            reverted.journal(journal, false);
+            reverted.undo();
+            reverted.journal(journal, true);
+        }
+
+        EditJournal.Recovered recovered = EditJournal.recover(tempDir);
+        assertSameStates(automata.getStates(), recovered.getStates());
+        for (State state : recovered.getStates().keySet()) {
+            if (state.getId() == q0.getId()) {
+                assertTrue(state.getTransitions().isEmpty());
+            } else if (state.getId() == q1.getId()) {
+                assertEquals(2, state.getTransitions().size());
+                assertEquals(q2.getId(), state.getTransitionBySymbol("a").getTargetState().getId());
+                assertEquals(q2.getId(), state.getTransitionBySymbol("b").getTargetState().getId());
+            }
+        }
+    }
+
+    @Test
+    public void testIgnoresTornRecord() throws IOException {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        try (EditJournal journal = EditJournal.create(tempDir, automata)) {
+            for (int i = 0; i < 3; i++) {
+                State state = new State("q" + i);
+                automata.getStates().put(state, new SerializablePoint2D(i, i));
+                journal.addState(state, new SerializablePoint2D(i, i));
+            }
+        }
+
+        Path journalFile = tempDir.resolve("journal");
+        byte[] bytes = Files.readAllBytes(journalFile);
+        Files.write(journalFile, Arrays.copyOf(bytes, bytes.length - 5));
+        assertEquals(2, EditJournal.recover(tempDir).getStates().size());
+
+        // A record with a bad CRC ends the journal as well
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(journalFile, bytes);
+        assertEquals(2, EditJournal.recover(tempDir).getStates().size());
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        State state = new State("q0");
+        automata.getStates().put(state, new SerializablePoint2D());
+
+        try (EditJournal journal = EditJournal.create(tempDir, automata)) {
+            long generation = journal.getGeneration();
+            for (int i = 0; i < EditJournal.COMPACT_AFTER + 10; i++) {
+                state.toggleAcceptingState();
+                journal.updateAcceptingState(state);
+            }
+            assertEquals(generation + 1, journal.getGeneration());
+            assertEquals(10, journal.getRecordCount());
+        }
+
+        EditJournal.Recovered recovered = EditJournal.recover(tempDir);
+        // The alphabet record that starts every journal, then the edits since the compaction
+        assertEquals(11, recovered.getRecordCount());
+        assertSameStates(automata.getStates(), recovered.getStates());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(2, files.count()); // The journal and its snapshot
+        }
+    }
+
+    @Test
+    public void testCreateDiscardsPreviousWork() throws IOException {
+        Automata automata = new Automata(new LinkedHashMap<>());
+        try (EditJournal journal = EditJournal.create(tempDir, automata)) {
+            State state = new State("q0");
+            automata.getStates().put(state, new SerializablePoint2D());
+            journal.addState(state, new SerializablePoint2D());
+        }
+        assertFalse(EditJournal.recover(tempDir).isEmpty());
+
+        EditJournal.create(tempDir, new Automata(new LinkedHashMap<>())).close();
+        assertTrue(EditJournal.recover(tempDir).isEmpty());
+        assertNull(EditJournal.recover(tempDir.resolve("missing")));
+    }
+
+    private static void assertSameStates(Map<State, SerializablePoint2D> expected, Map<State, SerializablePoint2D> actual) {
+        assertEquals(expected.size(), actual.size());
+        Map<Integer, State> actualById = new LinkedHashMap<>();
+        for (State state : actual.keySet()) {
+            actualById.put(state.getId(), state);
+        }
+        for (Map.Entry<State, SerializablePoint2D> entry : expected.entrySet()) {
+            State state = actualById.get(entry.getKey().getId());
+            assertNotNull(state, entry.getKey().getName());
+            assertTrue(entry.getKey().structurallyEquals(state), entry.getKey().getName());
+            assertEquals(entry.getKey().getTransitions().size(), state.getTransitions().size());
+            assertEquals(entry.getValue().getX(), actual.get(state).getX());
+            assertEquals(entry.getValue().getY(), actual.get(state).getY());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import components.SpecialSymbols;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.Transition;
+import model.engine.BitParallelNFA;
+import model.engine.EpsilonClosure;
+
+public class EpsilonClosureTest {
+    private static final String EPSILON = SpecialSymbols.EPSILON.toString();
+
+    private Map<State, SerializablePoint2D> states;
+    private Automata automata;
+    private State state0;
+    private State state1;
+    private State state2;
+    private State state3;
+
+    @BeforeEach
+    public void setUp() {
+        // q0 -ε-> q1 -ε-> q2 -ε-> q1 forms an ε-cycle, q2 -a-> q3
+        states = new HashMap<>();
+        state0 = new State("q0");
+        state1 = new State("q1");
+        state2 = new State("q2");
+        state3 = new State("q3");
+        states.put(state0, new SerializablePoint2D());
+        states.put(state1, new SerializablePoint2D());
+        states.put(state2, new SerializablePoint2D());
+        states.put(state3, new SerializablePoint2D());
+
+        state0.setStartingState(true);
+        state0.addTransition(state1, EPSILON);
+        state1.addTransition(state2, EPSILON);
+        state2.addTransition(state1, EPSILON);
+        state2.addTransition(state3, "a");
+
+        automata = new Automata(states);
+    }
+
+    @Test
+    public void testClosureWithCycle() {
+        EpsilonClosure closure = automata.getEpsilonClosure();
+
+        assertEquals(Set.of(state0, state1, state2), closure.closureOf(state0));
+        assertEquals(Set.of(state1, state2), closure.closureOf(state1));
+        assertEquals(Set.of(state1, state2), closure.closureOf(state2));
+        assertEquals(Set.of(state3), closure.closureOf(state3));
+        assertEquals(Set.of(state1, state2, state3), closure.closureOf(List.of(state2, state3)));
+        assertEquals(3, closure.getComponentCount());
+    }
+
+    @Test
+    public void testMatchesStateEpsilonClosure() {
+        EpsilonClosure closure = automata.getEpsilonClosure();
+
+        for (State state : states.keySet()) {
+            assertEquals(State.epsilonClosure(state, new HashSet<>()), closure.closureOf(state));
+        }
+    }
+
+    @Test
+    public void testCachedUntilModified() {
+        EpsilonClosure closure = automata.getEpsilonClosure();
+        assertSame(closure, automata.getEpsilonClosure());
+
+        automata.addTransition(new Transition(state2, state3, EPSILON));
+        EpsilonClosure updated = automata.getEpsilonClosure();
+
+        assertNotSame(closure, updated);
+        assertEquals(Set.of(state0, state1, state2, state3), updated.closureOf(state0));
+    }
+
+    @Test
+    public void testReplacingAStateInvalidatesTheCache() {
+        EpsilonClosure closure = automata.getEpsilonClosure();
+
+        // Same number of states as before, and moving a state does not change any closure
+        automata.removeState(state3);
+        State state4 = new State("q4");
+        automata.addState(state4, new SerializablePoint2D());
+        automata.moveState(state4, new SerializablePoint2D(10, 10));
+        EpsilonClosure updated = automata.getEpsilonClosure();
+
+        assertNotSame(closure, updated);
+        assertEquals(Set.of(state4), updated.closureOf(state4));
+        assertEquals(-1, updated.indexOf(state3));
+        assertSame(updated, automata.getEpsilonClosure());
+    }
+
+    @Test
+    public void testOtherAutomataDoNotInvalidateTheCache() {
+        EpsilonClosure closure = automata.getEpsilonClosure();
+
+        Automata other = new Automata(new HashMap<>());
+        State otherState = new State("other");
+        other.addState(otherState, new SerializablePoint2D());
+        other.addTransition(new Transition(otherState, otherState, EPSILON));
+
+        assertSame(closure, automata.getEpsilonClosure());
+    }
+
+    @Test
+    public void testAutomataSharingStatesSeeEachOthersChanges() {
+        // Like the construction automaton and its mirror in the subset construction view
+        Automata mirror = new Automata(states);
+        EpsilonClosure closure = mirror.getEpsilonClosure();
+
+        automata.addTransition(new Transition(state2, state3, EPSILON));
+        assertNotSame(closure, mirror.getEpsilonClosure());
+        assertEquals(Set.of(state0, state1, state2, state3), mirror.getEpsilonClosure().closureOf(state0));
+
+        State state4 = new State("q4");
+        automata.addState(state4, new SerializablePoint2D());
+        automata.addTransition(new Transition(state4, state0, EPSILON));
+        assertEquals(Set.of(state4, state0, state1, state2, state3), mirror.getEpsilonClosure().closureOf(state4));
+
+        state3.setAcceptingState(true);
+        state0.toggleStartingState();
+        state4.toggleStartingState();
+        BitParallelNFA nfa = BitParallelNFA.compile(mirror);
+        assertTrue(nfa.accepts(""));
+    }
+
+    @Test
+    public void testChangesOnStatesInvalidateTheCache() {
+        EpsilonClosure closure = automata.getEpsilonClosure();
+
+        state2.addTransition(state3, EPSILON);
+        assertNotSame(closure, automata.getEpsilonClosure());
+        assertEquals(Set.of(state1, state2, state3), automata.getEpsilonClosure().closureOf(state1));
+    }
+
+    @Test
+    public void testLongChainDoesNotOverflow() {
+        State previous = state3;
+        for (int i = 0; i < 100000; i++) {
+            State chainState = new State("c" + i);
+            states.put(chainState, new SerializablePoint2D());
+            previous.addTransition(chainState, EPSILON);
+            previous = chainState;
+        }
+
+        EpsilonClosure closure = automata.getEpsilonClosure();
+        assertEquals(100001, closure.closureOf(state3).size());
+        assertEquals(100001, State.epsilonClosure(state3, new HashSet<>()).size());
+    }
+}
@@ -0,0 +1,91 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import components.SpecialSymbols;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.engine.BitParallelNFA;
+import model.engine.LazyDFA;
+
+public class LazyDFATest {
+    private static final String EPSILON = SpecialSymbols.EPSILON.toString();
+
+    @Test
+    public void testAcceptsAndCachesAcrossWords() {
+        // Words ending in "ab", through an ε-transition
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        State state0 = new State("q0");
+        State state1 = new State("q1");
+        State state2 = new State("q2");
+        State state3 = new State("q3");
+        states.put(state0, new SerializablePoint2D());
+        states.put(state1, new SerializablePoint2D());
+        states.put(state2, new SerializablePoint2D());
+        states.put(state3, new SerializablePoint2D());
+        state0.setStartingState(true);
+        state3.setAcceptingState(true);
+        state0.addTransition(state0, "a");
+        state0.addTransition(state0, "b");
+        state0.addTransition(state1, EPSILON);
+        state1.addTransition(state2, "a");
+        state2.addTransition(state3, "b");
+
+        LazyDFA dfa = LazyDFA.compile(new Automata(states));
+        assertTrue(dfa.accepts("ab"));
+        assertTrue(dfa.accepts("bbab"));
+        assertFalse(dfa.accepts("aba"));
+        assertFalse(dfa.accepts("ax"));
+
+        int cached = dfa.getCachedStates();
+        assertTrue(dfa.accepts("aab"));
+        assertEquals(cached, dfa.getCachedStates());
+        assertEquals(Set.of(state0, state1, state3), dfa.finalStates("ab"));
+        assertTrue(dfa.finalStates("x").isEmpty());
+    }
+
+    @Test
+    public void testFlushesAtMemoryLimit() {
+        // The 10th symbol from the end is an a: 2^10 DFA states, far more than the small limit allows
+        int n = 10;
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        List<State> chain = new ArrayList<>();
+        for (int i = 0; i <= n; i++) {
+            State state = new State("q" + i);
+            states.put(state, new SerializablePoint2D());
+            chain.add(state);
+        }
+        chain.get(0).setStartingState(true);
+        chain.get(n).setAcceptingState(true);
+        chain.get(0).addTransition(chain.get(0), "a");
+        chain.get(0).addTransition(chain.get(0), "b");
+        chain.get(0).addTransition(chain.get(1), "a");
+        for (int i = 1; i < n; i++) {
+            chain.get(i).addTransition(chain.get(i + 1), "a");
+            chain.get(i).addTransition(chain.get(i + 1), "b");
+        }
+
+        BitParallelNFA nfa = BitParallelNFA.compile(new Automata(states));
+        LazyDFA dfa = new LazyDFA(nfa, 4 * 1024);
+        Random random = new Random(3);
+        for (int w = 0; w < 300; w++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = random.nextInt(40); length > 0; length--) {
+                word.append(random.nextBoolean() ? 'a' : 'b');
+            }
+            assertEquals(nfa.accepts(word), dfa.accepts(word), word.toString());
+            assertTrue(dfa.getCacheBytes() <= 4 * 1024);
+        }
+        assertTrue(dfa.getFlushCount() > 0);
+    }
+}
@@ -0,0 +1,111 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.engine.CompiledDFA;
+import model.engine.MappedDFA;
+import model.engine.ParallelWordMatcher;
+
+public class MappedDFATest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testExportAndOpen() throws IOException {
+        Random random = new Random(5);
+        CompiledDFA dfa = CompiledDFA.compile(randomDFA(random, 70));
+        Path file = tempDir.resolve("dfa.bin");
+        MappedDFA.export(dfa, file);
+
+        MappedDFA mapped = MappedDFA.open(file);
+        assertEquals(dfa.getNumStates(), mapped.getNumStates());
+        assertEquals(dfa.getSymbols().getSymbols(), mapped.getSymbols().getSymbols());
+        assertEquals(dfa.getStartState(), mapped.getStartState());
+        for (int state = 0; state < dfa.getNumStates(); state++) {
+            assertEquals(dfa.isAccepting(state), mapped.isAccepting(state));
+            for (int symbol = 0; symbol < dfa.getNumSymbols(); symbol++) {
+                assertEquals(dfa.step(state, symbol), mapped.step(state, symbol));
+            }
+        }
+
+        for (int i = 0; i < 200; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = random.nextInt(20); length > 0; length--) {
+                word.append("abc".charAt(random.nextInt(3)));
+            }
+            assertEquals(dfa.accepts(word), mapped.accepts(word), word.toString());
+        }
+    }
+
+    @Test
+    public void testParallelMatcherOverMappedTable() throws IOException {
+        Random random = new Random(9);
+        CompiledDFA dfa = CompiledDFA.compile(randomDFA(random, 20));
+        Path file = tempDir.resolve("dfa.bin");
+        MappedDFA.export(dfa, file);
+
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            word.append("ab".charAt(random.nextInt(2)));
+        }
+        ParallelWordMatcher matcher = new ParallelWordMatcher(MappedDFA.open(file), ForkJoinPool.commonPool(), 700);
+        assertEquals(dfa.run(dfa.getStartState(), word, 0, word.length()), matcher.run(word));
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Path file = tempDir.resolve("other.bin");
+        Files.write(file, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> MappedDFA.open(file));
+
+        MappedDFA.export(CompiledDFA.compile(randomDFA(new Random(1), 4)), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> MappedDFA.open(file));
+
+        // The last table entry points one past the four states
+        bytes[bytes.length - 4] = 4;
+        bytes[bytes.length - 3] = 0;
+        bytes[bytes.length - 2] = 0;
+        bytes[bytes.length - 1] = 0;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> MappedDFA.open(file));
+    }
+
+    // A random DFA over {a, b, c} with some transitions missing
+    private static Automata randomDFA(Random random, int size) {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        List<State> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            State state = new State("q" + i);
+            state.setAcceptingState(random.nextBoolean());
+            states.put(state, new SerializablePoint2D());
+            list.add(state);
+        }
+        list.get(0).setStartingState(true);
+        for (State state : list) {
+            for (String symbol : new String[] {"a", "b", "c"}) {
+                if (random.nextInt(8) > 0) {
+                    state.addTransition(list.get(random.nextInt(size)), symbol);
+                }
+            }
+        }
+        return new Automata(states);
+    }
+}
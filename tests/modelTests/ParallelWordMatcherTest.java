@@ -0,0 +1,122 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.engine.CompiledDFA;
+import model.engine.ParallelWordMatcher;
+
+public class ParallelWordMatcherTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testAgreesWithSequentialRun() {
+        Random random = new Random(11);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 20; round++) {
+                CompiledDFA dfa = CompiledDFA.compile(randomDFA(random, 8, round % 2 == 0));
+                ParallelWordMatcher matcher = new ParallelWordMatcher(dfa, pool, 1 + random.nextInt(500));
+
+                StringBuilder word = new StringBuilder();
+                for (int length = random.nextInt(5000); length > 0; length--) {
+                    word.append(random.nextBoolean() ? 'a' : 'b');
+                }
+                assertEquals(dfa.run(dfa.getStartState(), word, 0, word.length()), matcher.run(word));
+                assertEquals(dfa.accepts(word), matcher.accepts(word));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testTransitionFunction() {
+        CompiledDFA dfa = CompiledDFA.compile(randomDFA(new Random(3), 6, true));
+        ParallelWordMatcher matcher = new ParallelWordMatcher(dfa, ForkJoinPool.commonPool(), 100);
+        String word = "abbabaabbbab";
+
+        int[] function = matcher.transitionFunction(word, 2, 9);
+        for (int state = 0; state < dfa.getNumStates(); state++) {
+            assertEquals(dfa.run(state, word, 2, 9), function[state]);
+        }
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5}, matcher.transitionFunction(word, 4, 4));
+    }
+
+    @Test
+    public void testFileAsOneWord() throws IOException {
+        // Words with an even number of a's
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        State even = new State("even");
+        State odd = new State("odd");
+        states.put(even, new SerializablePoint2D());
+        states.put(odd, new SerializablePoint2D());
+        even.setStartingState(true);
+        even.setAcceptingState(true);
+        even.addTransition(odd, "a");
+        odd.addTransition(even, "a");
+        even.addTransition(even, "b");
+        odd.addTransition(odd, "b");
+        ParallelWordMatcher matcher = new ParallelWordMatcher(CompiledDFA.compile(new Automata(states)), ForkJoinPool.commonPool(), 1000);
+
+        String word = "ab".repeat(12345);
+        Path file = tempDir.resolve("word.txt");
+        Files.write(file, word.getBytes(StandardCharsets.US_ASCII));
+        assertFalse(matcher.accepts(file));
+
+        Files.write(file, (word + "a").getBytes(StandardCharsets.US_ASCII));
+        assertTrue(matcher.accepts(file));
+
+        Files.write(file, (word + "a\n").getBytes(StandardCharsets.US_ASCII));
+        assertFalse(matcher.accepts(file));
+    }
+
+    @Test
+    public void testRejectsNondeterministicAutomaton() {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        State state0 = new State("q0");
+        states.put(state0, new SerializablePoint2D());
+        state0.setStartingState(true);
+        state0.addTransition(state0, "a");
+        state0.addTransition(new State("q1"), "a");
+        assertThrows(IllegalArgumentException.class, () -> ParallelWordMatcher.compile(new Automata(states)));
+    }
+
+    // A random DFA over {a, b}, complete or with some transitions missing
+    private static Automata randomDFA(Random random, int size, boolean isComplete) {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        List<State> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            State state = new State("q" + i);
+            state.setAcceptingState(random.nextBoolean());
+            states.put(state, new SerializablePoint2D());
+            list.add(state);
+        }
+        list.get(0).setStartingState(true);
+        for (State state : list) {
+            for (String symbol : new String[] {"a", "b"}) {
+                if (isComplete || random.nextInt(10) > 0) {
+                    state.addTransition(list.get(random.nextInt(size)), symbol);
+                }
+            }
+        }
+        return new Automata(states);
+    }
+}
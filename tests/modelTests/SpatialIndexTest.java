@@ -0,0 +1,60 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import components.SpatialIndex;
+import javafx.geometry.BoundingBox;
+
+public class SpatialIndexTest {
+    @Test
+    public void testPointQuery() {
+        SpatialIndex<String> index = new SpatialIndex<>(100);
+        index.add("a", new BoundingBox(0, 0, 90, 90));
+        index.add("b", new BoundingBox(80, 80, 90, 90));
+        index.add("c", new BoundingBox(-500, -500, 10, 10));
+
+        assertEquals(Set.of("a"), index.query(10, 10));
+        assertEquals(Set.of("a", "b"), index.query(85, 85));
+        assertEquals(Set.of("c"), index.query(-495, -495));
+        assertTrue(index.query(95, 10).isEmpty());
+        assertTrue(index.query(5000, 5000).isEmpty());
+    }
+
+    @Test
+    public void testSegmentOnlyCoversCellsAlongIt() {
+        SpatialIndex<String> index = new SpatialIndex<>(100);
+        index.addSegment("line", 0, 0, 1000, 1000, 5);
+
+        assertEquals(Set.of("line"), index.query(500, 503));
+        assertEquals(Set.of("line"), index.query(998, 1000));
+        // Inside the bounding box of the line, but far from it
+        assertTrue(index.query(900, 100).isEmpty());
+        assertTrue(index.query(new BoundingBox(850, 50, 100, 100)).isEmpty());
+    }
+
+    @Test
+    public void testRegionQueryAndUpdate() {
+        SpatialIndex<String> index = new SpatialIndex<>(50);
+        for (int i = 0; i < 100; i++) {
+            index.add("s" + i, new BoundingBox(i * 100, 0, 40, 40));
+        }
+        assertEquals(100, index.size());
+        assertEquals(Set.of("s3", "s4"), index.query(new BoundingBox(310, 10, 100, 10)));
+
+        // Moving an item is removing it and adding it with its new boxes
+        index.remove("s4");
+        index.add("s4", new BoundingBox(5000, 5000, 40, 40));
+        assertEquals(Set.of("s3"), index.query(new BoundingBox(310, 10, 100, 10)));
+        assertEquals(Set.of("s4"), index.query(5010, 5010));
+
+        index.remove("s4");
+        assertFalse(index.contains("s4"));
+        assertTrue(index.query(5010, 5010).isEmpty());
+        index.clear();
+        assertEquals(0, index.size());
+    }
+}
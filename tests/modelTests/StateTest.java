@@ -3,6 +3,7 @@ package tests.modelTests;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -153,6 +154,25 @@ public class StateTest {
         assertNull(state1.getNextStateFromSymbol("b"));
     }
     
+    @Test
+    public void testIndexFollowsTransitionChanges() {
+        state1.addTransition(transition1);
+        state1.addTransition(transition3);
+        assertEquals(List.of(transition1), state1.getTransitionsTo(state2));
+        
+        transition1.updateTransitionSymbol("b");
+        assertNull(state1.getTransitionBySymbol("a"));
+        assertEquals(transition1, state1.getTransitionBySymbol("b"));
+        
+        transition1.setTargetState(state3);
+        assertTrue(state1.getTransitionsTo(state2).isEmpty());
+        assertEquals(Set.of(transition1, transition3), new HashSet<>(state1.getTransitionsTo(state3)));
+        
+        state1.removeTransition(transition3);
+        assertNull(state1.getTransitionBySymbol("c"));
+        assertEquals("b", state1.getTransitionSymbolToTargetState(state3));
+    }
+    
     @Test
     public void testClearTransitions() {
         state1.addTransition(transition1);
@@ -164,9 +184,26 @@ public class StateTest {
     @Test
     public void testEqualsMethod() {
         State stateCopy = state1.copy();
-        assertTrue(state1.equals(stateCopy));
+        assertTrue(state1.structurallyEquals(stateCopy));
+        assertFalse(state1.equals(stateCopy));
+        assertTrue(state1.equals(state1));
         
         State differentState = new State("different");
-        assertFalse(state1.equals(differentState));
+        assertFalse(state1.structurallyEquals(differentState));
+    }
+    
+    @Test
+    public void testIdsAreUniqueAndStable() {
+        State other = new State("q1");
+        assertNotEquals(state1.getId(), other.getId());
+        assertEquals(state1.getId(), state1.getId());
+        
+        int hashCode = state1.hashCode();
+        state1.updateName("renamed");
+        state1.addTransition(other, "a");
+        assertEquals(hashCode, state1.hashCode());
+        
+        State loaded = new State(state1.getId() + 1000, "loaded");
+        assertTrue(new State("next").getId() > loaded.getId());
     }
 }
@@ -0,0 +1,146 @@
+package tests.modelTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import components.SpecialSymbols;
+import components.serialization.SerializablePoint2D;
+import model.Automata;
+import model.State;
+import model.engine.BitParallelNFA;
+import model.engine.StateSetTable;
+import model.engine.SubsetConstruction;
+
+public class SubsetConstructionTest {
+    private static final String EPSILON = SpecialSymbols.EPSILON.toString();
+
+    @Test
+    public void testStateSetTableInterns() {
+        StateSetTable table = new StateSetTable();
+        assertEquals(0, table.intern(new int[] {1, 2, 3}));
+        assertEquals(1, table.intern(new int[] {1, 2}));
+        assertEquals(0, table.intern(new int[] {1, 2, 3}));
+        assertEquals(1, table.find(new int[] {1, 2}));
+        assertEquals(StateSetTable.NOT_FOUND, table.find(new int[] {2}));
+
+        // Grow well past the initial capacity
+        for (int i = 0; i < 10000; i++) {
+            table.intern(new int[] {i, i + 100000});
+        }
+        assertEquals(10002, table.size());
+        assertEquals(5002, table.find(new int[] {5000, 105000}));
+        assertArrayEquals(new int[] {1, 2}, table.get(1));
+    }
+
+    @Test
+    public void testExponentialBlowUp() {
+        BitParallelNFA nfa = BitParallelNFA.compile(nthFromLast(12));
+        SubsetConstruction.Result result = SubsetConstruction.determinize(nfa, symbolIds(nfa));
+        assertEquals(1 << 12, result.getNumStates());
+        assertTrue(result.isComplete());
+    }
+
+    @Test
+    public void testStateBudgetGivesPartialResult() {
+        BitParallelNFA nfa = BitParallelNFA.compile(nthFromLast(12));
+        SubsetConstruction.Result result = SubsetConstruction.determinize(nfa, symbolIds(nfa), 100, null);
+
+        assertEquals(100, result.getNumStates());
+        assertFalse(result.isComplete());
+        boolean hasUnexplored = false;
+        for (int state = 0; state < result.getNumStates(); state++) {
+            for (int column = 0; column < 2; column++) {
+                int target = result.next(state, column);
+                assertTrue(target == SubsetConstruction.UNEXPLORED || (target >= 0 && target < 100));
+                hasUnexplored |= target == SubsetConstruction.UNEXPLORED;
+            }
+        }
+        assertTrue(hasUnexplored);
+    }
+
+    @Test
+    public void testListenerCanStop() {
+        BitParallelNFA nfa = BitParallelNFA.compile(nthFromLast(14));
+        int[] calls = new int[1];
+        SubsetConstruction.Result result = SubsetConstruction.determinize(nfa, symbolIds(nfa), Integer.MAX_VALUE, (discovered, pending) -> {
+            assertTrue(pending <= discovered);
+            return ++calls[0] < 3;
+        });
+
+        assertEquals(3, calls[0]);
+        assertFalse(result.isComplete());
+        assertTrue(result.getNumStates() < 1 << 14);
+        assertEquals(SubsetConstruction.UNEXPLORED, result.next(result.getNumStates() - 1, 0));
+    }
+
+    @Test
+    public void testAgreesWithNFA() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            Map<State, SerializablePoint2D> states = new HashMap<>();
+            List<State> list = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                State state = new State("q" + i);
+                state.setAcceptingState(random.nextInt(4) == 0);
+                states.put(state, new SerializablePoint2D());
+                list.add(state);
+            }
+            list.get(0).setStartingState(true);
+            String[] symbols = {"a", "b", EPSILON};
+            for (int i = 0; i < 10; i++) {
+                list.get(random.nextInt(6)).addTransition(list.get(random.nextInt(6)), symbols[random.nextInt(3)]);
+            }
+
+            BitParallelNFA nfa = BitParallelNFA.compile(new Automata(states));
+            int[] symbolIds = symbolIds(nfa);
+            SubsetConstruction.Result result = SubsetConstruction.determinize(nfa, symbolIds);
+
+            for (int w = 0; w < 30; w++) {
+                StringBuilder word = new StringBuilder();
+                int dfaState = 0;
+                for (int length = random.nextInt(8); length > 0; length--) {
+                    int column = random.nextInt(2);
+                    word.append(column == 0 ? 'a' : 'b');
+                    if (dfaState != SubsetConstruction.EMPTY_SET) {
+                        dfaState = result.next(dfaState, column);
+                    }
+                }
+                boolean dfaAccepts = dfaState != SubsetConstruction.EMPTY_SET && result.isAccepting(dfaState);
+                assertEquals(nfa.accepts(word), dfaAccepts, word.toString());
+            }
+        }
+    }
+
+    // The n-th symbol from the end is an a: the minimal DFA has 2^n states
+    private static Automata nthFromLast(int n) {
+        Map<State, SerializablePoint2D> states = new HashMap<>();
+        List<State> chain = new ArrayList<>();
+        for (int i = 0; i <= n; i++) {
+            State state = new State("q" + i);
+            states.put(state, new SerializablePoint2D());
+            chain.add(state);
+        }
+        chain.get(0).setStartingState(true);
+        chain.get(n).setAcceptingState(true);
+        chain.get(0).addTransition(chain.get(0), "a");
+        chain.get(0).addTransition(chain.get(0), "b");
+        chain.get(0).addTransition(chain.get(1), "a");
+        for (int i = 1; i < n; i++) {
+            chain.get(i).addTransition(chain.get(i + 1), "a");
+            chain.get(i).addTransition(chain.get(i + 1), "b");
+        }
+
+        return new Automata(states);
+    }
+
+    private static int[] symbolIds(BitParallelNFA nfa) {
+        return new int[] {nfa.getSymbols().idOf("a"), nfa.getSymbols().idOf("b")};
+    }
+}
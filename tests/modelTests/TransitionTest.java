@@ -60,9 +60,11 @@ public class TransitionTest {
     
     @Test
     public void testEquals() {
-        assertFalse(transition.equals(new Transition(sourceState, targetState, "b")));
+        assertFalse(transition.structurallyEquals(new Transition(sourceState, targetState, "b")));
         
         Transition equalTransition = new Transition(sourceState, targetState, transitionSymbol);
-        assertTrue(transition.equals(equalTransition));
+        assertTrue(transition.structurallyEquals(equalTransition));
+        assertFalse(transition.equals(equalTransition));
+        assertNotEquals(transition.getId(), equalTransition.getId());
     }
 }
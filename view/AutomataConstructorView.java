@@ -248,6 +248,10 @@ public class AutomataConstructorView extends BorderPane {
         controller.updateAutomataValidityLabel(controller.getAutomata().isValid());
     }
     
+    public static ConstructionController getController() {
+        return controller;
+    }
+    
     public static void setAsDFA() {
         dfaButton.setSelected(true);
         nfaButton.setSelected(false);
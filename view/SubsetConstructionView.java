@@ -1,32 +1,43 @@
 package view;
 
+import java.io.File;
 import java.util.Map;
 
+import javafx.application.Platform;
 import javafx.scene.control.TableView;
 import javafx.beans.property.StringProperty;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Spinner;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
+import javafx.stage.FileChooser;
 
 import model.State;
 import model.Automata;
+import model.AutomataEvent;
 import components.SubsetConstructionCanvas;
 import components.SpecialSymbols;
 import components.serialization.SerializablePoint2D;
 import controller.SubsetConstructionController;
+import controller.SubsetConstructionController.DFAConversion;
 import app.App; 
 
 /*
  * SubsetConstructionView: View class for the subset construction algorithm interface.
  */
 public class SubsetConstructionView extends BorderPane {
+    private static final int DEFAULT_MAX_DFA_STATES = 10000;
+    
     private static Automata nfaAutomata;
     private static Automata dfaAutomata;
     
@@ -41,8 +52,16 @@ public class SubsetConstructionView extends BorderPane {
     private static Button useDFAButton;
     private static Button tryConversionButton;
     private static Button clearDFAButton;
+    private static Button minimizeButton;
+    private static Button exportTableButton;
+    private static Button cancelConversionButton;
+    private static Spinner<Integer> maxStatesSpinner;
+    private static ProgressBar conversionProgressBar;
+    private static Label conversionStatusLabel;
+    private static Task<DFAConversion> conversionTask;
     
     private static VBox nfaDataWrapper;
+    private static boolean isDataViewUpdatePending = false;
     private static VBox dfaDataWrapper;
     
     // Constructor
@@ -76,6 +95,19 @@ public class SubsetConstructionView extends BorderPane {
         useDFAButton = new Button("Use DFA");
         tryConversionButton = new Button("Attempt Conversion");
         clearDFAButton = new Button("Clear DFA");
+        minimizeButton = new Button("Minimize DFA");
+        minimizeButton.setDisable(true);
+        exportTableButton = new Button("Export DFA Table");
+        exportTableButton.setDisable(true);
+        cancelConversionButton = new Button("Cancel");
+        cancelConversionButton.setDisable(true);
+        
+        maxStatesSpinner = new Spinner<>(1, 1000000, DEFAULT_MAX_DFA_STATES, 1000);
+        maxStatesSpinner.setEditable(true);
+        maxStatesSpinner.setPrefWidth(110);
+        conversionProgressBar = new ProgressBar(0);
+        conversionProgressBar.setVisible(false);
+        conversionStatusLabel = new Label();
         
         nfaDataWrapper = new VBox(20);
         dfaDataWrapper = new VBox(20);
@@ -127,13 +159,13 @@ public class SubsetConstructionView extends BorderPane {
         
         HBox buttonBox = new HBox(20);
         buttonBox.setAlignment(Pos.CENTER);
-        buttonBox.getChildren().addAll(convertButton, useDFAButton, tryConversionButton, clearDFAButton);
+        buttonBox.getChildren().addAll(convertButton, minimizeButton, exportTableButton, useDFAButton, tryConversionButton, clearDFAButton,
+            new Label("Max DFA states:"), maxStatesSpinner, cancelConversionButton, conversionProgressBar, conversionStatusLabel);
         
         Insets margin = new Insets(10, 0, 0, 0);
-        HBox.setMargin(convertButton, margin);
-        HBox.setMargin(useDFAButton, margin);
-        HBox.setMargin(tryConversionButton, margin);
-        HBox.setMargin(clearDFAButton, margin);
+        for (Node node : buttonBox.getChildren()) {
+            HBox.setMargin(node, margin);
+        }
         
         HBox automataBox = new HBox(20);
         automataBox.setAlignment(Pos.CENTER);
@@ -147,11 +179,37 @@ public class SubsetConstructionView extends BorderPane {
     public void initialiseEventHandlers() {
         convertButton.setOnAction(e -> {
             dfaAutomata.setAsDFA();
-            nfacontroller.convertToDFA();
-            dfaAutomata.setStates(nfacontroller.getDFAStates());
-            dfacontroller.updateStates(dfaAutomata.getStates());
-            updateAutomatonDataView();
-            useDFAButton.setDisable(dfacontroller.getAutomata().getStates().isEmpty());
+            runConversion(maxStatesSpinner.getValue(), () -> {
+                dfaAutomata.setStates(nfacontroller.getDFAStates());
+                dfacontroller.updateStates(dfaAutomata.getStates());
+                updateAutomatonDataView();
+                useDFAButton.setDisable(dfacontroller.getAutomata().getStates().isEmpty());
+                minimizeButton.setDisable(dfacontroller.getAutomata().getStates().isEmpty());
+                exportTableButton.setDisable(dfacontroller.getAutomata().getStates().isEmpty());
+            });
+        });
+        
+        minimizeButton.setOnAction(e -> {
+            int statesBefore = dfaAutomata.getStates().size();
+            if (dfacontroller.minimizeDFA()) {
+                updateAutomatonDataView();
+                conversionStatusLabel.setText("Minimized from " + statesBefore + " to " + dfaAutomata.getStates().size() + " states");
+            }
+        });
+        
+        exportTableButton.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Export DFA Table");
+            File file = fileChooser.showSaveDialog(getScene().getWindow());
+            if (file != null && dfacontroller.exportDFATable(file)) {
+                conversionStatusLabel.setText("Exported " + dfaAutomata.getStates().size() + " states to " + file.getName());
+            }
+        });
+        
+        cancelConversionButton.setOnAction(e -> {
+            if (conversionTask != null) {
+                conversionTask.cancel();
+            }
         });
         
         // Toggle between the NFA or DFA automata in the entire application
@@ -171,10 +229,12 @@ public class SubsetConstructionView extends BorderPane {
         
         tryConversionButton.setOnAction(e -> {
             if (!AutomataConstructorView.isDFA()) {
-                nfacontroller.convertToDFA();
-                dfaAutomata.setStates(nfacontroller.getDFAStates());
-                dfacontroller.attemptConversion(dfaAutomata.getStates(), nfaAutomata.getStates());
-                updateAutomatonDataView();
+                // Grading needs the whole DFA, so this conversion has no state budget
+                runConversion(Integer.MAX_VALUE, () -> {
+                    dfaAutomata.setStates(nfacontroller.getDFAStates());
+                    dfacontroller.attemptConversion(dfaAutomata.getStates(), nfaAutomata.getStates());
+                    updateAutomatonDataView();
+                });
             }
         });
         
@@ -186,7 +246,69 @@ public class SubsetConstructionView extends BorderPane {
             updateAutomatonDataView();
             useDFAButton.setText("Use NFA");
             useDFAButton.setDisable(false);
+            minimizeButton.setDisable(true);
+            exportTableButton.setDisable(true);
+        });
+    }
+    
+    /**
+     * Convert the NFA to a DFA in the background, keeping the UI responsive and cancellable.
+     * The result is applied and onApplied is run once, on the JavaFX thread, when the task succeeds.
+     * @param maxStates
+     * @param onApplied
+     */
+    private void runConversion(int maxStates, Runnable onApplied) {
+        if (conversionTask != null && conversionTask.isRunning()) {
+            return;
+        }
+        
+        Task<DFAConversion> task = nfacontroller.createConversionTask(maxStates);
+        if (task == null) {
+            onApplied.run(); // No starting state, show the empty DFA as before
+            return;
+        }
+        conversionTask = task;
+        
+        setConversionRunning(true);
+        conversionProgressBar.progressProperty().bind(task.progressProperty());
+        conversionStatusLabel.textProperty().bind(task.messageProperty());
+        
+        task.setOnSucceeded(e -> {
+            finishConversion();
+            DFAConversion conversion = task.getValue();
+            nfacontroller.applyConversion(conversion);
+            onApplied.run();
+            conversionStatusLabel.setText(conversion.isComplete()
+                ? conversion.getNumStates() + " DFA states"
+                : "Stopped at " + maxStates + " states, the DFA is partial");
+        });
+        task.setOnCancelled(e -> {
+            finishConversion();
+            conversionStatusLabel.setText("Conversion cancelled");
         });
+        task.setOnFailed(e -> {
+            finishConversion();
+            conversionStatusLabel.setText("Conversion failed: " + task.getException().getMessage());
+        });
+        
+        Thread thread = new Thread(task, "subset-construction");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void finishConversion() {
+        conversionProgressBar.progressProperty().unbind();
+        conversionStatusLabel.textProperty().unbind();
+        setConversionRunning(false);
+    }
+    
+    private void setConversionRunning(boolean isRunning) {
+        convertButton.setDisable(isRunning);
+        tryConversionButton.setDisable(isRunning);
+        minimizeButton.setDisable(isRunning || dfaAutomata.getStates().isEmpty());
+        exportTableButton.setDisable(isRunning || dfaAutomata.getStates().isEmpty());
+        cancelConversionButton.setDisable(!isRunning);
+        conversionProgressBar.setVisible(isRunning);
     }
     
     // Update the data view of the automata for both the NFA and DFA
@@ -237,6 +359,45 @@ public class SubsetConstructionView extends BorderPane {
         
         updateAutomatonDataView();
     }
+
+    /**
+     * Mirror one change of an edited automaton. The change is passed on to the transition table showing the
+     * same states and marks the mirroring automaton as changed. The whole side is only rebuilt when it shows
+     * a different set of states.
+     * @param event
+     */
+    public static void automataChanged(AutomataEvent event) {
+        if (nfacontroller == null || dfacontroller == null) {
+            return; // The view is not built yet
+        }
+        if (event.getType() == AutomataEvent.Type.STATE_MOVED || event.getType() == AutomataEvent.Type.ALPHABET_CHANGED) {
+            return; // Positions are shared with the canvas and the alphabet is updated through updateAlphabetView
+        }
+        Automata automata = event.getAutomata();
+        SubsetConstructionController mirror = automata.isDFA() ? dfacontroller : nfacontroller;
+        if (mirror.getAutomata().getStates() != automata.getStates()) {
+            updateCorrespondingAutomata(automata);
+            return;
+        }
+        mirror.getTransitionTableListener().automataChanged(event);
+        // The conversion compiles engines from the mirror, which must not be reused from before the edit
+        mirror.getAutomata().markChanged();
+        automataEdited();
+    }
+
+    /**
+     * Update the data view once the current edit is done. Any number of calls before then update it once.
+     */
+    public static void automataEdited() {
+        if (isDataViewUpdatePending) {
+            return;
+        }
+        isDataViewUpdatePending = true;
+        Platform.runLater(() -> {
+            isDataViewUpdatePending = false;
+            updateAutomatonDataView();
+        });
+    }
     
     /*
      * Update the alphabet of both the NFA and DFA automata. 
@@ -247,6 +408,10 @@ public class SubsetConstructionView extends BorderPane {
         nfacontroller.setAlphabet(alphabet);
     }
 
+    public static SubsetConstructionController getDFAController() {
+        return dfacontroller;
+    }
+
     public static void disableConversionButtons() {
         convertButton.setDisable(true);
         useDFAButton.setDisable(true);